@@ -0,0 +1,58 @@
+package connectfour.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import connectfour.impl.BitBoard;
+import connectfour.impl.Evaluator;
+
+/**
+ * @author Huijuan Zou
+ * Evaluations per microsecond of the static evaluation on one thread,
+ * cycling through random positions of a fill level so that neither
+ * the branches nor the result can be learned.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EvaluationBenchmark {
+  private static final int POSITIONS = 1024;
+
+  @Param({"4", "12", "24"})
+  public int fill;
+
+  private final long[] current = new long[POSITIONS];
+  private final long[] mask = new long[POSITIONS];
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    for (int i = 0; i < POSITIONS; i++) {
+      BitBoard board = BitBoard.fromMoves(Positions.randomGame(fill,
+          Positions.SEED + i));
+      current[i] = board.getDiscs(board.getCurrentPlayer());
+      mask[i] = board.getDiscs(0) | board.getDiscs(1);
+    }
+  }
+
+  @Benchmark
+  public int evaluate() {
+    int i = next++ & (POSITIONS - 1);
+    return Evaluator.STANDARD.evaluate(current[i], mask[i]);
+  }
+}
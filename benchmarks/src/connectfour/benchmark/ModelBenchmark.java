@@ -0,0 +1,86 @@
+package connectfour.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import connectfour.api.Player;
+import connectfour.impl.ConnectFourModel;
+import connectfour.impl.GameState;
+
+/**
+ * @author Huijuan Zou
+ * Cost of one ConnectFourModel.findDrop on boards of several fill
+ * levels. findDrop changes the board, so every call takes its disc back
+ * with GameState.undo and hands the turn back to the mover; playUndo
+ * alone is that undo plus a play on the GameState, the way searches
+ * and simulations use it. The game is inactive, so no listener runs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModelBenchmark {
+  private static final int[] CENTER_FIRST = {3, 2, 4, 1, 5, 0, 6};
+
+  @Param({"0", "10", "20", "30", "40"})
+  public int fill;
+
+  private ConnectFourModel model;
+  private int[] prefix;
+  private int column;
+  private Player mover;
+
+  @Setup(Level.Trial)
+  public void setUpTrial() {
+    model = ConnectFourModel.getInstance();
+    model.setGameActive(false);
+    prefix = Positions.columns(Positions.randomGame(fill, Positions.SEED));
+    replay();
+    for (int col : CENTER_FIRST) {
+      if (model.getGameState().canPlay(col)) {
+        column = col;
+        break;
+      }
+    }
+  }
+
+  @Setup(Level.Iteration)
+  public void replay() {
+    model.resetBoard();
+    model.setActivePlayer(model.getPlayer1());
+    for (int col : prefix) {
+      model.findDrop(col);
+    }
+    mover = model.getPlayer1().getPlayerState() ? model.getPlayer1()
+        : model.getPlayer2();
+  }
+
+  @Benchmark
+  public int findDrop() {
+    model.findDrop(column);
+    int undone = model.getGameState().undo();
+    model.setActivePlayer(mover);
+    return undone;
+  }
+
+  @Benchmark
+  public int playUndo() {
+    GameState state = model.getGameState();
+    state.play(column);
+    return state.undo();
+  }
+}
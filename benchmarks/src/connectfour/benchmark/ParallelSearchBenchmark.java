@@ -0,0 +1,76 @@
+package connectfour.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import connectfour.impl.BitBoard;
+import connectfour.impl.NegamaxSearch;
+import connectfour.impl.ParallelSearch;
+
+/**
+ * @author Huijuan Zou
+ * ParallelSearch at a fixed depth over thread counts; the time of one
+ * thread over the time of more is the speedup. Every invocation
+ * searches the same eight positions, each with a cleared table, and
+ * the time is per position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParallelSearchBenchmark {
+  private static final String[] POSITIONS = {
+    "", "4", "44", "4453", "3344", "443352", "2252576", "4444441",
+  };
+
+  @Param({"12"})
+  public int depth;
+
+  @Param({"1", "2", "4"})
+  public int threads;
+
+  private ParallelSearch search;
+  private BitBoard[] boards;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    search = new ParallelSearch(depth, 0, threads,
+        NegamaxSearch.DEFAULT_TABLE_MB);
+    boards = new BitBoard[POSITIONS.length];
+    for (int i = 0; i < boards.length; i++) {
+      boards[i] = BitBoard.fromMoves(POSITIONS[i]);
+    }
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    search.shutdown();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(8)
+  public long search() {
+    long nodes = 0;
+    for (BitBoard board : boards) {
+      search.getTable().clear();
+      nodes += search.search(board, board.getCurrentPlayer()).getNodes();
+    }
+    return nodes;
+  }
+}
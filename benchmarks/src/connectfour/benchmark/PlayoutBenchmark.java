@@ -0,0 +1,72 @@
+package connectfour.benchmark;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import connectfour.impl.BitBoard;
+
+/**
+ * @author Huijuan Zou
+ * Random playouts on a BitBoard to the end of the game, from boards
+ * of several fill levels. Every playout first replays the fill moves;
+ * replay alone measures that part.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PlayoutBenchmark {
+
+  @Param({"0", "10", "20", "30"})
+  public int fill;
+
+  private final BitBoard board = new BitBoard();
+  private SplittableRandom random;
+  private int[] prefix;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    random = new SplittableRandom(Positions.SEED);
+    prefix = Positions.columns(Positions.randomGame(fill, Positions.SEED));
+  }
+
+  @Benchmark
+  public int replay() {
+    board.reset();
+    for (int col : prefix) {
+      board.play(col);
+    }
+    return board.getMoveCount();
+  }
+
+  @Benchmark
+  public int playout() {
+    replay();
+    while (true) {
+      int col = random.nextInt(BitBoard.COL_NUM);
+      if (!board.canPlay(col)) {
+        continue;
+      }
+      int player = board.getCurrentPlayer();
+      board.play(col);
+      if (board.isWin(player) || board.isFull()) {
+        return board.getMoveCount();
+      }
+    }
+  }
+}
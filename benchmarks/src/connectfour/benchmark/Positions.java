@@ -0,0 +1,63 @@
+package connectfour.benchmark;
+
+import java.util.SplittableRandom;
+
+import connectfour.impl.BitBoard;
+
+/**
+ * @author Huijuan Zou
+ * Positions makes the boards the benchmarks start from. A fill level
+ * is a number of random plies from the empty board that leaves a game
+ * nobody has won yet; the same seed always gives the same position,
+ * so runs compare against each other.
+ */
+final class Positions {
+  static final long SEED = 20161018L;
+
+  private Positions() {
+  }
+
+  /**
+   * @param plies number of discs on the board, below 42.
+   * @param seed seed of the random moves.
+   * @return moves of an unfinished game, in the format of
+   * BitBoard.fromMoves.
+   */
+  static String randomGame(int plies, long seed) {
+    if (plies < 0 || plies >= BitBoard.COL_NUM * BitBoard.ROW_NUM) {
+      throw new IllegalArgumentException("Plies out of range");
+    }
+    SplittableRandom random = new SplittableRandom(seed);
+    while (true) {
+      BitBoard board = new BitBoard();
+      StringBuilder moves = new StringBuilder();
+      while (board.getMoveCount() < plies) {
+        int col = random.nextInt(BitBoard.COL_NUM);
+        if (!board.canPlay(col)) {
+          continue;
+        }
+        int player = board.getCurrentPlayer();
+        board.play(col);
+        if (board.isWin(player)) {
+          break;
+        }
+        moves.append(col + 1);
+      }
+      if (moves.length() == plies) {
+        return moves.toString();
+      }
+    }
+  }
+
+  /**
+   * @param moves moves in the format of BitBoard.fromMoves.
+   * @return zero based columns of the moves.
+   */
+  static int[] columns(String moves) {
+    int[] columns = new int[moves.length()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = moves.charAt(i) - '1';
+    }
+    return columns;
+  }
+}
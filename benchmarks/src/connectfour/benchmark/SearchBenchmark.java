@@ -0,0 +1,67 @@
+package connectfour.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import connectfour.impl.BitBoard;
+import connectfour.impl.NegamaxSearch;
+import connectfour.impl.SearchResult;
+import connectfour.impl.TranspositionTable;
+import connectfour.impl.TranspositionTableImpl;
+
+/**
+ * @author Huijuan Zou
+ * NegamaxSearch at fixed depths, without a time budget, on boards of
+ * several fill levels. Every search first clears the transposition
+ * table, so each one starts cold like the first move of a game; clear
+ * alone measures that part.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SearchBenchmark {
+
+  @Param({"4", "6", "8", "10"})
+  public int depth;
+
+  @Param({"0", "10", "20"})
+  public int fill;
+
+  private NegamaxSearch search;
+  private TranspositionTable table;
+  private BitBoard board;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    table = new TranspositionTableImpl(NegamaxSearch.DEFAULT_TABLE_MB);
+    search = new NegamaxSearch(depth, 0, table);
+    board = BitBoard.fromMoves(Positions.randomGame(fill, Positions.SEED));
+  }
+
+  @Benchmark
+  public TranspositionTable clear() {
+    table.clear();
+    return table;
+  }
+
+  @Benchmark
+  public SearchResult search() {
+    table.clear();
+    return search.search(board, board.getCurrentPlayer());
+  }
+}
@@ -0,0 +1,67 @@
+package connectfour.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import connectfour.impl.BitBoard;
+import connectfour.impl.Solver;
+import connectfour.impl.TranspositionTable;
+import connectfour.impl.TranspositionTableImpl;
+
+/**
+ * @author Huijuan Zou
+ * Solver on positions of known score, from the end, the middle and the
+ * beginning of a game; SolverTest checks the scores. Every solve first
+ * clears the transposition table, so each one starts cold; clear alone
+ * measures that part.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SolverBenchmark {
+
+  @Param({"26551373474521375252431533111", "2321233247711411763162555463",
+      "73312115613744225456611", "2313647617", "75224277234"})
+  public String moves;
+
+  @Param({"16", "64"})
+  public int tableMegabytes;
+
+  private Solver solver;
+  private TranspositionTable table;
+  private BitBoard board;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    table = new TranspositionTableImpl(tableMegabytes);
+    solver = new Solver(table);
+    board = BitBoard.fromMoves(moves);
+  }
+
+  @Benchmark
+  public TranspositionTable clear() {
+    table.clear();
+    return table;
+  }
+
+  @Benchmark
+  public int solve() {
+    table.clear();
+    return solver.solve(board, board.getCurrentPlayer());
+  }
+}
@@ -0,0 +1,128 @@
+package connectfour.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import connectfour.impl.BitBoard;
+import connectfour.impl.TranspositionTable;
+import connectfour.impl.TranspositionTableImpl;
+
+/**
+ * @author Huijuan Zou
+ * Transposition table hits with plain and with canonical keys. The walk
+ * visits the game tree to a fixed depth like a full-width search: every
+ * node probes the table, and a position found there is not expanded
+ * again. With canonical keys a mirrored position is found too. The
+ * counters give probes and hits per iteration, so the hit rate of both
+ * key kinds shows next to the time; a small table shows the pressure.
+ * Every walk first clears the table; clear alone measures that part.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SymmetryBenchmark {
+
+  @Param({"8", "10"})
+  public int depth;
+
+  @Param({"0", "6"})
+  public int fill;
+
+  @Param({"1", "16"})
+  public int tableMegabytes;
+
+  @Param({"plain", "canonical"})
+  public String keys;
+
+  private TranspositionTable table;
+  private boolean canonical;
+  private long current;
+  private long mask;
+
+  /**
+   * Probes and hits of the table, summed over an iteration.
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+    public long probes;
+    public long hits;
+
+    @Setup(Level.Iteration)
+    public void reset() {
+      probes = 0;
+      hits = 0;
+    }
+  }
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    table = new TranspositionTableImpl(tableMegabytes);
+    canonical = "canonical".equals(keys);
+    BitBoard board = BitBoard.fromMoves(Positions.randomGame(fill,
+        Positions.SEED));
+    int player = board.getCurrentPlayer();
+    current = board.getDiscs(player);
+    mask = board.getDiscs(0) | board.getDiscs(1);
+  }
+
+  @Benchmark
+  public TranspositionTable clear() {
+    table.clear();
+    return table;
+  }
+
+  @Benchmark
+  public long walk(Counters counters) {
+    table.clear();
+    return walk(current, mask, depth, counters);
+  }
+
+  /**
+   * @return number of nodes expanded.
+   */
+  private long walk(long current, long mask, int depth, Counters counters) {
+    if (depth == 0) {
+      return 1;
+    }
+    long key = current + mask;
+    if (canonical) {
+      key = BitBoard.canonicalKey(key);
+    }
+    counters.probes++;
+    if (table.probe(key) != TranspositionTable.MISS) {
+      counters.hits++;
+      return 1;
+    }
+    table.store(key, depth, TranspositionTable.BOUND_EXACT, 0,
+        TranspositionTable.NO_MOVE);
+    long nodes = 1;
+    for (int col = 0; col < BitBoard.COL_NUM; col++) {
+      if ((mask & BitBoard.topMask(col)) != 0) {
+        continue;
+      }
+      long move = (mask + BitBoard.bottomMask(col)) & BitBoard.columnMask(col);
+      if (BitBoard.hasFour(current | move)) {
+        continue;
+      }
+      nodes += walk(current ^ mask, mask | move, depth - 1, counters);
+    }
+    return nodes;
+  }
+}
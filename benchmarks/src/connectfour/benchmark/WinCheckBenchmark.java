@@ -0,0 +1,86 @@
+package connectfour.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import connectfour.impl.BitBoard;
+import connectfour.impl.ConnectFourModel;
+import connectfour.impl.Drop;
+
+/**
+ * @author Huijuan Zou
+ * Cost of ConnectFourModel.checkWin right after a drop that completes
+ * four in each direction, or none. The game is inactive, so a win
+ * fires no listener and a non-win does not hand over the turn.
+ * isWin measures the bitboard test alone on the same board.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WinCheckBenchmark {
+
+  @Param({"horizontal", "vertical", "diagonal", "antidiagonal", "none"})
+  public String direction;
+
+  private ConnectFourModel model;
+  private Drop drop;
+  private BitBoard board;
+  private int player;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    String moves = moves(direction);
+    model = ConnectFourModel.getInstance();
+    model.setGameActive(false);
+    model.resetBoard();
+    model.setActivePlayer(model.getPlayer1());
+    for (int col : Positions.columns(moves)) {
+      model.findDrop(col);
+    }
+    drop = new Drop(0, 0, model.getActivePlayer().getPlayerColor());
+    board = BitBoard.fromMoves(moves);
+    player = (moves.length() - 1) & 1;
+  }
+
+  @Benchmark
+  public boolean checkWin() {
+    return model.checkWin(drop);
+  }
+
+  @Benchmark
+  public boolean isWin() {
+    return board.isWin(player);
+  }
+
+  private static String moves(String direction) {
+    switch (direction) {
+      case "horizontal":
+        return "1122334";
+      case "vertical":
+        return "1212121";
+      case "diagonal":
+        return "12233434464";
+      case "antidiagonal":
+        return "76655454424";
+      case "none":
+        return "12233434467";
+      default:
+        throw new IllegalArgumentException("Unknown direction " + direction);
+    }
+  }
+}
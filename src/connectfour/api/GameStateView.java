@@ -0,0 +1,58 @@
+package connectfour.api;
+
+/**
+ * @author Huijuan Zou
+ * GameStateView is a read-only view of a game for move providers.
+ * Columns and rows are indexes from 0, rows counted from the bottom,
+ * and players are ids 0 and 1.
+ */
+public interface GameStateView {
+
+  int getColNum();
+
+  int getRowNum();
+
+  /**
+   * @return number of discs in a line that wins.
+   */
+  int getConnect();
+
+  /**
+   * @return 0 or 1, the player who drops next.
+   */
+  int getPlayerToMove();
+
+  int getMoveCount();
+
+  /**
+   * @param index number of the move, from 0 to getMoveCount() - 1.
+   * @return column index of the move.
+   */
+  int getMove(int index);
+
+  /**
+   * @param colIndex column index.
+   * @return number of discs in the column.
+   */
+  int getHeight(int colIndex);
+
+  /**
+   * @param colIndex column index.
+   * @return true if the column is in range and not full.
+   */
+  boolean canPlay(int colIndex);
+
+  /**
+   * @param rowIndex row index counted from the bottom.
+   * @param colIndex column index.
+   * @return 0 or 1 for the player owning the cell, -1 if empty.
+   */
+  int getOwner(int rowIndex, int colIndex);
+
+  /**
+   * @param player 0 or 1.
+   * @param colIndex playable column index.
+   * @return true if a disc of the player in the column wins.
+   */
+  boolean isWinningMove(int player, int colIndex);
+}
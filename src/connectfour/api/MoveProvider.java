@@ -0,0 +1,27 @@
+package connectfour.api;
+
+/**
+ * @author Huijuan Zou
+ * MoveProvider chooses the columns of a computer player, so that
+ * engines can be swapped without changing the game. The game asks it
+ * off the Event Dispatch Thread, with a view that does not change
+ * during the call, and interrupts the thread if the game is restarted;
+ * a provider may then give up with a CancellationException.
+ */
+public interface MoveProvider {
+
+  /**
+   * @param state game to move in, not over.
+   * @param timeBudgetMillis time the provider may take, 0 for its own.
+   * @return playable column index.
+   */
+  int chooseMove(GameStateView state, long timeBudgetMillis);
+
+  /**
+   * @param state game to move in, not over.
+   * @return playable column index, chosen in the provider's own time.
+   */
+  default int chooseMove(GameStateView state) {
+    return chooseMove(state, 0);
+  }
+}
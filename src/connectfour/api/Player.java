@@ -27,6 +27,31 @@ public interface Player {
    */
   Color getPlayerColor();
 
+  /**
+   * @return true if the game chooses the columns of the player; false,
+   * a human player, unless overridden.
+   */
+  default boolean isComputer() {
+    return false;
+  }
+
+  /**
+   * @return how a computer player chooses its columns, null for a human
+   * player or a computer player left to the engines of the game. null
+   * unless overridden.
+   */
+  default MoveProvider getMoveProvider() {
+    return null;
+  }
+
+  /**
+   * @return time a computer player may think per move in milliseconds,
+   * 0 for a search of fixed depth. 0 unless overridden.
+   */
+  default long getTimeBudgetMillis() {
+    return 0;
+  }
+
   /**
    * @return boolean value indicating if it is player's turn to press button.
    */
@@ -0,0 +1,420 @@
+package connectfour.impl;
+
+/**
+ * @author Huijuan Zou
+ * BitBoard is the board of games whose cells fit in one long, with
+ * one spare bit per column: up to 8x7, or 7x6 for the standard game.
+ * Each player's discs are packed into one long. Bits are laid out column
+ * by column from the bottom, with one spare bit on top of every column
+ * so that shifted lines never wrap into the next column. For 7x6:
+ * <pre>
+ *   6 13 20 27 34 41 48
+ *   5 12 19 26 33 40 47
+ *   4 11 18 25 32 39 46
+ *   3 10 17 24 31 38 45
+ *   2  9 16 23 30 37 44
+ *   1  8 15 22 29 36 43
+ *   0  7 14 21 28 35 42
+ * </pre>
+ * heights keeps the number of discs of every column, so finding the
+ * next free cell and checking a full column are array reads.
+ * Players are 0 and 1. Rows are counted from the bottom.
+ * Every position has a mirror image about the center column with the
+ * same score, whose best moves are the mirrored columns. The board keeps
+ * the mirrored discs too, updated with every move, so the canonical key,
+ * the smaller key of the position and its mirror, costs no more than
+ * the key; tables, books and databases store positions under it, so
+ * mirrored positions share one entry.
+ * The static masks and hasFour are for the standard 7x6 layout that
+ * the search engines use.
+ */
+public class BitBoard implements Board {
+  public static final int COL_NUM = 7;
+  public static final int ROW_NUM = 6;
+  private static final int H1 = ROW_NUM + 1;
+  private static final long COLUMN = (1L << H1) - 1;
+  private final Rules rules;
+  private final int colNum;
+  private final int rowNum;
+  private final int h1;
+  private final int connect;
+  private final long[] discs = new long[2];
+  private final long[] mirrorDiscs = new long[2];
+  private final int[] heights;
+  private final int[] history;
+  private int moveCount;
+
+  /**
+   * Board of the standard 7x6 connect four.
+   */
+  public BitBoard() {
+    this(Rules.STANDARD);
+  }
+
+  /**
+   * @param rules rules of a board that fits in one long.
+   */
+  public BitBoard(Rules rules) {
+    if (rules == null) {
+      throw new IllegalArgumentException("Rules cannot be null");
+    }
+    if (!rules.fitsLong()) {
+      throw new IllegalArgumentException("Board does not fit in a long");
+    }
+    this.rules = rules;
+    this.colNum = rules.getColNum();
+    this.rowNum = rules.getRowNum();
+    this.h1 = rules.getColumnBits();
+    this.connect = rules.getConnect();
+    this.heights = new int[colNum];
+    this.history = new int[colNum * rowNum];
+  }
+
+  @Override
+  public Rules getRules() {
+    return rules;
+  }
+
+  /**
+   * @param colIndex column index.
+   * @return true if the column still has a free cell.
+   */
+  @Override
+  public boolean canPlay(int colIndex) {
+    return heights[colIndex] < rowNum;
+  }
+
+  /**
+   * @return true if no cell is free.
+   */
+  @Override
+  public boolean isFull() {
+    return moveCount == colNum * rowNum;
+  }
+
+  /**
+   * @param colIndex column index.
+   * @return number of discs in the column.
+   */
+  @Override
+  public int getHeight(int colIndex) {
+    return heights[colIndex];
+  }
+
+  @Override
+  public int getMoveCount() {
+    return moveCount;
+  }
+
+  /**
+   * @return player to move if players alternate from player 0.
+   */
+  @Override
+  public int getCurrentPlayer() {
+    return moveCount & 1;
+  }
+
+  /**
+   * Drop a disc of the player to move.
+   * @param colIndex column index, must not be full.
+   * @return row index of the new disc, counted from the bottom.
+   */
+  @Override
+  public int play(int colIndex) {
+    return play(colIndex, moveCount & 1);
+  }
+
+  /**
+   * Drop a disc of the given player.
+   * @param colIndex column index, must not be full.
+   * @param player 0 or 1.
+   * @return row index of the new disc, counted from the bottom.
+   */
+  @Override
+  public int play(int colIndex, int player) {
+    if (colIndex < 0 || colIndex >= colNum) {
+      throw new IllegalArgumentException("Column index out of range");
+    }
+    if (!canPlay(colIndex)) {
+      throw new IllegalArgumentException("Column is full");
+    }
+    int rowIndex = heights[colIndex]++;
+    discs[player] |= 1L << (colIndex * h1 + rowIndex);
+    mirrorDiscs[player] |= 1L << ((colNum - 1 - colIndex) * h1 + rowIndex);
+    history[moveCount++] = colIndex;
+    return rowIndex;
+  }
+
+  @Override
+  public int undo() {
+    if (moveCount == 0) {
+      throw new IllegalStateException("No move to undo");
+    }
+    int colIndex = history[--moveCount];
+    int rowIndex = --heights[colIndex];
+    long bit = ~(1L << (colIndex * h1 + rowIndex));
+    discs[0] &= bit;
+    discs[1] &= bit;
+    bit = ~(1L << ((colNum - 1 - colIndex) * h1 + rowIndex));
+    mirrorDiscs[0] &= bit;
+    mirrorDiscs[1] &= bit;
+    return colIndex;
+  }
+
+  @Override
+  public int getMove(int index) {
+    if (index < 0 || index >= moveCount) {
+      throw new IllegalArgumentException("Move index out of range");
+    }
+    return history[index];
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @return true if the player has connect discs in a line anywhere.
+   */
+  @Override
+  public boolean isWin(int player) {
+    if (connect == 4 && h1 == H1) {
+      return hasFour(discs[player]);
+    }
+    long board = discs[player];
+    return hasLine(board, 1, connect) || hasLine(board, h1, connect)
+        || hasLine(board, h1 - 1, connect) || hasLine(board, h1 + 1, connect);
+  }
+
+  /**
+   * @param rowIndex row index counted from the bottom.
+   * @param colIndex column index.
+   * @return 0 or 1 for the player owning the cell, -1 if empty.
+   */
+  @Override
+  public int getOwner(int rowIndex, int colIndex) {
+    long bit = 1L << (colIndex * h1 + rowIndex);
+    if ((discs[0] & bit) != 0) {
+      return 0;
+    }
+    if ((discs[1] & bit) != 0) {
+      return 1;
+    }
+    return -1;
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @return the discs of the player.
+   */
+  public long getDiscs(int player) {
+    return discs[player];
+  }
+
+  /**
+   * @param player 0 or 1, the side to move.
+   * @return position key: discs of the player plus the mask of all
+   * discs, unique for every position.
+   */
+  public long getKey(int player) {
+    return discs[player] + (discs[0] | discs[1]);
+  }
+
+  /**
+   * @param player 0 or 1, the side to move.
+   * @return key of the position mirrored about the center column.
+   */
+  public long getMirroredKey(int player) {
+    return mirrorDiscs[player] + (mirrorDiscs[0] | mirrorDiscs[1]);
+  }
+
+  /**
+   * @param player 0 or 1, the side to move.
+   * @return the smaller of the key and the mirrored key, the same for
+   * a position and its mirror.
+   */
+  public long getCanonicalKey(int player) {
+    return Math.min(getKey(player), getMirroredKey(player));
+  }
+
+  /**
+   * remove all the discs.
+   */
+  @Override
+  public void reset() {
+    discs[0] = 0L;
+    discs[1] = 0L;
+    mirrorDiscs[0] = 0L;
+    mirrorDiscs[1] = 0L;
+    for (int i = 0; i < colNum; i++) {
+      heights[i] = 0;
+    }
+    moveCount = 0;
+  }
+
+  /**
+   * @return a board with the same discs and moves, e.g. for a search
+   * on another thread while the game goes on.
+   */
+  public BitBoard copy() {
+    BitBoard board = new BitBoard(rules);
+    board.discs[0] = discs[0];
+    board.discs[1] = discs[1];
+    board.mirrorDiscs[0] = mirrorDiscs[0];
+    board.mirrorDiscs[1] = mirrorDiscs[1];
+    System.arraycopy(heights, 0, board.heights, 0, colNum);
+    System.arraycopy(history, 0, board.history, 0, moveCount);
+    board.moveCount = moveCount;
+    return board;
+  }
+
+  /**
+   * Build a standard board from a move sequence, players alternating
+   * from 0.
+   * Columns are written as digits starting from 1, e.g. "4453".
+   * @param moves move sequence.
+   * @return board after the moves.
+   * @throws IllegalArgumentException if a move is not a playable
+   * column or the game is won before the last move.
+   */
+  public static BitBoard fromMoves(String moves) {
+    if (moves == null) {
+      throw new IllegalArgumentException("Moves cannot be null");
+    }
+    BitBoard board = new BitBoard();
+    for (int i = 0; i < moves.length(); i++) {
+      int colIndex = moves.charAt(i) - '1';
+      if (colIndex < 0 || colIndex >= COL_NUM || !board.canPlay(colIndex)) {
+        throw new IllegalArgumentException("Illegal move at " + i);
+      }
+      int player = board.getCurrentPlayer();
+      board.play(colIndex, player);
+      if (board.isWin(player) && i < moves.length() - 1) {
+        throw new IllegalArgumentException("Game is won at move " + i);
+      }
+    }
+    return board;
+  }
+
+  /**
+   * @param colIndex column index.
+   * @return bit of the bottom cell of the column.
+   */
+  public static long bottomMask(int colIndex) {
+    return 1L << (colIndex * H1);
+  }
+
+  /**
+   * @param colIndex column index.
+   * @return bit of the top cell of the column.
+   */
+  public static long topMask(int colIndex) {
+    return 1L << (colIndex * H1 + ROW_NUM - 1);
+  }
+
+  /**
+   * @param colIndex column index.
+   * @return bits of all the cells of the column.
+   */
+  public static long columnMask(int colIndex) {
+    return ((1L << ROW_NUM) - 1) << (colIndex * H1);
+  }
+
+  /**
+   * Mirror a 7x6 key about the center column by swapping whole columns
+   * of key bits; a key holds every column within its own bits, so this
+   * works on keys and on disc masks alike.
+   * @param key position key or discs of the standard layout.
+   * @return key of the mirrored position.
+   */
+  public static long mirror(long key) {
+    return (key & (COLUMN << (3 * H1)))
+        | (key & COLUMN) << (6 * H1) | (key >>> (6 * H1)) & COLUMN
+        | (key & (COLUMN << H1)) << (4 * H1)
+        | (key >>> (4 * H1)) & (COLUMN << H1)
+        | (key & (COLUMN << (2 * H1))) << (2 * H1)
+        | (key >>> (2 * H1)) & (COLUMN << (2 * H1));
+  }
+
+  /**
+   * @param key position key of the standard layout.
+   * @return the smaller of the key and its mirror.
+   */
+  public static long canonicalKey(long key) {
+    return Math.min(key, mirror(key));
+  }
+
+  /**
+   * Mirror a key of any board that fits in a long.
+   * @param key position key or discs in the layout of the rules.
+   * @param rules rules of the board.
+   * @return key of the mirrored position.
+   */
+  public static long mirror(long key, Rules rules) {
+    int colNum = rules.getColNum();
+    int h1 = rules.getColumnBits();
+    long column = -1L >>> (Long.SIZE - h1);
+    long mirrored = 0L;
+    for (int col = 0; col < colNum; col++) {
+      mirrored |= (key >>> (col * h1) & column) << ((colNum - 1 - col) * h1);
+    }
+    return mirrored;
+  }
+
+  /**
+   * Shift-and-mask check for four aligned bits in each direction:
+   * 1 is vertical, H1 horizontal, H1 - 1 and H1 + 1 the diagonals.
+   * @param board discs of one player.
+   * @return true if four discs are aligned.
+   */
+  public static boolean hasFour(long board) {
+    long m = board & (board >> 1);
+    if ((m & (m >> 2)) != 0) {
+      return true;
+    }
+    m = board & (board >> H1);
+    if ((m & (m >> (2 * H1))) != 0) {
+      return true;
+    }
+    m = board & (board >> (H1 - 1));
+    if ((m & (m >> (2 * (H1 - 1)))) != 0) {
+      return true;
+    }
+    m = board & (board >> (H1 + 1));
+    return (m & (m >> (2 * (H1 + 1)))) != 0;
+  }
+
+  /**
+   * Shift-and-mask check for a line of any length: runs double at every
+   * step, then one more shift covers the rest.
+   * @param board discs of one player.
+   * @param shift distance between neighbor cells of the line.
+   * @param length number of discs in the line.
+   * @return true if length discs are aligned.
+   */
+  static boolean hasLine(long board, int shift, int length) {
+    if ((length - 1) * shift >= Long.SIZE) {
+      return false;
+    }
+    long m = board;
+    int run = 1;
+    while (run * 2 <= length) {
+      m &= m >>> (run * shift);
+      run *= 2;
+    }
+    if (run < length) {
+      m &= m >>> ((length - run) * shift);
+    }
+    return m != 0;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int row = rowNum - 1; row >= 0; row--) {
+      for (int col = 0; col < colNum; col++) {
+        int owner = getOwner(row, col);
+        sb.append(owner == 0 ? 'X' : owner == 1 ? 'O' : '.');
+      }
+      sb.append('\n');
+    }
+    return sb.toString();
+  }
+}
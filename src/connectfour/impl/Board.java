@@ -0,0 +1,84 @@
+package connectfour.impl;
+
+/**
+ * @author Huijuan Zou
+ * Board is the headless board of a game under some Rules.
+ * Players are 0 and 1. Rows are counted from the bottom.
+ * Boards keep the columns played in an int stack, so play and undo
+ * make and unmake moves without allocating.
+ * Rules.newBoard picks the fastest implementation for the board size.
+ */
+public interface Board {
+
+  Rules getRules();
+
+  /**
+   * @param colIndex column index.
+   * @return true if the column still has a free cell.
+   */
+  boolean canPlay(int colIndex);
+
+  /**
+   * @return true if no cell is free.
+   */
+  boolean isFull();
+
+  /**
+   * @param colIndex column index.
+   * @return number of discs in the column.
+   */
+  int getHeight(int colIndex);
+
+  int getMoveCount();
+
+  /**
+   * @return player to move if players alternate from player 0.
+   */
+  int getCurrentPlayer();
+
+  /**
+   * Drop a disc of the player to move.
+   * @param colIndex column index, must not be full.
+   * @return row index of the new disc, counted from the bottom.
+   */
+  int play(int colIndex);
+
+  /**
+   * Drop a disc of the given player.
+   * @param colIndex column index, must not be full.
+   * @param player 0 or 1.
+   * @return row index of the new disc, counted from the bottom.
+   */
+  int play(int colIndex, int player);
+
+  /**
+   * Take back the last disc.
+   * @return column index of the disc taken back.
+   * @throws IllegalStateException if the board is empty.
+   */
+  int undo();
+
+  /**
+   * @param index number of the move, from 0 to getMoveCount() - 1.
+   * @return column index of the move.
+   */
+  int getMove(int index);
+
+  /**
+   * @param player 0 or 1.
+   * @return true if the player has connect discs in a line anywhere.
+   */
+  boolean isWin(int player);
+
+  /**
+   * @param rowIndex row index counted from the bottom.
+   * @param colIndex column index.
+   * @return 0 or 1 for the player owning the cell, -1 if empty.
+   */
+  int getOwner(int rowIndex, int colIndex);
+
+  /**
+   * remove all the discs.
+   */
+  void reset();
+}
@@ -1,16 +1,34 @@
 package connectfour.impl;
 
+import java.io.IOException;
+import java.nio.file.Paths;
+
+import javax.swing.SwingUtilities;
+
 /**
  * @author Huijuan Zou
  * The entrance to get the game interface.
+ * Pass an opening book file to let the computer player play perfectly
+ * with the solver; the book is memory-mapped at startup.
+ * Pass rules such as 8x7 or 10x9x5 to play a variant.
+ * Usage: ConnectFourController [COLSxROWS[xCONNECT]] [book-file]
  */
 public class ConnectFourController {
 
   /**
-   * @param args input of main class.
+   * @param args input of main class, optional rules and opening book file.
    */
-  public static void main(String[] args) {
+  public static void main(String[] args) throws IOException {
     ConnectFourModel game = ConnectFourModel.getInstance();
-    new ConnectFourView(game);  
+    int next = 0;
+    if (args.length > next && args[next].matches("\\d+x\\d+(x\\d+)?")) {
+      game.setRules(Rules.parse(args[next++]));
+    }
+    if (args.length > next) {
+      OpeningBook book = OpeningBook.open(Paths.get(args[next]));
+      game.setComputerSearch(new Solver(
+          new TranspositionTableImpl(Solver.DEFAULT_TABLE_MB), book));
+    }
+    SwingUtilities.invokeLater(() -> new ConnectFourView(game));
   }
-}
\ No newline at end of file
+}
@@ -2,13 +2,8 @@ package connectfour.impl;
 
 import java.awt.Color;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
-
-import javax.swing.JLabel;
-
 import connectfour.api.ConnectFourListener;
+import connectfour.api.MoveProvider;
 import connectfour.api.Player;
 
 /**
@@ -20,23 +15,49 @@ import connectfour.api.Player;
  *  either human-human or human-computer players. Switch the mode to 
  *  true if you want human-human players playing. Switch mode to false
  *  if want human-computer players playing.
+ *  The board itself lives in a headless GameState; this class adapts
+ *  its column indexes and player ids to Player and Drop for the view.
+ *  The Rules of the game set the board size and the winning length;
+ *  the alpha-beta engines play the standard 7x6 game, other boards of
+ *  up to 64 bits are played by Monte Carlo tree search, and on larger
+ *  ones the computer wins or blocks when it can and otherwise plays
+ *  centered.
+ *  A computer player with a MoveProvider chooses its columns itself.
+ *  Events and computer searches go through a GameEventBus; the view
+ *  makes it run searches on a worker thread and deliver events on the
+ *  Event Dispatch Thread, and restarting cancels a search in progress.
+ *  Every game is an instance of its own, so one JVM can host many of
+ *  them; getInstance is the game of the desktop view.
  */
 public class ConnectFourModel {
   private static final ConnectFourModel INSTANCE = 
       new ConnectFourModel();
-  private List<ConnectFourListener> listeners = 
-      new ArrayList<ConnectFourListener>();
-  private static final int COL_NUM = 7;
-  private static final int ROW_NUM = 6;
-  private static Player player1 = PlayerFactory.getPlayer();
-  private static Player player2 = PlayerFactory.getPlayer();
-  private Drop drop;
+  private final GameEventBus bus = new GameEventBus();
+  public static final int DEFAULT_SEARCH_DEPTH = 8;
+  public static final int DEFAULT_PLAYOUTS = 20000;
+  private static final MoveProvider THREAT_MOVES = new ThreatMoveProvider();
+  private Player player1 = PlayerFactory.newDefaultPlayer1();
+  private Player player2 = PlayerFactory.newDefaultPlayer2();
+  private GameState state = new GameState();
+  private SearchEngine computerSearch;
+  private SearchEngine timedSearch;
+  private SearchEngine variantSearch;
+  private SearchResult lastSearchResult;
+  private int searchThreads = 1;
   private Player activePlayer = player1;
   private boolean gameActive = false;
+  private boolean searching = false;
 
-  private ConnectFourModel() {
+  /**
+   * A new game of its own, e.g. one session of a GameServer.
+   * Not thread-safe: a game is played by one thread at a time.
+   */
+  public ConnectFourModel() {
   }
 
+  /**
+   * @return the game shown by the desktop view.
+   */
   public static ConnectFourModel getInstance() {
     return INSTANCE;
   }
@@ -49,6 +70,58 @@ public class ConnectFourModel {
     return player2;
   }
 
+  /**
+   * @return headless state of the game in progress.
+   */
+  public GameState getGameState() {
+    return state;
+  }
+
+  /**
+   * @return board of the game in progress.
+   */
+  Board getBoard() {
+    return state.getBoard();
+  }
+
+  public Rules getRules() {
+    return state.getRules();
+  }
+
+  /**
+   * Start over with new rules. The view reads the board size from the
+   * rules, so set them before creating it.
+   * @param rules rules of the next games.
+   */
+  public void setRules(Rules rules) {
+    if (rules == null) {
+      throw new IllegalArgumentException("Rules cannot be null");
+    }
+    cancelSearch();
+    state = new GameState(rules);
+  }
+
+  /**
+   * remove all the discs to start a new game, dropping the search of
+   * the computer player if it is thinking.
+   */
+  public void resetBoard() {
+    cancelSearch();
+    state.reset();
+  }
+
+  /**
+   * @return true while the computer player is searching its move.
+   */
+  public boolean isSearching() {
+    return searching;
+  }
+
+  private void cancelSearch() {
+    bus.cancelSearch();
+    searching = false;
+  }
+
   public boolean getGameActive() {
     return this.gameActive;
   }
@@ -74,7 +147,6 @@ public class ConnectFourModel {
    * @param mode true: Human-human or false: human-computer mode
    */
   public void switchMode(boolean mode) {
-    PlayerFactory.reset();
     if (mode) {
       player1 = new PlayerImpl.Builder("Alice", Color.red)
           .withType("Human")
@@ -83,19 +155,39 @@ public class ConnectFourModel {
           .withType("Human")
           .withIsActive(false).build();
     } else {
-      player1 = PlayerFactory.getPlayer();
-      player2 = PlayerFactory.getPlayer();
+      player1 = PlayerFactory.newDefaultPlayer1();
+      player2 = PlayerFactory.newDefaultPlayer2();
     }
     firePlayerModeEvent();
   }
 
+  /**
+   * Play with customized players, e.g. a computer player built with a
+   * time budget per move.
+   * @param first player moving first.
+   * @param second player moving second.
+   */
+  public void setPlayers(Player first, Player second) {
+    if (first == null || second == null) {
+      throw new IllegalArgumentException("Players cannot be null");
+    }
+    PlayerRegistry players = new PlayerRegistry(2);
+    players.register(first);
+    players.register(second);
+    cancelSearch();
+    player1 = first;
+    player2 = second;
+    player1.setPlayerState(true);
+    player2.setPlayerState(false);
+    activePlayer = player1;
+    firePlayerModeEvent();
+  }
+
   /**
    * call view to switch mode.
    */
   private void firePlayerModeEvent() {
-    for (ConnectFourListener listener: listeners) {
-      listener.playerMode();
-    }
+    bus.post(listener -> listener.playerMode());
   }
 
   /**
@@ -105,39 +197,41 @@ public class ConnectFourModel {
    * @return list of listeners.
    */
   public boolean addGameListener(ConnectFourListener listener) {
-    return listeners.add(listener);
+    return bus.addListener(listener);
+  }
+
+  /**
+   * @return bus delivering the events and running computer searches.
+   */
+  public GameEventBus getEventBus() {
+    return bus;
   }
 
   /**
    * Check to see if board is full. If full game draw. 
+   * Ignored while the computer player is searching its move.
    * @param colIndex column Index of new drop.
-   * @param grid grid of the game, place where players can drop.
    */
-  public void checkBoard(int colIndex,JLabel[][] grid) {
-    if (grid == null) {
-      throw new IllegalArgumentException("Grid cannot be null");
-    }
+  public void checkBoard(int colIndex) {
     if (colIndex < 0) {
       throw new IllegalArgumentException("Index cannot be negative");
     }
-    boolean full = true;
-    for (int i = 0; i < COL_NUM; i++) {
-      if (grid[0][i].getBackground().equals(Color.white)) {
-        full = false;
-        break;
-      }
+    if (colIndex >= state.getRules().getColNum()) {
+      throw new IllegalArgumentException("Index out of range");
+    }
+    if (searching) {
+      return;
     }
-    if (full) {
+    if (state.isFull()) {
       fireGameDrawEvent();
-    } else if (!grid[0][colIndex]
-        .getBackground().equals(Color.white)) {
-      if (activePlayer.getPlayerType().equals("Computer")) {
-        computerDrop(grid);
+    } else if (!state.canPlay(colIndex)) {
+      if (activePlayer.isComputer()) {
+        computerDrop();
       } else {
         fireColumnFullEvent(colIndex);
       }
     } else {
-      findDrop(colIndex, grid);
+      findDrop(colIndex);
     }
   }
 
@@ -145,9 +239,7 @@ public class ConnectFourModel {
    * Call view to notify players game draw.
    */
   private void fireGameDrawEvent() {
-    for (ConnectFourListener listener: listeners) {
-      listener.gameDraw();
-    }
+    bus.post(listener -> listener.gameDraw());
   }
 
   /**
@@ -155,289 +247,280 @@ public class ConnectFourModel {
    * @param colIndex column index of new drop.
    */
   private void fireColumnFullEvent(int colIndex) {
-    for (ConnectFourListener listener: listeners) {
-      listener.columnFull(colIndex);
-    }
+    bus.post(listener -> listener.columnFull(colIndex));
   }
 
   /**
-   * findDrop finds the index of the next available grid element in a column.
+   * findDrop drops a disc in the next available cell of a column.
    * Change the active status of players to make them alternately play.
+   * Row index of the new Drop counts from the top, as the view does.
+   * The Drop only carries the move to the listeners, so none is made
+   * while the game is inactive.
    * @param colIndex column that is button pressed by active player
-   * @param grid grid for new drops.
-   * @return the index of new Drop;
    */
-  public void  findDrop(int colIndex, JLabel[][] grid) {
-    if (grid == null) {
-      throw new IllegalArgumentException("Grid cannot be null");
-    }
+  public void  findDrop(int colIndex) {
     if (colIndex < 0) {
       throw new IllegalArgumentException("Index cannot be negative");
     }
-    int rowIndex = ROW_NUM - 1;
-    for (int i = ROW_NUM - 1; i >= 0; i--) {
-      if (grid[i][colIndex].getBackground().equals(Color.white)) {
-        rowIndex = i;
-        break;
-      }
-    }
-    if (player1.getPlayerState()) {
-      player1.setPlayerState(false);
-      player2.setPlayerState(true);
-      drop = new Drop(rowIndex, colIndex, player1.getPlayerColor());
-      activePlayer = player1;
-    } else {
-      activePlayer = player2;
-      player1.setPlayerState(true);
-      player2.setPlayerState(false);
-      drop = new Drop(rowIndex, colIndex, player2.getPlayerColor());
-    }
+    Player mover = player1.getPlayerState() ? player1 : player2;
+    state.setPlayerToMove(playerId(mover));
+    int rowIndex = state.getRules().getRowNum() - 1 - state.play(colIndex);
+    activePlayer = mover;
+    player1.setPlayerState(mover != player1);
+    player2.setPlayerState(mover == player1);
     if (gameActive) {
-      firePlayerDropEvent();
+      firePlayerDropEvent(new Drop(rowIndex, colIndex,
+          activePlayer.getPlayerColor()));
     }
   }
 
   /**
    * Check if active player wins by adding the new drop.
+   * The game state tracks the lines through every drop, so this is a
+   * lookup rather than a scan of the board.
    * Decide the next step.
-   * @param grid grid of the game, place where players can drop.
    * @param newDrop most recent drop.
    */
-  public boolean checkWin( JLabel[][] grid, Drop newDrop) {
-    if (grid == null || newDrop == null) {
+  public boolean checkWin(Drop newDrop) {
+    if (newDrop == null) {
       throw new IllegalArgumentException("Input cannot be null");
     }
-    if (isWinner(grid, newDrop)) {
+    if (state.isWin(playerId(activePlayer))) {
       fireGameWinEvent(activePlayer.getPlayerName());
       return true;
     }
-    makeDrop(grid);
+    makeDrop();
     return false;
   }
 
   /**
-   * Check if active player wins by adding the new drop.
-   * @param grid grid of the game, place where players can drop
-   * @param newDrop most recent drop.
-   * @return whether active player wins.
+   * @param player player1 or player2.
+   * @return 0 for player1, 1 for player2, its id in the game state.
    */
-  private boolean isWinner(JLabel[][] grid, Drop newDrop) {
-    return checkRow(grid, newDrop) 
-        || checkColumn(grid, newDrop) 
-        || checkDiagonal(grid, newDrop);
+  private int playerId(Player player) {
+    return player == player1 ? 0 : 1;
   }
 
   /**
-   * Check whether row of 4 forms along a column
-   * @param grid place where active player can drop.
-   * @param newDrop most recent drop.
-   * @return true if a row of 4 forms along a column. 
-   *         false if not.
-   */
-  private boolean checkColumn(JLabel[][] grid, Drop newDrop) {
-    int rowIndex = newDrop.getRowIndex();
-    int colIndex = newDrop.getColIndex();
-    int count = 0;
-    for (int i = rowIndex; i < ROW_NUM; i++) {
-      if (grid[i][colIndex].getBackground()
-          .equals(newDrop.getDropColor())) {
-        count++;
-      } else {
-        break;
-      }
-    }
-    return count >= 4;
+   * Call on view to notify game win and winner's name.
+   * change class type to private after done with unit test
+   * @param winnerName winner's name.
+   */
+  private void fireGameWinEvent(String winnerName) {
+    bus.post(listener -> listener.gameWin(winnerName));
   }
 
   /**
-   * check each row to see if row of 4 exists after new drop.
-   * @param grid grid of the game, place where players can drop.
-   * @param newDrop the new position one player want to drop.
-   * @return whether a row of 4 is found.
+   * Call on view to make a drop for the active player.
+   * @param drop the new drop.
    */
-  private boolean checkRow(JLabel[][] grid, Drop newDrop) {
-    int rowIndex = newDrop.getRowIndex();
-    int colIndex = newDrop.getColIndex();
-    //check if left of new drop forms 4 in a row
-    int countLeft = 0;
-    for (int i = colIndex; i >= 0; i-- ) {
-      if (grid[rowIndex][i].getBackground()
-          .equals(newDrop.getDropColor())) {
-        countLeft++;
-      } else {
-        break;
-      }
-    }
-    if (countLeft >= 4) {
-      return true;
-    }
+  private void firePlayerDropEvent(Drop drop) {
+    bus.post(listener -> listener.playerDrop(drop));
+  }
 
-    //check if right of new drop forms 4 in a row
-    int countRight = 0;
-    rowIndex = newDrop.getRowIndex();
-    colIndex = newDrop.getColIndex();
-    for (int i = colIndex; i < COL_NUM; i++ ) {
-      if (grid[rowIndex][i].getBackground()
-          .equals(newDrop.getDropColor())) {
-        countRight++;
-      } else {
-        break;
-      }
-    }
-    if (countRight >= 4) {
-      return true;
-    }
-    if (countRight + countLeft - 1 >= 4) {
-      return true;
-    }
-    return false;
+  /**
+   * Call on view to notify the active player to drop.
+   * @param player who is active.
+   */
+  private void firePlayerTurnToMoveEvent(Player player) {
+    String playerName = player.getPlayerName();
+    bus.post(listener -> listener.playerTurnToMove(playerName));
   }
 
   /**
-   * Check to see if a row of 4 forms along any diagonal.
-   * @param grid place where active player can drop.
-   * @param newDrop most recent drop.
-   * @return whether a row of 4 forms along any diagonal.
-   */
-  private boolean checkDiagonal(JLabel[][] grid, Drop newDrop) {
-    int rowIndex = newDrop.getRowIndex();
-    int colIndex = newDrop.getColIndex();
-    //check NW
-    int countNW = 0;
-    rowIndex = newDrop.getRowIndex();
-    colIndex = newDrop.getColIndex();
-    while (rowIndex >= 0 && colIndex >= 0) {
-      if (grid[rowIndex][colIndex].getBackground()
-          .equals(newDrop.getDropColor())){
-        countNW++;
-        rowIndex--;
-        colIndex--;
-      } else {
-        break;
+   * Call specific fireEvent based on game and player status.
+   * If player type is computer, then go to computerDrop function.
+   * Player active states don't matter if both are false or true.
+   * The game will determine based on player1's active state
+   * A full board is a draw right away, without asking for a move.
+   */
+  public void makeDrop() {
+    if (gameActive) {
+      if (state.isFull()) {
+        fireGameDrawEvent();
+        return;
       }
-    }
-    if (countNW >= 4) {
-      return true;
-    }
-    //check SE
-    int countSE = 0;
-    rowIndex = newDrop.getRowIndex();
-    colIndex = newDrop.getColIndex();
-    while (rowIndex < ROW_NUM && colIndex < COL_NUM) {
-      if (grid[rowIndex][colIndex].getBackground()
-          .equals(newDrop.getDropColor())){
-        countSE++;
-        rowIndex++;
-        colIndex++;
+      if (player1.getPlayerState()) {
+        activePlayer = player1;
       } else {
-        break;
+        activePlayer = player2;
       }
-    }
-    if (countSE >= 4) {
-      return true;
-    }
-    if (countNW + countSE - 1 >= 4) {
-      return true;
-    }
-
-    //check SW
-    int countSW = 0;
-    rowIndex = newDrop.getRowIndex();
-    colIndex = newDrop.getColIndex();
-    while (rowIndex < ROW_NUM && colIndex >= 0) {
-      if (grid[rowIndex][colIndex].getBackground()
-          .equals(newDrop.getDropColor())){
-        countSW++;
-        rowIndex++;
-        colIndex--;
+      if (activePlayer.isComputer()) {
+        computerDrop();
       } else {
-        break;
+        firePlayerTurnToMoveEvent(activePlayer);
       }
     }
-    if (countSW >= 4) {
-      return true;
-    }
-    //check NE
-    int countNE = 0;
-    rowIndex = newDrop.getRowIndex();
-    colIndex = newDrop.getColIndex();
-    while (rowIndex >= 0 && colIndex < COL_NUM) {
-      if (grid[rowIndex][colIndex].getBackground()
-          .equals(newDrop.getDropColor())){
-        countNE++;
-        rowIndex--;
-        colIndex++;
-      } else {
-        break;
+  }
+
+  /**
+   * Search a column for the computer player and drop there.
+   * The search runs on the worker of the event bus, on a copy of the
+   * board, and the drop is made when its result comes back.
+   * A player with a time budget is played by a search deepening until
+   * its time is up, others by the computer search. Other boards that
+   * fit a BitBoard are searched by the variant search, and larger ones
+   * get the threat move. A player with a move provider is asked on the
+   * worker instead, with a copy of the game. A search that fails is
+   * replaced by the threat move.
+   * The result of the search is kept for reporting depth and nodes.
+   */
+  public void computerDrop() {
+    if (state.isFull()) {
+      fireGameDrawEvent();
+      return;
+    }
+    state.setPlayerToMove(playerId(activePlayer));
+    long budget = activePlayer.getTimeBudgetMillis();
+    MoveProvider provider = activePlayer.getMoveProvider();
+    if (provider != null) {
+      searching = true;
+      GameState view = state.copy();
+      bus.submit(() -> provide(provider, view, budget), this::searchDone,
+          this::searchFailed);
+    } else if (Rules.STANDARD.equals(state.getRules())) {
+      searching = true;
+      if (budget > 0 && timedSearch == null) {
+        timedSearch = searchThreads > 1
+            ? new ParallelSearch(Rules.STANDARD.getCellNum(), 0,
+                searchThreads, NegamaxSearch.DEFAULT_TABLE_MB)
+            : new NegamaxSearch(Rules.STANDARD.getCellNum());
       }
+      bus.search(budget > 0 ? timedSearch : getComputerSearch(),
+          ((BitBoard) state.getBoard()).copy(), playerId(activePlayer),
+          budget, this::searchDone, this::searchFailed);
+    } else if (state.getBoard() instanceof BitBoard) {
+      searching = true;
+      bus.search(getVariantSearch(), ((BitBoard) state.getBoard()).copy(),
+          playerId(activePlayer), budget, this::searchDone,
+          this::searchFailed);
+    } else {
+      threatDrop();
     }
-    if (countNE >= 4) {
-      return true;
-    }
-    if (countSW + countNE - 1 >= 4) {
-      return true;
+  }
+
+  private void threatDrop() {
+    long start = System.nanoTime();
+    int col = THREAT_MOVES.chooseMove(state);
+    lastSearchResult = new SearchResult(col, 0, 0, 0,
+        System.nanoTime() - start);
+    checkBoard(col);
+  }
+
+  private void searchDone(SearchResult result) {
+    searching = false;
+    lastSearchResult = result;
+    checkBoard(result.getBestMove());
+  }
+
+  /**
+   * A search or move provider that throws must not stall the game:
+   * the error is reported and the threat move is played instead.
+   */
+  private void searchFailed(RuntimeException failure) {
+    searching = false;
+    System.err.println("Computer search failed, playing the threat move: "
+        + failure);
+    threatDrop();
+  }
+
+  /**
+   * Ask a move provider on the worker. A column it cannot play is
+   * replaced by the threat move, so a faulty provider cannot stall the
+   * game.
+   */
+  private static SearchResult provide(MoveProvider provider,
+      GameState view, long budget) {
+    long start = System.nanoTime();
+    int col = provider.chooseMove(view, budget);
+    if (!view.canPlay(col)) {
+      col = THREAT_MOVES.chooseMove(view);
+    }
+    return new SearchResult(col, 0, 0, 0, System.nanoTime() - start);
+  }
+
+  /**
+   * @param search search used by computer players, e.g. a NegamaxSearch
+   * or a Solver for perfect play.
+   */
+  public void setComputerSearch(SearchEngine search) {
+    if (search == null) {
+      throw new IllegalArgumentException("Search cannot be null");
     }
-    return false;
+    this.computerSearch = search;
   }
 
   /**
-   * Call on view to notify game win and winner's name.
-   * change class type to private after done with unit test
-   * @param winnerName winner's name.
+   * @return search used by computer players, made on first use so that
+   * games between humans do not hold a transposition table. With more
+   * than one search thread it is a ParallelSearch.
    */
-  private void fireGameWinEvent(String winnerName) {
-    for (ConnectFourListener listener: listeners) {
-      listener.gameWin(winnerName);
+  public SearchEngine getComputerSearch() {
+    if (computerSearch == null) {
+      computerSearch = searchThreads > 1
+          ? new ParallelSearch(DEFAULT_SEARCH_DEPTH, searchThreads)
+          : new NegamaxSearch(DEFAULT_SEARCH_DEPTH);
     }
+    return computerSearch;
+  }
+
+  public int getSearchThreads() {
+    return searchThreads;
   }
 
   /**
-   * Call on view to make a drop for the active player.
+   * Set the number of threads searching the standard 7x6 game; more
+   * than one searches with a ParallelSearch. Cancels a search in
+   * progress and replaces the computer search and the timed search,
+   * so set it before setComputerSearch.
+   * @param threads number of search threads, 1 for one.
    */
-  private void firePlayerDropEvent() {
-    for (ConnectFourListener listener: listeners) {
-      listener.playerDrop(drop);
+  public void setSearchThreads(int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("Threads must be positive");
+    }
+    cancelSearch();
+    shutdown(computerSearch);
+    shutdown(timedSearch);
+    computerSearch = null;
+    timedSearch = null;
+    searchThreads = threads;
+  }
+
+  private static void shutdown(SearchEngine search) {
+    if (search instanceof ParallelSearch) {
+      ((ParallelSearch) search).shutdown();
     }
   }
 
   /**
-   * Call on view to notify the active player to drop.
-   * @param player who is active.
+   * @param search search used by computer players on boards other than
+   * 7x6 that fit a BitBoard, e.g. a MonteCarloSearch.
    */
-  private void firePlayerTurnToMoveEvent(Player player) {
-    for (ConnectFourListener listener: listeners) {
-      listener.playerTurnToMove(player.getPlayerName());
+  public void setVariantSearch(SearchEngine search) {
+    if (search == null) {
+      throw new IllegalArgumentException("Search cannot be null");
     }
+    this.variantSearch = search;
   }
 
   /**
-   * Call specific fireEvent based on game and player status.
-   * If player type is computer, then go to computerDrop function.
-   * Player active states don't matter if both are false or true.
-   * The game will determine based on player1's active state
+   * @return search used by computer players on other boards than 7x6,
+   * a MonteCarloSearch on all cores made on first use.
    */
-  public void makeDrop(JLabel[][] grid) {
-    if (gameActive) {
-      if (player1.getPlayerState()) {
-        activePlayer = player1;
-      } else {
-        activePlayer = player2;
-      }
-      if (activePlayer.getPlayerType().equals("Computer")) {
-        computerDrop(grid);
-      } else {
-        firePlayerTurnToMoveEvent(activePlayer);
-      }
+  public SearchEngine getVariantSearch() {
+    if (variantSearch == null) {
+      variantSearch = new MonteCarloSearch(DEFAULT_PLAYOUTS, 0,
+          Runtime.getRuntime().availableProcessors());
     }
+    return variantSearch;
   }
 
   /**
-   * choose a random column index for the computer player.
-   * @param grid grid of the game.
+   * @return result of the most recent computer search, null if none.
    */
-  public void computerDrop(JLabel[][] grid) {
-    int colIndex = new Random().nextInt(COL_NUM);
-    checkBoard(colIndex, grid);
+  public SearchResult getLastSearchResult() {
+    return lastSearchResult;
   }
 
   /**
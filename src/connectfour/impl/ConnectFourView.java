@@ -13,6 +13,7 @@ import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
+import javax.swing.SwingUtilities;
 import javax.swing.border.LineBorder;
 
 import connectfour.api.ConnectFourListener;
@@ -28,13 +29,17 @@ import connectfour.api.ConnectFourListener;
  * it also has a notifying text area. Start button is to start for 
  * the first time, after that, you need to click restart button to restart 
  * game during the game or after gameWin/gameDraw events.
+ * The board size comes from the rules of the model when the view is
+ * created. The view has the model deliver its events on the Event
+ * Dispatch Thread and search on a worker thread, so the window stays
+ * responsive while the computer player thinks.
  */
 public class ConnectFourView implements ConnectFourListener {
   private ConnectFourModel game;
-  private static final int COL_NUM = 7;
-  private static final int ROW_NUM = 6;
-  private static JButton[] buttonList = new JButton[COL_NUM];
-  private JLabel[][] grid = new JLabel[ROW_NUM][COL_NUM];
+  private final int colNum;
+  private final int rowNum;
+  private JButton[] buttonList;
+  private JLabel[][] grid;
   private JTextArea textArea = new JTextArea("", 15, 15);
   private JPanel gridPanel;
   private JFrame frame;
@@ -43,9 +48,16 @@ public class ConnectFourView implements ConnectFourListener {
   private JLabel player2Color;
   private JLabel player1Name;
   private JLabel player2Name;
+  private SearchResult reportedResult;
 
   public ConnectFourView(ConnectFourModel game) {
     this.game = game;
+    game.getEventBus().setCallbackExecutor(SwingUtilities::invokeLater);
+    game.getEventBus().setWorkerExecutor(GameEventBus.newWorker());
+    this.colNum = game.getRules().getColNum();
+    this.rowNum = game.getRules().getRowNum();
+    this.buttonList = new JButton[colNum];
+    this.grid = new JLabel[rowNum][colNum];
     game.addGameListener(this);
     setUp();
   }
@@ -60,8 +72,8 @@ public class ConnectFourView implements ConnectFourListener {
     JPanel panel = new JPanel();
     panel.setLayout(new BorderLayout());
     JPanel buttonPanel = new JPanel();
-    buttonPanel.setLayout(new GridLayout(1, 7, 2, 2));
-    for (int i = 0; i < COL_NUM; i++) {
+    buttonPanel.setLayout(new GridLayout(1, colNum, 2, 2));
+    for (int i = 0; i < colNum; i++) {
       JButton button = new JButton();
       int index = i;
       button.addActionListener(new ActionListener() {
@@ -76,9 +88,9 @@ public class ConnectFourView implements ConnectFourListener {
     JPanel centerPanel = new JPanel();
     centerPanel.setLayout(new BorderLayout());
     gridPanel = new JPanel();
-    gridPanel.setLayout(new GridLayout(6, 7, 2, 2));
-    for (int i = 0; i < ROW_NUM; i++) {
-      for (int j = 0; j < COL_NUM; j++) {
+    gridPanel.setLayout(new GridLayout(rowNum, colNum, 2, 2));
+    for (int i = 0; i < rowNum; i++) {
+      for (int j = 0; j < colNum; j++) {
         grid[i][j] = new JLabel();
         grid[i][j].setBorder(new LineBorder(Color.BLACK));
         grid[i][j].setBackground(Color.white);
@@ -174,7 +186,7 @@ public class ConnectFourView implements ConnectFourListener {
     int locX = (int) dim.getWidth() * 4 / 12;
     int locY = (int) dim.getHeight() * 2 / 12;
     frame.setTitle("Connect Four");
-    frame.setSize(700, 600);
+    frame.setSize(400 + 43 * colNum, 90 + 85 * rowNum);
     frame.setLocation(locX, locY);
     frame.setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     frame.setVisible(true);
@@ -187,7 +199,7 @@ public class ConnectFourView implements ConnectFourListener {
    * @param index number of column that is pressed by player.
    */
   private void buttonPressed(int index) { 
-    game.checkBoard(index, grid);
+    game.checkBoard(index);
   } 
 
   /** 
@@ -217,7 +229,7 @@ public class ConnectFourView implements ConnectFourListener {
       textArea.append("Game started!\n");
       this.gameStarted = true;
       game.setGameActive(true);
-      game.makeDrop(grid);
+      game.makeDrop();
     }
   }
 
@@ -225,7 +237,14 @@ public class ConnectFourView implements ConnectFourListener {
   public void playerDrop(Drop newDrop) {
     grid[newDrop.getRowIndex()][newDrop.getColIndex()]
         .setBackground(newDrop.getDropColor());
-    game.checkWin(grid, newDrop);
+    SearchResult result = game.getLastSearchResult();
+    if (result != null && result != reportedResult) {
+      reportedResult = result;
+      textArea.append("Computer played column " + (result.getBestMove() + 1)
+          + ": depth " + result.getDepth() + ", " + result.getNodes()
+          + " nodes, " + result.getElapsedNanos() / 1000000 + " ms\n");
+    }
+    game.checkWin(newDrop);
   }
 
   @Override
@@ -252,13 +271,14 @@ public class ConnectFourView implements ConnectFourListener {
 
   @Override
   public void restart() {
-    for (int i = 0; i < ROW_NUM; i++) {
-      for (int j = 0; j < COL_NUM; j++) {
+    for (int i = 0; i < rowNum; i++) {
+      for (int j = 0; j < colNum; j++) {
         grid[i][j].setBackground(Color.white);
       }
     }
     textArea.append("game restarted!\n");
+    game.resetBoard();
     game.setGameActive(true);
-    game.makeDrop(grid);
+    game.makeDrop();
   }
 }
\ No newline at end of file
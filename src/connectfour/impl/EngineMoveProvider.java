@@ -0,0 +1,86 @@
+package connectfour.impl;
+
+import connectfour.api.GameStateView;
+import connectfour.api.MoveProvider;
+
+/**
+ * @author Huijuan Zou
+ * EngineMoveProvider lets a SearchEngine play as a MoveProvider, e.g.
+ * a RandomEngine, NegamaxSearch, MonteCarloSearch or Solver. Every
+ * call replays the moves of the view, in order and with the owners of
+ * their discs, on a BitBoard kept with its Rules between calls; the 7x6
+ * engines only play 7x6 boards. A board that does not fit in a long
+ * gets the threat move instead of a search.
+ * The result of the last search is kept for reporting. Not thread-safe,
+ * like the engines.
+ */
+public class EngineMoveProvider implements MoveProvider {
+  private static final MoveProvider THREAT_MOVES = new ThreatMoveProvider();
+  private final SearchEngine engine;
+  private SearchResult lastResult;
+  private Rules rules;
+  private BitBoard board;
+
+  /**
+   * @param engine engine choosing the columns.
+   */
+  public EngineMoveProvider(SearchEngine engine) {
+    if (engine == null) {
+      throw new IllegalArgumentException("Engine cannot be null");
+    }
+    this.engine = engine;
+  }
+
+  public SearchEngine getEngine() {
+    return engine;
+  }
+
+  /**
+   * @return result of the last search, null if none.
+   */
+  public SearchResult getLastResult() {
+    return lastResult;
+  }
+
+  @Override
+  public int chooseMove(GameStateView state, long timeBudgetMillis) {
+    BitBoard board = boardOf(state);
+    if (board == null) {
+      long start = System.nanoTime();
+      int col = THREAT_MOVES.chooseMove(state, timeBudgetMillis);
+      lastResult = new SearchResult(col, 0, 0, 0, System.nanoTime() - start);
+      return col;
+    }
+    int[] heights = new int[state.getColNum()];
+    for (int i = 0; i < state.getMoveCount(); i++) {
+      int col = state.getMove(i);
+      board.play(col, state.getOwner(heights[col]++, col));
+    }
+    int player = state.getPlayerToMove();
+    lastResult = timeBudgetMillis > 0
+        ? engine.search(board, player, timeBudgetMillis)
+        : engine.search(board, player);
+    return lastResult.getBestMove();
+  }
+
+  /**
+   * @return the empty board kept for the size of the view, made anew
+   * only when the size changes, or null if it does not fit in a long.
+   */
+  private BitBoard boardOf(GameStateView state) {
+    if (rules == null || rules.getColNum() != state.getColNum()
+        || rules.getRowNum() != state.getRowNum()
+        || rules.getConnect() != state.getConnect()) {
+      rules = Rules.STANDARD.getColNum() == state.getColNum()
+          && Rules.STANDARD.getRowNum() == state.getRowNum()
+          && Rules.STANDARD.getConnect() == state.getConnect()
+          ? Rules.STANDARD
+          : new Rules(state.getColNum(), state.getRowNum(),
+              state.getConnect());
+      board = rules.fitsLong() ? new BitBoard(rules) : null;
+    } else if (board != null) {
+      board.reset();
+    }
+    return board;
+  }
+}
@@ -0,0 +1,294 @@
+package connectfour.impl;
+
+import java.util.Arrays;
+
+/**
+ * @author Huijuan Zou
+ * Evaluator is the static evaluation at the leaves of a depth-limited
+ * search: a guess of who stands better when there is no time to search
+ * on. It knows three things, all counted with bit operations on the
+ * two longs of a position:
+ * <ul>
+ * <li>windows: the lines of connect cells that can win, 69 of them on
+ * 7x6. A window holding two or more discs of one player and none of
+ * the other is worth more the more discs it holds;</li>
+ * <li>odd and even threats: the empty cell of a window missing one disc
+ * is a threat. Filling the board from below, the first player tends to
+ * get the odd rows (1, 3, 5 from the bottom) and the second the even
+ * ones, so a threat on a row of its own parity is worth more;</li>
+ * <li>center control: a disc is worth the number of windows through
+ * its cell. The weights are split into one mask per bit, so the sum
+ * is a few bit counts.</li>
+ * </ul>
+ * The window table of the rules is turned into one mask per direction
+ * of the cells where a window starts, so all windows of a direction are
+ * counted at once: the discs shifted by 0 to connect - 1 cells along the
+ * direction line up on the start cells. Connect four adds up the four
+ * shifted boards in pairs; other variants count with a three-bit
+ * counter per cell, which holds connect - 1 discs for connect up to
+ * MAX_CONNECT. The tables are built once per rules, so variants
+ * get their own windows and weights.
+ * Scores are from the side to move and stay within MAX_SCORE, below any
+ * win score of the search. Immutable, so one evaluator serves any
+ * number of threads.
+ */
+public final class Evaluator {
+  public static final Evaluator STANDARD = new Evaluator(Rules.STANDARD);
+  public static final int MAX_SCORE = 500;
+  public static final int MAX_CONNECT = 8;
+  static final int THREE = 4;
+  static final int GOOD_THREAT = 16;
+  static final int THREAT = 6;
+  private final Rules rules;
+  private final int connect;
+  private final int windowCount;
+  private final int[] shifts;
+  private final long[] starts;
+  private final int[] windowScores;
+  private final long[] countBits;
+  private final long[] weightBits;
+  private final long oddRows;
+  private final long evenRows;
+
+  /**
+   * @param rules rules of a board that fits in one long, connecting
+   * at most MAX_CONNECT.
+   */
+  public Evaluator(Rules rules) {
+    if (rules == null) {
+      throw new IllegalArgumentException("Rules cannot be null");
+    }
+    if (!rules.fitsLong()) {
+      throw new IllegalArgumentException("Board does not fit in a long");
+    }
+    if (rules.getConnect() > MAX_CONNECT) {
+      throw new IllegalArgumentException("Connect cannot exceed "
+          + MAX_CONNECT);
+    }
+    this.rules = rules;
+    this.connect = rules.getConnect();
+    int[][] windows = rules.getWindows();
+    this.windowCount = windows.length;
+    int[] directions = new int[4];
+    long[] firstCells = new long[4];
+    int count = 0;
+    for (int[] window : windows) {
+      int shift = window[1] - window[0];
+      int d = 0;
+      while (d < count && directions[d] != shift) {
+        d++;
+      }
+      if (d == count) {
+        directions[count++] = shift;
+      }
+      firstCells[d] |= 1L << window[0];
+    }
+    this.shifts = Arrays.copyOf(directions, count);
+    this.starts = Arrays.copyOf(firstCells, count);
+    this.windowScores = new int[connect];
+    this.countBits = new long[3 * connect];
+    for (int n = 1; n < connect; n++) {
+      windowScores[n] = n < 2 ? 0 : 1 << (2 * (n - 2));
+      for (int b = 0; b < 3; b++) {
+        countBits[3 * n + b] = -(long) (n >>> b & 1);
+      }
+    }
+    int[][] cellWindows = rules.getCellWindows();
+    int maxWeight = 0;
+    for (int[] through : cellWindows) {
+      maxWeight = Math.max(maxWeight, through.length);
+    }
+    this.weightBits = new long[32 - Integer.numberOfLeadingZeros(maxWeight)];
+    for (int cell = 0; cell < cellWindows.length; cell++) {
+      for (int b = 0; b < weightBits.length; b++) {
+        if ((cellWindows[cell].length >>> b & 1) != 0) {
+          weightBits[b] |= 1L << cell;
+        }
+      }
+    }
+    long odd = 0L;
+    long even = 0L;
+    int h1 = rules.getColumnBits();
+    for (int col = 0; col < rules.getColNum(); col++) {
+      for (int row = 0; row < rules.getRowNum(); row++) {
+        if ((row & 1) == 0) {
+          odd |= 1L << (col * h1 + row);
+        } else {
+          even |= 1L << (col * h1 + row);
+        }
+      }
+    }
+    this.oddRows = odd;
+    this.evenRows = even;
+  }
+
+  public Rules getRules() {
+    return rules;
+  }
+
+  /**
+   * @return number of windows of the rules.
+   */
+  public int getWindowCount() {
+    return windowCount;
+  }
+
+  /**
+   * @param board board of the same rules.
+   * @param player 0 or 1, the side to move.
+   * @return score of the position for the player.
+   */
+  public int evaluate(BitBoard board, int player) {
+    if (!rules.equals(board.getRules())) {
+      throw new IllegalArgumentException("Board is of other rules");
+    }
+    return evaluate(board.getDiscs(player),
+        board.getDiscs(0) | board.getDiscs(1));
+  }
+
+  /**
+   * The side to move is the first player if an even number of discs
+   * is on the board.
+   * @param current discs of the side to move.
+   * @param mask all discs.
+   * @return score of the position for the side to move, between
+   * -MAX_SCORE and MAX_SCORE.
+   */
+  public int evaluate(long current, long mask) {
+    long opponent = current ^ mask;
+    long second = -(long) (Long.bitCount(mask) & 1);
+    long ownRows = oddRows ^ (second & (oddRows ^ evenRows));
+    int score = connect == 4 ? fours(current, mask, ownRows)
+        : lines(current, mask, ownRows);
+    for (int b = 0; b < weightBits.length; b++) {
+      score += (Long.bitCount(current & weightBits[b])
+          - Long.bitCount(opponent & weightBits[b])) << b;
+    }
+    return Math.max(-MAX_SCORE, Math.min(MAX_SCORE, score));
+  }
+
+  /**
+   * Window and threat score of connect four. With a, b, c and e the
+   * discs shifted onto the start cells, a ^ b holds the windows with
+   * one disc of the first pair and a &amp; b those with both; likewise
+   * for c and e.
+   * @param ownRows rows where threats of the side to move count most.
+   */
+  int fours(long current, long mask, long ownRows) {
+    long opponent = current ^ mask;
+    long ownThreats = 0L;
+    long oppThreats = 0L;
+    int score = 0;
+    for (int d = 0; d < shifts.length; d++) {
+      int shift = shifts[d];
+      long a = current;
+      long b = current >>> shift;
+      long c = current >>> (2 * shift);
+      long e = current >>> (3 * shift);
+      long oa = opponent;
+      long ob = opponent >>> shift;
+      long oc = opponent >>> (2 * shift);
+      long oe = opponent >>> (3 * shift);
+      long ownFree = starts[d] & ~(oa | ob | oc | oe);
+      long oppFree = starts[d] & ~(a | b | c | e);
+      long ownOne = a ^ b;
+      long ownBoth = a & b;
+      long ownOne2 = c ^ e;
+      long ownBoth2 = c & e;
+      long oppOne = oa ^ ob;
+      long oppBoth = oa & ob;
+      long oppOne2 = oc ^ oe;
+      long oppBoth2 = oc & oe;
+      long ownTwo = ownFree & (((ownBoth ^ ownBoth2) & ~(ownOne | ownOne2))
+          | (ownOne & ownOne2));
+      long oppTwo = oppFree & (((oppBoth ^ oppBoth2) & ~(oppOne | oppOne2))
+          | (oppOne & oppOne2));
+      long ownThree = ownFree & ((ownBoth & ownOne2) | (ownBoth2 & ownOne));
+      long oppThree = oppFree & ((oppBoth & oppOne2) | (oppBoth2 & oppOne));
+      score += Long.bitCount(ownTwo) - Long.bitCount(oppTwo)
+          + THREE * (Long.bitCount(ownThree) - Long.bitCount(oppThree));
+      ownThree |= ownThree << shift;
+      oppThree |= oppThree << shift;
+      ownThreats |= ownThree | ownThree << (2 * shift);
+      oppThreats |= oppThree | oppThree << (2 * shift);
+    }
+    return score + threats(ownThreats & ~mask, oppThreats & ~mask, ownRows);
+  }
+
+  /**
+   * Window and threat score of any connect. Every start cell counts the
+   * discs of its window in three bits, own0 to own2, adding one shifted
+   * board at a time; a window of connect discs is a win and never
+   * counted.
+   * @param ownRows rows where threats of the side to move count most.
+   */
+  int lines(long current, long mask, long ownRows) {
+    long opponent = current ^ mask;
+    long ownThreats = 0L;
+    long oppThreats = 0L;
+    int score = 0;
+    for (int d = 0; d < shifts.length; d++) {
+      int shift = shifts[d];
+      long ownFree = starts[d];
+      long oppFree = starts[d];
+      long own0 = 0L;
+      long own1 = 0L;
+      long own2 = 0L;
+      long opp0 = 0L;
+      long opp1 = 0L;
+      long opp2 = 0L;
+      for (int i = 0; i < connect; i++) {
+        long own = current >>> (i * shift);
+        long opp = opponent >>> (i * shift);
+        ownFree &= ~opp;
+        oppFree &= ~own;
+        long carry = own0 & own;
+        own0 ^= own;
+        own2 ^= own1 & carry;
+        own1 ^= carry;
+        carry = opp0 & opp;
+        opp0 ^= opp;
+        opp2 ^= opp1 & carry;
+        opp1 ^= carry;
+      }
+      long ownLast = 0L;
+      long oppLast = 0L;
+      for (int n = Math.min(2, connect - 1); n < connect; n++) {
+        long b0 = countBits[3 * n];
+        long b1 = countBits[3 * n + 1];
+        long b2 = countBits[3 * n + 2];
+        ownLast = ownFree & ~(own0 ^ b0) & ~(own1 ^ b1) & ~(own2 ^ b2);
+        oppLast = oppFree & ~(opp0 ^ b0) & ~(opp1 ^ b1) & ~(opp2 ^ b2);
+        score += windowScores[n]
+            * (Long.bitCount(ownLast) - Long.bitCount(oppLast));
+      }
+      int run = 1;
+      while (run * 2 <= connect) {
+        ownLast |= ownLast << (run * shift);
+        oppLast |= oppLast << (run * shift);
+        run *= 2;
+      }
+      if (run < connect) {
+        ownLast |= ownLast << ((connect - run) * shift);
+        oppLast |= oppLast << ((connect - run) * shift);
+      }
+      ownThreats |= ownLast;
+      oppThreats |= oppLast;
+    }
+    return score + threats(ownThreats & ~mask, oppThreats & ~mask, ownRows);
+  }
+
+  /**
+   * @param ownThreats empty cells completing a window of the side to
+   * move.
+   * @param oppThreats empty cells completing a window of the opponent.
+   * @return score of the threats by the parity of their rows.
+   */
+  private int threats(long ownThreats, long oppThreats, long ownRows) {
+    long oppRows = ownRows ^ (oddRows | evenRows);
+    return GOOD_THREAT * Long.bitCount(ownThreats & ownRows)
+        + THREAT * Long.bitCount(ownThreats & oppRows)
+        - GOOD_THREAT * Long.bitCount(oppThreats & oppRows)
+        - THREAT * Long.bitCount(oppThreats & ownRows);
+  }
+}
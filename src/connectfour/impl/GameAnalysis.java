@@ -0,0 +1,98 @@
+package connectfour.impl;
+
+/**
+ * @author Huijuan Zou
+ * GameAnalysis is the re-scored game a GameAnalyzer returns: for every
+ * move, the score of the best move in the position and the score of the
+ * move actually played, both from the side that played it. The delta
+ * is what the move gave away; with the solver it is exact and never
+ * negative, with a depth-limited search it is an estimate.
+ * A move is a blunder if it changes the outcome it could still reach,
+ * e.g. from a win to a draw or from a draw to a loss.
+ */
+public final class GameAnalysis {
+  private final GameRecord record;
+  private final int[] bestScores;
+  private final int[] playedScores;
+
+  GameAnalysis(GameRecord record, int[] bestScores, int[] playedScores) {
+    this.record = record;
+    this.bestScores = bestScores;
+    this.playedScores = playedScores;
+  }
+
+  public GameRecord getRecord() {
+    return record;
+  }
+
+  public int getMoveCount() {
+    return bestScores.length;
+  }
+
+  /**
+   * @param ply index of the move, from 0.
+   * @return score of the best move for the side that played it.
+   */
+  public int getBestScore(int ply) {
+    return bestScores[ply];
+  }
+
+  /**
+   * @param ply index of the move, from 0.
+   * @return score of the move played for the side that played it.
+   */
+  public int getPlayedScore(int ply) {
+    return playedScores[ply];
+  }
+
+  /**
+   * @param ply index of the move, from 0.
+   * @return best score minus played score.
+   */
+  public int getDelta(int ply) {
+    return bestScores[ply] - playedScores[ply];
+  }
+
+  /**
+   * @param ply index of the move, from 0.
+   * @return true if the move changed the reachable outcome.
+   */
+  public boolean isBlunder(int ply) {
+    return Integer.signum(bestScores[ply])
+        > Integer.signum(playedScores[ply]);
+  }
+
+  /**
+   * @param player 0 or 1, player who moved first or second.
+   * @return number of blunders of the player.
+   */
+  public int getBlunderCount(int player) {
+    int count = 0;
+    for (int ply = player; ply < bestScores.length; ply += 2) {
+      if (isBlunder(ply)) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  /**
+   * @return one line per move: ply, player, column from 1, best and
+   * played score, delta, and a mark on blunders.
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    sb.append(record.getPlayerName(0)).append(" vs ")
+        .append(record.getPlayerName(1))
+        .append(", ").append(record.getMoveCount()).append(" moves")
+        .append(System.lineSeparator());
+    for (int ply = 0; ply < bestScores.length; ply++) {
+      sb.append(String.format("%2d %s %d %4d %4d %4d%s%n", ply + 1,
+          record.getPlayerName(ply & 1), record.getMove(ply) + 1,
+          bestScores[ply], playedScores[ply], getDelta(ply),
+          isBlunder(ply) ? " ??" : ""));
+    }
+    return sb.toString();
+  }
+}
@@ -0,0 +1,320 @@
+package connectfour.impl;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * @author Huijuan Zou
+ * GameAnalyzer re-scores every move of stored games to show where each
+ * side went wrong. Every position of a game is scored once for the side
+ * to move; the best move of a position scores what the position scores,
+ * and the move played scores minus what the next position scores.
+ * The positions of a batch of games are scored in parallel: worker
+ * threads take the next position from a shared counter, so one long
+ * solve does not hold up a whole game, and every worker owns an engine
+ * from the supplier. withSolver and withSearch share one lock-free
+ * transposition table between the engines, so what one position
+ * proves is reused by the later positions of the same game.
+ * Only 7x6 games are analyzed.
+ * Usage: GameAnalyzer record-file [depth] [threads], where depth 0,
+ * the default, is the solver.
+ */
+public class GameAnalyzer {
+  public static final int BATCH_GAMES = 1024;
+  private final Supplier<? extends SearchEngine> engine;
+  private final int threads;
+
+  /**
+   * @param engine makes one engine per worker thread.
+   * @param threads number of worker threads.
+   */
+  public GameAnalyzer(Supplier<? extends SearchEngine> engine, int threads) {
+    if (engine == null) {
+      throw new IllegalArgumentException("Engine cannot be null");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Threads must be positive");
+    }
+    this.engine = engine;
+    this.threads = threads;
+  }
+
+  /**
+   * @param megabytes size of the shared table.
+   * @param book opening book of the solvers, may be null.
+   * @param threads number of worker threads.
+   * @return analyzer scoring exactly with solvers sharing one table.
+   */
+  public static GameAnalyzer withSolver(int megabytes, OpeningBook book,
+      int threads) {
+    TranspositionTable table = new LockFreeTranspositionTable(megabytes);
+    return new GameAnalyzer(() -> new Solver(table, book), threads);
+  }
+
+  /**
+   * @param depth search depth in plies.
+   * @param megabytes size of the shared table.
+   * @param threads number of worker threads.
+   * @return analyzer scoring with searches sharing one table.
+   */
+  public static GameAnalyzer withSearch(int depth, int megabytes,
+      int threads) {
+    TranspositionTable table = new LockFreeTranspositionTable(megabytes);
+    return new GameAnalyzer(() -> new NegamaxSearch(depth, 0, table),
+        threads);
+  }
+
+  /**
+   * @param args record file, optional depth and threads.
+   */
+  public static void main(String[] args)
+      throws IOException, InterruptedException {
+    if (args.length < 1) {
+      System.err.println("Usage: GameAnalyzer record-file [depth] "
+          + "[threads]");
+      System.exit(2);
+    }
+    int depth = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+    int threads = args.length > 2 ? Integer.parseInt(args[2])
+        : Runtime.getRuntime().availableProcessors();
+    GameAnalyzer analyzer = depth == 0
+        ? withSolver(Solver.DEFAULT_TABLE_MB, null, threads)
+        : withSearch(depth, Solver.DEFAULT_TABLE_MB, threads);
+    Result result = analyzer.analyzeAll(Paths.get(args[0]),
+        System.out::print);
+    System.out.println(result);
+  }
+
+  /**
+   * @param record 7x6 game to analyze.
+   * @return scores of every move.
+   */
+  public GameAnalysis analyze(GameRecord record) throws InterruptedException {
+    return analyzeAll(Collections.singletonList(record)).get(0);
+  }
+
+  /**
+   * Analyze games and wait for all of them.
+   * @param records 7x6 games to analyze.
+   * @return scores of every move, in the order of the games.
+   */
+  public List<GameAnalysis> analyzeAll(List<GameRecord> records)
+      throws InterruptedException {
+    BitBoard[] finals = new BitBoard[records.size()];
+    for (int i = 0; i < finals.length; i++) {
+      finals[i] = replay(records.get(i));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      return analyzeBatch(executor, records, finals);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Analyze a record file in batches of BATCH_GAMES games, skipping
+   * games that are not 7x6 or not legal.
+   * @param path record file.
+   * @param consumer gets every analysis, in the order of the file.
+   * @return number of games and positions and the time taken.
+   */
+  public Result analyzeAll(Path path, Consumer<GameAnalysis> consumer)
+      throws IOException, InterruptedException {
+    long start = System.nanoTime();
+    long games = 0;
+    long positions = 0;
+    long skipped = 0;
+    List<GameRecord> batch = new ArrayList<GameRecord>(BATCH_GAMES);
+    List<BitBoard> finals = new ArrayList<BitBoard>(BATCH_GAMES);
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try (GameRecordReader reader = GameRecordReader.open(path)) {
+      GameRecord record;
+      do {
+        record = reader.next();
+        if (record != null) {
+          try {
+            finals.add(replay(record));
+            batch.add(record);
+          } catch (IllegalArgumentException e) {
+            skipped++;
+          }
+        }
+        if (batch.size() == BATCH_GAMES
+            || (record == null && !batch.isEmpty())) {
+          for (GameAnalysis analysis : analyzeBatch(executor, batch,
+              finals.toArray(new BitBoard[0]))) {
+            consumer.accept(analysis);
+            positions += analysis.getMoveCount() + 1;
+          }
+          games += batch.size();
+          batch.clear();
+          finals.clear();
+        }
+      } while (record != null);
+    } finally {
+      executor.shutdownNow();
+    }
+    return new Result(games, positions, skipped, System.nanoTime() - start);
+  }
+
+  /**
+   * @return the final board of a legal 7x6 game.
+   */
+  private static BitBoard replay(GameRecord record) {
+    if (record == null) {
+      throw new IllegalArgumentException("Record cannot be null");
+    }
+    if (!Rules.STANDARD.equals(record.getRules())) {
+      throw new IllegalArgumentException("Game must be the standard 7x6");
+    }
+    BitBoard board = new BitBoard();
+    for (int ply = 0; ply < record.getMoveCount(); ply++) {
+      if (board.isWin(0) || board.isWin(1)) {
+        throw new IllegalArgumentException("Move after the game is over");
+      }
+      if (!board.canPlay(record.getMove(ply))) {
+        throw new IllegalArgumentException("Column is full");
+      }
+      board.play(record.getMove(ply), ply & 1);
+    }
+    return board;
+  }
+
+  private List<GameAnalysis> analyzeBatch(ExecutorService executor,
+      List<GameRecord> records, BitBoard[] finals)
+      throws InterruptedException {
+    int[] offsets = new int[records.size() + 1];
+    int[][] scores = new int[records.size()][];
+    for (int g = 0; g < scores.length; g++) {
+      scores[g] = new int[records.get(g).getMoveCount() + 1];
+      offsets[g + 1] = offsets[g] + scores[g].length;
+    }
+    AtomicInteger next = new AtomicInteger();
+    List<Future<?>> futures = new ArrayList<Future<?>>();
+    for (int t = 0; t < threads; t++) {
+      futures.add(executor.submit(() ->
+          score(records, offsets, scores, next)));
+    }
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Analysis failed", e.getCause());
+    } finally {
+      for (Future<?> future : futures) {
+        future.cancel(true);
+      }
+    }
+    List<GameAnalysis> analyses = new ArrayList<GameAnalysis>(scores.length);
+    for (int g = 0; g < scores.length; g++) {
+      int moves = scores[g].length - 1;
+      int[] best = Arrays.copyOf(scores[g], moves);
+      int[] played = new int[moves];
+      for (int ply = 0; ply < moves; ply++) {
+        if (ply < moves - 1) {
+          played[ply] = -scores[g][ply + 1];
+        } else if (finals[g].isWin(ply & 1)) {
+          played[ply] = best[ply];
+        } else if (finals[g].isFull()) {
+          played[ply] = 0;
+        } else {
+          played[ply] = -scores[g][moves];
+        }
+      }
+      analyses.add(new GameAnalysis(records.get(g), best, played));
+    }
+    return analyses;
+  }
+
+  /**
+   * Score positions on the calling thread until none is left.
+   */
+  private void score(List<GameRecord> records, int[] offsets,
+      int[][] scores, AtomicInteger next) {
+    SearchEngine worker = engine.get();
+    BitBoard board = new BitBoard();
+    int total = offsets[offsets.length - 1];
+    int index;
+    while ((index = next.getAndIncrement()) < total) {
+      int game = Arrays.binarySearch(offsets, index);
+      if (game < 0) {
+        game = -game - 2;
+      }
+      GameRecord record = records.get(game);
+      int ply = index - offsets[game];
+      board.reset();
+      for (int i = 0; i < ply; i++) {
+        board.play(record.getMove(i), i & 1);
+      }
+      if (!board.isFull() && !board.isWin(0) && !board.isWin(1)) {
+        scores[game][ply] = worker.evaluate(board, ply & 1);
+      }
+    }
+  }
+
+  /**
+   * Result sums up a batch run: games and positions analyzed, games
+   * skipped and wall-clock time.
+   */
+  public static final class Result {
+    private final long games;
+    private final long positions;
+    private final long skipped;
+    private final long elapsedNanos;
+
+    Result(long games, long positions, long skipped, long elapsedNanos) {
+      this.games = games;
+      this.positions = positions;
+      this.skipped = skipped;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    public long getGames() {
+      return games;
+    }
+
+    public long getPositions() {
+      return positions;
+    }
+
+    /**
+     * @return games not analyzed, not 7x6 or not legal.
+     */
+    public long getSkipped() {
+      return skipped;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    public double getGamesPerSecond() {
+      return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    public double getPositionsPerSecond() {
+      return elapsedNanos == 0 ? 0 : positions * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%d games, %d positions, %d skipped in %.1fs: "
+          + "%.1f games/s, %.0f positions/s", games, positions, skipped,
+          elapsedNanos / 1e9, getGamesPerSecond(), getPositionsPerSecond());
+    }
+  }
+}
@@ -0,0 +1,257 @@
+package connectfour.impl;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import connectfour.api.ConnectFourListener;
+
+/**
+ * @author Huijuan Zou
+ * GameEventBus delivers the events of ConnectFourModel to its listeners
+ * and runs computer searches off the listeners' thread.
+ * Every event and every search result is handed to the callback
+ * executor, and searches run on the worker executor. Both run tasks
+ * right away on the calling thread by default, which keeps the model
+ * synchronous for tests and headless games; a Swing view sets
+ * SwingUtilities::invokeLater as callback executor and a worker thread
+ * from newWorker, so a long search never blocks the Event Dispatch
+ * Thread and the model is only changed on that thread.
+ * A search can be cancelled: its result is then dropped, and its
+ * thread is interrupted so that engines checking for interrupts stop.
+ * A search that fails instead hands its exception to the failure
+ * callback, by default thrown on the callback executor; either way the
+ * search is over and the next one can start.
+ */
+public class GameEventBus {
+  private final List<ConnectFourListener> listeners =
+      new CopyOnWriteArrayList<ConnectFourListener>();
+  private volatile Executor callbackExecutor = Runnable::run;
+  private volatile Executor workerExecutor = Runnable::run;
+  private SearchTask currentSearch;
+
+  /**
+   * @return a single daemon thread for computer searches.
+   */
+  public static ExecutorService newWorker() {
+    return Executors.newSingleThreadExecutor(task -> {
+      Thread thread = new Thread(task, "computer-search");
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  public boolean addListener(ConnectFourListener listener) {
+    if (listener == null) {
+      throw new IllegalArgumentException("Listener cannot be null");
+    }
+    return listeners.add(listener);
+  }
+
+  public boolean removeListener(ConnectFourListener listener) {
+    return listeners.remove(listener);
+  }
+
+  /**
+   * @param executor runs the listener callbacks and search results,
+   * e.g. SwingUtilities::invokeLater.
+   */
+  public void setCallbackExecutor(Executor executor) {
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor cannot be null");
+    }
+    this.callbackExecutor = executor;
+  }
+
+  /**
+   * @param executor runs the computer searches, e.g. newWorker().
+   */
+  public void setWorkerExecutor(Executor executor) {
+    if (executor == null) {
+      throw new IllegalArgumentException("Executor cannot be null");
+    }
+    this.workerExecutor = executor;
+  }
+
+  /**
+   * Deliver an event to every listener on the callback executor.
+   * @param event call on one listener.
+   */
+  public void post(Consumer<ConnectFourListener> event) {
+    callbackExecutor.execute(() -> {
+      for (ConnectFourListener listener : listeners) {
+        event.accept(listener);
+      }
+    });
+  }
+
+  /**
+   * Search on the worker executor and hand the result to the callback
+   * executor, unless the search is cancelled first. Cancels the search
+   * in progress, if any.
+   * @param engine search engine, used by one search at a time.
+   * @param board board to search, not changed by anyone else.
+   * @param player player to move.
+   * @param onResult gets the result on the callback executor.
+   */
+  public void search(SearchEngine engine, BitBoard board, int player,
+      Consumer<SearchResult> onResult) {
+    search(engine, board, player, 0, onResult);
+  }
+
+  /**
+   * Same as search, within a time budget.
+   * @param engine search engine, used by one search at a time.
+   * @param board board to search, not changed by anyone else.
+   * @param player player to move.
+   * @param timeBudgetMillis time budget of the search, 0 for the
+   * engine's own.
+   * @param onResult gets the result on the callback executor.
+   */
+  public void search(SearchEngine engine, BitBoard board, int player,
+      long timeBudgetMillis, Consumer<SearchResult> onResult) {
+    search(engine, board, player, timeBudgetMillis, onResult,
+        GameEventBus::rethrow);
+  }
+
+  /**
+   * Same as search, with a callback for a search that fails.
+   * @param onFailure gets the exception of a failed search on the
+   * callback executor, e.g. to play another move.
+   */
+  public void search(SearchEngine engine, BitBoard board, int player,
+      long timeBudgetMillis, Consumer<SearchResult> onResult,
+      Consumer<RuntimeException> onFailure) {
+    submit(() -> timeBudgetMillis > 0
+        ? engine.search(board, player, timeBudgetMillis)
+        : engine.search(board, player), onResult, onFailure);
+  }
+
+  /**
+   * Same as search, for any search, e.g. a move provider choosing from a
+   * copy of the game.
+   * @param search runs on the worker executor; may stop with a
+   * CancellationException when interrupted.
+   * @param onResult gets the result on the callback executor.
+   */
+  public void submit(Supplier<SearchResult> search,
+      Consumer<SearchResult> onResult) {
+    submit(search, onResult, GameEventBus::rethrow);
+  }
+
+  /**
+   * Same as submit, with a callback for a search that fails.
+   * @param onFailure gets the exception of a failed search on the
+   * callback executor, e.g. to play another move.
+   */
+  public void submit(Supplier<SearchResult> search,
+      Consumer<SearchResult> onResult,
+      Consumer<RuntimeException> onFailure) {
+    if (onFailure == null) {
+      throw new IllegalArgumentException("Failure callback cannot be null");
+    }
+    SearchTask task = new SearchTask(search, onResult, onFailure);
+    synchronized (this) {
+      cancelSearch();
+      currentSearch = task;
+    }
+    workerExecutor.execute(task);
+  }
+
+  private static void rethrow(RuntimeException failure) {
+    throw failure;
+  }
+
+  /**
+   * Drop the result of the search in progress and interrupt it.
+   */
+  public synchronized void cancelSearch() {
+    if (currentSearch != null) {
+      currentSearch.cancel();
+      currentSearch = null;
+    }
+  }
+
+  private synchronized void finished(SearchTask task) {
+    if (currentSearch == task) {
+      currentSearch = null;
+    }
+  }
+
+  /**
+   * One search; the lock on the task orders cancel against the start
+   * and end of the search, so an interrupt never leaks to the next task
+   * of the worker.
+   */
+  private final class SearchTask implements Runnable {
+    private final Supplier<SearchResult> search;
+    private final Consumer<SearchResult> onResult;
+    private final Consumer<RuntimeException> onFailure;
+    private Thread thread;
+    private boolean cancelled;
+
+    private SearchTask(Supplier<SearchResult> search,
+        Consumer<SearchResult> onResult,
+        Consumer<RuntimeException> onFailure) {
+      this.search = search;
+      this.onResult = onResult;
+      this.onFailure = onFailure;
+    }
+
+    @Override
+    public void run() {
+      synchronized (this) {
+        if (cancelled) {
+          return;
+        }
+        thread = Thread.currentThread();
+      }
+      SearchResult result = null;
+      RuntimeException failure = null;
+      try {
+        result = search.get();
+      } catch (CancellationException e) {
+        synchronized (this) {
+          if (cancelled) {
+            return;
+          }
+        }
+        failure = e;
+      } catch (RuntimeException e) {
+        failure = e;
+      } finally {
+        synchronized (this) {
+          thread = null;
+          Thread.interrupted();
+        }
+      }
+      SearchResult found = result;
+      RuntimeException failed = failure;
+      callbackExecutor.execute(() -> {
+        synchronized (this) {
+          if (cancelled) {
+            return;
+          }
+        }
+        finished(this);
+        if (failed == null) {
+          onResult.accept(found);
+        } else {
+          onFailure.accept(failed);
+        }
+      });
+    }
+
+    private synchronized void cancel() {
+      cancelled = true;
+      if (thread != null && thread != Thread.currentThread()) {
+        thread.interrupt();
+      }
+    }
+  }
+}
@@ -0,0 +1,142 @@
+package connectfour.impl;
+
+import java.util.Arrays;
+
+/**
+ * @author Huijuan Zou
+ * GameRecord is one archived game: its rules, the names of its two
+ * players, its result and its moves as column indexes, player 0 first.
+ * GameRecordWriter stores it with every move packed in as few bits as
+ * the columns need, 3 for the standard 7 columns.
+ */
+public final class GameRecord {
+  public static final int DRAW = 2;
+  public static final int UNFINISHED = 3;
+  public static final int MAX_NAME_BYTES = 255;
+  private final Rules rules;
+  private final String[] players;
+  private final int result;
+  private final int[] moves;
+
+  /**
+   * @param rules rules of the game.
+   * @param player0 name of the player moving first.
+   * @param player1 name of the other player.
+   * @param result 0 or 1 for the winner, DRAW or UNFINISHED.
+   * @param moves column of every move, copied.
+   */
+  public GameRecord(Rules rules, String player0, String player1,
+      int result, int[] moves) {
+    if (rules == null || player0 == null || player1 == null
+        || moves == null) {
+      throw new IllegalArgumentException("Record fields cannot be null");
+    }
+    if (result < 0 || result > UNFINISHED) {
+      throw new IllegalArgumentException("Illegal result");
+    }
+    if (moves.length > rules.getCellNum()) {
+      throw new IllegalArgumentException("Too many moves");
+    }
+    for (int move : moves) {
+      if (move < 0 || move >= rules.getColNum()) {
+        throw new IllegalArgumentException("Column index out of range");
+      }
+    }
+    this.rules = rules;
+    this.players = new String[] {player0, player1};
+    this.result = result;
+    this.moves = moves.clone();
+  }
+
+  /**
+   * @param game game whose moves to record.
+   * @param result 0 or 1 for the winner, DRAW or UNFINISHED.
+   * @return record of the game as it is now.
+   */
+  public static GameRecord of(ConnectFourModel game, int result) {
+    GameState state = game.getGameState();
+    int[] moves = new int[state.getMoveCount()];
+    for (int i = 0; i < moves.length; i++) {
+      moves[i] = state.getMove(i);
+    }
+    return new GameRecord(state.getRules(),
+        game.getPlayer1().getPlayerName(),
+        game.getPlayer2().getPlayerName(), result, moves);
+  }
+
+  public Rules getRules() {
+    return rules;
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @return name of the player.
+   */
+  public String getPlayerName(int player) {
+    return players[player];
+  }
+
+  /**
+   * @return 0 or 1 for the winner, DRAW or UNFINISHED.
+   */
+  public int getResult() {
+    return result;
+  }
+
+  public int getMoveCount() {
+    return moves.length;
+  }
+
+  /**
+   * @param index number of the move, from 0.
+   * @return column index of the move.
+   */
+  public int getMove(int index) {
+    return moves[index];
+  }
+
+  /**
+   * @return the moves played on a new board.
+   */
+  public Board replay() {
+    Board board = rules.newBoard();
+    for (int move : moves) {
+      board.play(move);
+    }
+    return board;
+  }
+
+  /**
+   * @return bits of a move in the file, enough for every column index.
+   */
+  static int moveBits(Rules rules) {
+    return Math.max(1, 32 - Integer.numberOfLeadingZeros(
+        rules.getColNum() - 1));
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof GameRecord)) {
+      return false;
+    }
+    GameRecord record = (GameRecord) other;
+    return rules.equals(record.rules) && result == record.result
+        && Arrays.equals(players, record.players)
+        && Arrays.equals(moves, record.moves);
+  }
+
+  @Override
+  public int hashCode() {
+    return (rules.hashCode() * 31 + Arrays.hashCode(moves)) * 31 + result;
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int move : moves) {
+      sb.append(move + 1);
+    }
+    return "GameRecord [rules=" + rules + ", players=" + players[0] + "/"
+        + players[1] + ", result=" + result + ", moves=" + sb + "]";
+  }
+}
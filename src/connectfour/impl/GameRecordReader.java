@@ -0,0 +1,147 @@
+package connectfour.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * @author Huijuan Zou
+ * GameRecordReader streams the records of a file written by
+ * GameRecordWriter. It reads the file through a 64K buffer refilled
+ * from a FileChannel, so files of millions of games are read in one
+ * pass without being loaded. Not thread-safe.
+ */
+public class GameRecordReader implements Closeable {
+  private final FileChannel channel;
+  private final ByteBuffer buffer =
+      ByteBuffer.allocateDirect(GameRecordWriter.BUFFER_BYTES);
+  private final byte[] name = new byte[GameRecord.MAX_NAME_BYTES];
+  private boolean endOfFile;
+
+  private GameRecordReader(FileChannel channel) {
+    this.channel = channel;
+    buffer.flip();
+  }
+
+  /**
+   * @param path record file.
+   * @return reader positioned on the first record.
+   * @throws IOException if the file cannot be read or is not a record
+   * file.
+   */
+  public static GameRecordReader open(Path path) throws IOException {
+    GameRecordReader reader = new GameRecordReader(
+        FileChannel.open(path, StandardOpenOption.READ));
+    try {
+      if (!reader.fill(GameRecordWriter.HEADER_BYTES)
+          || reader.buffer.getInt() != GameRecordWriter.MAGIC
+          || reader.buffer.getInt() != GameRecordWriter.VERSION) {
+        throw new IOException("Not a game record file: " + path);
+      }
+    } catch (IOException e) {
+      reader.close();
+      throw e;
+    }
+    return reader;
+  }
+
+  /**
+   * @return next record, null at the end of the file.
+   * @throws IOException if the file cannot be read or is truncated.
+   */
+  public GameRecord next() throws IOException {
+    if (!fill(1)) {
+      return null;
+    }
+    need(5);
+    int colNum = buffer.get();
+    int rowNum = buffer.get();
+    int connect = buffer.get();
+    int result = buffer.get();
+    String player0 = readName();
+    String player1 = readName();
+    need(2);
+    int moves = buffer.getShort() & 0xffff;
+    Rules rules;
+    try {
+      rules = new Rules(colNum, rowNum, connect);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Corrupt game record: " + e.getMessage());
+    }
+    int bits = GameRecord.moveBits(rules);
+    need((moves * bits + 7) / 8);
+    int[] columns = new int[moves];
+    long pending = 0L;
+    int pendingBits = 0;
+    int mask = (1 << bits) - 1;
+    for (int i = 0; i < moves; i++) {
+      while (pendingBits < bits) {
+        pending = (pending << 8) | (buffer.get() & 0xff);
+        pendingBits += 8;
+      }
+      pendingBits -= bits;
+      columns[i] = (int) (pending >>> pendingBits) & mask;
+    }
+    try {
+      return new GameRecord(rules, player0, player1, result, columns);
+    } catch (IllegalArgumentException e) {
+      throw new IOException("Corrupt game record: " + e.getMessage());
+    }
+  }
+
+  /**
+   * Hand every remaining record to the consumer.
+   * @param consumer gets the records in file order.
+   * @return number of records read.
+   */
+  public long forEach(Consumer<GameRecord> consumer) throws IOException {
+    long count = 0;
+    GameRecord record;
+    while ((record = next()) != null) {
+      consumer.accept(record);
+      count++;
+    }
+    return count;
+  }
+
+  private String readName() throws IOException {
+    need(1);
+    int length = buffer.get() & 0xff;
+    need(length);
+    buffer.get(name, 0, length);
+    return new String(name, 0, length, StandardCharsets.UTF_8);
+  }
+
+  private void need(int bytes) throws IOException {
+    if (!fill(bytes)) {
+      throw new IOException("Truncated game record");
+    }
+  }
+
+  /**
+   * @return true if at least the bytes are buffered.
+   */
+  private boolean fill(int bytes) throws IOException {
+    if (buffer.remaining() >= bytes) {
+      return true;
+    }
+    buffer.compact();
+    while (buffer.position() < bytes && !endOfFile) {
+      if (channel.read(buffer) < 0) {
+        endOfFile = true;
+      }
+    }
+    buffer.flip();
+    return buffer.remaining() >= bytes;
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+}
@@ -0,0 +1,225 @@
+package connectfour.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import connectfour.api.ConnectFourListener;
+
+/**
+ * @author Huijuan Zou
+ * GameRecordWriter appends GameRecords to a file as games end.
+ * The file is an 8 byte header (magic, version) followed by records:
+ * columns, rows and connect in a byte each, the result in a byte, the
+ * two player names as a length byte and UTF-8, the number of moves in
+ * a short and the moves packed big-endian in moveBits each, 3 for 7
+ * columns, padded to a byte. A standard game of 42 moves between two
+ * short names takes about 30 bytes.
+ * Records are gathered in a buffer and written when it fills, on
+ * flush and on close. Several games may share one writer.
+ * Games recorded from listeners cannot throw at the game; the first
+ * failure to write is kept and thrown by close.
+ */
+public class GameRecordWriter implements Closeable {
+  public static final int MAGIC = 0x43344752;
+  public static final int VERSION = 1;
+  static final int HEADER_BYTES = 8;
+  static final int BUFFER_BYTES = 1 << 16;
+  private final FileChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+  private long count;
+  private IOException failure;
+
+  private GameRecordWriter(FileChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Open a record file for appending, writing its header if new.
+   * @param path record file.
+   * @return the writer.
+   * @throws IOException if the file cannot be opened.
+   */
+  public static GameRecordWriter open(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    GameRecordWriter writer = new GameRecordWriter(channel);
+    if (channel.size() == 0) {
+      writer.buffer.putInt(MAGIC).putInt(VERSION);
+    }
+    return writer;
+  }
+
+  /**
+   * @param record record to append.
+   * @throws IOException if the file cannot be written.
+   */
+  public synchronized void write(GameRecord record) throws IOException {
+    if (record == null) {
+      throw new IllegalArgumentException("Record cannot be null");
+    }
+    byte[] name0 = name(record.getPlayerName(0));
+    byte[] name1 = name(record.getPlayerName(1));
+    Rules rules = record.getRules();
+    int bits = GameRecord.moveBits(rules);
+    int moves = record.getMoveCount();
+    int length = 8 + name0.length + name1.length + (moves * bits + 7) / 8;
+    if (buffer.remaining() < length) {
+      drain();
+    }
+    buffer.put((byte) rules.getColNum()).put((byte) rules.getRowNum())
+        .put((byte) rules.getConnect()).put((byte) record.getResult());
+    buffer.put((byte) name0.length).put(name0);
+    buffer.put((byte) name1.length).put(name1);
+    buffer.putShort((short) moves);
+    long pending = 0L;
+    int pendingBits = 0;
+    for (int i = 0; i < moves; i++) {
+      pending = (pending << bits) | record.getMove(i);
+      pendingBits += bits;
+      while (pendingBits >= 8) {
+        pendingBits -= 8;
+        buffer.put((byte) (pending >>> pendingBits));
+      }
+    }
+    if (pendingBits > 0) {
+      buffer.put((byte) (pending << (8 - pendingBits)));
+    }
+    count++;
+  }
+
+  private static byte[] name(String name) {
+    byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > GameRecord.MAX_NAME_BYTES) {
+      throw new IllegalArgumentException("Player name too long");
+    }
+    return bytes;
+  }
+
+  /**
+   * Record a game without throwing at it; a failure to write is kept
+   * for close.
+   * @param game game to record.
+   * @param result 0 or 1 for the winner, DRAW or UNFINISHED.
+   */
+  public void record(ConnectFourModel game, int result) {
+    GameRecord record = GameRecord.of(game, result);
+    synchronized (this) {
+      try {
+        write(record);
+      } catch (IOException e) {
+        if (failure == null) {
+          failure = e;
+        } else {
+          failure.addSuppressed(e);
+        }
+      }
+    }
+  }
+
+  /**
+   * Record every game of the model as it is won or drawn.
+   * The moves are taken from the game when it ends rather than from
+   * the drop events, which listeners checking the win on a drop may
+   * deliver after the end of the game.
+   * @param game game to record.
+   * @return listener added to the game.
+   */
+  public ConnectFourListener listenTo(ConnectFourModel game) {
+    ConnectFourListener recorder = new Recorder(game);
+    game.addGameListener(recorder);
+    return recorder;
+  }
+
+  /**
+   * @return number of records written since opening.
+   */
+  public synchronized long getRecordCount() {
+    return count;
+  }
+
+  /**
+   * Write the buffered records to the file.
+   */
+  public synchronized void flush() throws IOException {
+    drain();
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Write the buffered records and close the file.
+   * @throws IOException if the file cannot be written now, or a game
+   * recorded earlier could not be, with the later failures suppressed.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    try {
+      drain();
+    } catch (IOException e) {
+      if (failure != null) {
+        failure.addSuppressed(e);
+        throw failure;
+      }
+      throw e;
+    } finally {
+      channel.close();
+    }
+    if (failure != null) {
+      throw failure;
+    }
+  }
+
+  private final class Recorder implements ConnectFourListener {
+    private final ConnectFourModel game;
+
+    private Recorder(ConnectFourModel game) {
+      this.game = game;
+    }
+
+    @Override
+    public void playerMode() {
+    }
+
+    @Override
+    public void gameStart() {
+    }
+
+    @Override
+    public void playerTurnToMove(String playerName) {
+    }
+
+    @Override
+    public void playerDrop(Drop drop) {
+    }
+
+    @Override
+    public void columnFull(int column) {
+    }
+
+    @Override
+    public void gameWin(String winnerName) {
+      record(game,
+          winnerName.equals(game.getPlayer1().getPlayerName()) ? 0 : 1);
+    }
+
+    @Override
+    public void gameDraw() {
+      record(game, GameRecord.DRAW);
+    }
+
+    @Override
+    public void restart() {
+    }
+  }
+}
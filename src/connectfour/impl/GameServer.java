@@ -0,0 +1,313 @@
+package connectfour.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.reflect.Method;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * @author Huijuan Zou
+ * GameServer hosts many matches at once over TCP, one GameSession per
+ * match, with a line protocol in ASCII.
+ * Client to server:
+ *   MATCH [COLSxROWS[xCONNECT]]  play the next client asking the same
+ *                                rules, 7x6x4 if left out
+ *   DROP col                     drop in a column, counted from 0
+ *   QUIT                         leave
+ * Server to client:
+ *   HELLO connect-four, WAIT while no opponent, START id rules with id
+ *   0 moving first, TURN, MOVE id col row with row counted from the
+ *   bottom, WIN id, DRAW, LEFT when the opponent left, ERROR message.
+ * After WIN, DRAW or LEFT the client may ask for a new MATCH.
+ * Every connection has a thread blocking on its socket: a virtual
+ * thread when the JVM has them (Java 21 and later), so tens of
+ * thousands of matches cost little memory, otherwise a pooled platform
+ * thread, fine for a few thousand.
+ * Matches may be archived in a GameRecordWriter.
+ * Usage: GameServer [port] [record-file]
+ */
+public class GameServer implements Closeable {
+  public static final int DEFAULT_PORT = 4004;
+  private static final int BACKLOG = 4096;
+  private final ServerSocket serverSocket;
+  private final ExecutorService executor = newConnectionExecutor();
+  private final Map<Rules, Connection> waiting =
+      new HashMap<Rules, Connection>();
+  private final Set<Connection> connections = ConcurrentHashMap.newKeySet();
+  private final AtomicLong matches = new AtomicLong();
+  private final GameRecordWriter records;
+
+  /**
+   * @param port port to listen on, 0 for any free port.
+   */
+  public GameServer(int port) throws IOException {
+    this(port, null);
+  }
+
+  /**
+   * @param port port to listen on, 0 for any free port.
+   * @param records archive of every match, null for none.
+   */
+  public GameServer(int port, GameRecordWriter records) throws IOException {
+    if (port < 0 || port > 65535) {
+      throw new IllegalArgumentException("Port out of range");
+    }
+    this.records = records;
+    this.serverSocket = new ServerSocket(port, BACKLOG);
+  }
+
+  /**
+   * @return a thread per task, virtual if the JVM has virtual threads.
+   */
+  static ExecutorService newConnectionExecutor() {
+    try {
+      Method factory =
+          Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) factory.invoke(null);
+    } catch (ReflectiveOperationException e) {
+      return Executors.newCachedThreadPool(task -> {
+        Thread thread =
+            new Thread(null, task, "game-connection", 256 * 1024);
+        thread.setDaemon(true);
+        return thread;
+      });
+    }
+  }
+
+  public int getPort() {
+    return serverSocket.getLocalPort();
+  }
+
+  /**
+   * @return number of matches started since the server started.
+   */
+  public long getMatchCount() {
+    return matches.get();
+  }
+
+  /**
+   * @return number of matches being played.
+   */
+  public int getActiveMatchCount() {
+    int players = 0;
+    for (Connection connection : connections) {
+      GameSession current = connection.session;
+      if (current != null && !current.isOver()) {
+        players++;
+      }
+    }
+    return players / 2;
+  }
+
+  public int getConnectionCount() {
+    return connections.size();
+  }
+
+  /**
+   * Accept connections on a thread of the server and return.
+   */
+  public void start() {
+    executor.execute(this::serve);
+  }
+
+  /**
+   * Accept connections until the server is closed.
+   */
+  public void serve() {
+    while (!serverSocket.isClosed()) {
+      Socket socket;
+      try {
+        socket = serverSocket.accept();
+      } catch (IOException e) {
+        if (serverSocket.isClosed()) {
+          return;
+        }
+        continue;
+      }
+      try {
+        Connection connection = new Connection(new LineChannel(socket));
+        connections.add(connection);
+        executor.execute(connection);
+      } catch (IOException e) {
+        close(socket);
+      }
+    }
+  }
+
+  /**
+   * Stop accepting and close every connection.
+   */
+  @Override
+  public void close() throws IOException {
+    serverSocket.close();
+    for (Connection connection : connections) {
+      connection.channel.close();
+    }
+    executor.shutdownNow();
+  }
+
+  private static void close(Socket socket) {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // closing anyway
+    }
+  }
+
+  /**
+   * Pair the connection with the one waiting for the same rules, or
+   * make it wait. Both join the session under the lock that closing
+   * connections take too, so an opponent leaving meanwhile is either
+   * never paired or finds the session and leaves it.
+   */
+  private void match(Connection connection, Rules rules) {
+    GameSession session;
+    synchronized (waiting) {
+      waiting.values().remove(connection);
+      Connection opponent = waiting.remove(rules);
+      if (opponent == null || !opponent.open) {
+        waiting.put(rules, connection);
+        connection.channel.send("WAIT");
+        return;
+      }
+      session = new GameSession(rules, opponent.channel::send,
+          connection.channel::send, records);
+      opponent.join(session, 0);
+      connection.join(session, 1);
+    }
+    matches.incrementAndGet();
+    session.start();
+  }
+
+  /**
+   * Stop the connection from waiting or being paired.
+   */
+  private void unwait(Connection connection) {
+    synchronized (waiting) {
+      waiting.values().remove(connection);
+      connection.open = false;
+    }
+  }
+
+  /**
+   * One client. Its thread reads the commands; the session of the
+   * opponent's thread may write to it at the same time. open is
+   * guarded by the lock on waiting.
+   */
+  private final class Connection implements Runnable {
+    private final LineChannel channel;
+    private volatile GameSession session;
+    private volatile int player;
+    private boolean open = true;
+
+    private Connection(LineChannel channel) {
+      this.channel = channel;
+    }
+
+    private void join(GameSession session, int player) {
+      this.player = player;
+      this.session = session;
+    }
+
+    @Override
+    public void run() {
+      try {
+        channel.send("HELLO connect-four");
+        String line;
+        while ((line = channel.readLine()) != null) {
+          if (!command(line.trim())) {
+            break;
+          }
+        }
+      } catch (SocketException e) {
+        // connection reset or closed by the server
+      } catch (IOException e) {
+        channel.send("ERROR " + e.getMessage());
+      } finally {
+        unwait(this);
+        leave();
+        channel.close();
+        connections.remove(this);
+      }
+    }
+
+    /**
+     * @return false to close the connection.
+     */
+    private boolean command(String line) {
+      String[] words = line.split("\\s+");
+      switch (words[0].toUpperCase()) {
+        case "MATCH":
+          if (session != null && !session.isOver()) {
+            channel.send("ERROR Already playing");
+            return true;
+          }
+          leave();
+          try {
+            match(this, words.length > 1 ? Rules.parse(words[1])
+                : Rules.STANDARD);
+          } catch (IllegalArgumentException e) {
+            channel.send("ERROR " + e.getMessage());
+          }
+          return true;
+        case "DROP":
+          GameSession current = session;
+          if (current == null) {
+            channel.send("ERROR No match");
+          } else if (words.length != 2 || !words[1].matches("\\d{1,3}")) {
+            channel.send("ERROR DROP needs a column");
+          } else {
+            current.drop(player, Integer.parseInt(words[1]));
+          }
+          return true;
+        case "QUIT":
+          channel.send("BYE");
+          return false;
+        default:
+          channel.send("ERROR Unknown command");
+          return true;
+      }
+    }
+
+    private void leave() {
+      GameSession current = session;
+      if (current != null) {
+        session = null;
+        current.leave(player);
+      }
+    }
+  }
+
+  /**
+   * @param args optional port, DEFAULT_PORT if left out, and file to
+   * archive the matches in.
+   */
+  public static void main(String[] args) throws IOException {
+    int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+    GameRecordWriter records = args.length > 1
+        ? GameRecordWriter.open(Paths.get(args[1])) : null;
+    if (records != null) {
+      Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+        try {
+          records.close();
+        } catch (IOException e) {
+          System.err.println("Cannot close records: " + e.getMessage());
+        }
+      }));
+    }
+    try (GameServer server = new GameServer(port, records)) {
+      System.out.println("Connect four server on port " + server.getPort());
+      server.serve();
+    }
+  }
+}
@@ -0,0 +1,188 @@
+package connectfour.impl;
+
+import java.awt.Color;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import connectfour.api.ConnectFourListener;
+import connectfour.api.Player;
+
+/**
+ * @author Huijuan Zou
+ * GameSession is one match of a GameServer between two remote players.
+ * It plays a ConnectFourModel of its own, listening to it the way the
+ * view does, and turns its events into protocol lines for the players:
+ * START, TURN, MOVE, WIN, DRAW, LEFT and ERROR (see GameServer).
+ * Players are 0, who moves first, and 1. The connections of both
+ * players call in, so every method is synchronized; the model runs its
+ * events on the calling thread.
+ */
+public class GameSession implements ConnectFourListener {
+  private final Rules rules;
+  private final ConnectFourModel game = new ConnectFourModel();
+  private final List<Consumer<String>> outputs;
+  private final GameRecordWriter records;
+  private boolean started = false;
+  private boolean over = false;
+
+  /**
+   * @param rules rules of the match.
+   * @param first sends lines to player 0.
+   * @param second sends lines to player 1.
+   */
+  public GameSession(Rules rules, Consumer<String> first,
+      Consumer<String> second) {
+    this(rules, first, second, null);
+  }
+
+  /**
+   * @param rules rules of the match.
+   * @param first sends lines to player 0.
+   * @param second sends lines to player 1.
+   * @param records archive of the match, null for none. A match left
+   * before its end is archived as unfinished.
+   */
+  public GameSession(Rules rules, Consumer<String> first,
+      Consumer<String> second, GameRecordWriter records) {
+    if (rules == null) {
+      throw new IllegalArgumentException("Rules cannot be null");
+    }
+    if (first == null || second == null) {
+      throw new IllegalArgumentException("Outputs cannot be null");
+    }
+    this.rules = rules;
+    this.outputs = Arrays.asList(first, second);
+    game.setRules(rules);
+    game.setPlayers(newPlayer(0, Color.red), newPlayer(1, Color.black));
+    this.records = records;
+    if (records != null) {
+      records.listenTo(game);
+    }
+    game.addGameListener(this);
+  }
+
+  private static Player newPlayer(int id, Color color) {
+    return new PlayerImpl.Builder(Integer.toString(id), color).build();
+  }
+
+  public Rules getRules() {
+    return rules;
+  }
+
+  /**
+   * Tell both players the match starts and ask player 0 to move.
+   * Does nothing if a player already left.
+   */
+  public synchronized void start() {
+    if (over) {
+      return;
+    }
+    send(0, "START 0 " + rules);
+    send(1, "START 1 " + rules);
+    started = true;
+    game.setGameActive(true);
+    game.makeDrop();
+  }
+
+  /**
+   * @param player 0 or 1, player asking to drop.
+   * @param colIndex column index.
+   */
+  public synchronized void drop(int player, int colIndex) {
+    if (over) {
+      send(player, "ERROR Game is over");
+    } else if (!started || player != toMove()) {
+      send(player, "ERROR Not your turn");
+    } else if (colIndex < 0 || colIndex >= rules.getColNum()) {
+      send(player, "ERROR Column out of range");
+    } else {
+      game.checkBoard(colIndex);
+    }
+  }
+
+  /**
+   * End the match because a player left; the other one is told.
+   * @param player 0 or 1, player leaving.
+   */
+  public synchronized void leave(int player) {
+    if (!over) {
+      end();
+      if (records != null && started) {
+        records.record(game, GameRecord.UNFINISHED);
+      }
+      send(player ^ 1, "LEFT");
+    }
+  }
+
+  public synchronized boolean isOver() {
+    return over;
+  }
+
+  /**
+   * @return number of discs dropped so far.
+   */
+  public synchronized int getMoveCount() {
+    return game.getGameState().getMoveCount();
+  }
+
+  private int toMove() {
+    return game.getPlayer1().getPlayerState() ? 0 : 1;
+  }
+
+  private void end() {
+    over = true;
+    game.setGameActive(false);
+  }
+
+  private void send(int player, String line) {
+    outputs.get(player).accept(line);
+  }
+
+  private void sendAll(String line) {
+    send(0, line);
+    send(1, line);
+  }
+
+  @Override
+  public void playerMode() {
+  }
+
+  @Override
+  public void gameStart() {
+  }
+
+  @Override
+  public void playerTurnToMove(String playerName) {
+    send(Integer.parseInt(playerName), "TURN");
+  }
+
+  @Override
+  public void playerDrop(Drop drop) {
+    String mover = game.getActivePlayer().getPlayerName();
+    int rowIndex = rules.getRowNum() - 1 - drop.getRowIndex();
+    sendAll("MOVE " + mover + " " + drop.getColIndex() + " " + rowIndex);
+    game.checkWin(drop);
+  }
+
+  @Override
+  public void columnFull(int column) {
+    send(toMove(), "ERROR Column is full");
+  }
+
+  @Override
+  public void gameWin(String winnerName) {
+    end();
+    sendAll("WIN " + winnerName);
+  }
+
+  @Override
+  public void gameDraw() {
+    end();
+    sendAll("DRAW");
+  }
+
+  @Override
+  public void restart() {
+  }
+}
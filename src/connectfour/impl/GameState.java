@@ -0,0 +1,251 @@
+package connectfour.impl;
+
+import connectfour.api.GameStateView;
+
+/**
+ * @author Huijuan Zou
+ * GameState is the headless core of the game. It uses no Swing or AWT
+ * types: moves are column indexes and players are ids 0 and 1, so games
+ * can run on servers started with -Djava.awt.headless=true.
+ * ConnectFourModel adapts it to Player and Drop for the view.
+ * By default player 0 moves first and players alternate.
+ * A ThreatTracker follows the lines through every new disc, so wins and
+ * threats are answered without scanning the board.
+ * The Rules set the board size and the length of a winning line;
+ * COL_NUM and ROW_NUM are the sizes of the standard game.
+ * It is the GameStateView handed to move providers.
+ */
+public class GameState implements GameStateView {
+  public static final int COL_NUM = BitBoard.COL_NUM;
+  public static final int ROW_NUM = BitBoard.ROW_NUM;
+  public static final int NO_PLAYER = -1;
+  private final Rules rules;
+  private final Board board;
+  private final ThreatTracker threats;
+  private int playerToMove = 0;
+  private int winner = NO_PLAYER;
+
+  /**
+   * State of a standard 7x6 connect four game.
+   */
+  public GameState() {
+    this(Rules.STANDARD);
+  }
+
+  /**
+   * @param rules rules of the game.
+   */
+  public GameState(Rules rules) {
+    if (rules == null) {
+      throw new IllegalArgumentException("Rules cannot be null");
+    }
+    this.rules = rules;
+    this.board = rules.newBoard();
+    this.threats = new ThreatTracker(rules);
+  }
+
+  public Rules getRules() {
+    return rules;
+  }
+
+  @Override
+  public int getColNum() {
+    return rules.getColNum();
+  }
+
+  @Override
+  public int getRowNum() {
+    return rules.getRowNum();
+  }
+
+  @Override
+  public int getConnect() {
+    return rules.getConnect();
+  }
+
+  @Override
+  public int getPlayerToMove() {
+    return playerToMove;
+  }
+
+  /**
+   * @param player 0 or 1, the player who drops next.
+   */
+  public void setPlayerToMove(int player) {
+    if (player != 0 && player != 1) {
+      throw new IllegalArgumentException("Player id must be 0 or 1");
+    }
+    this.playerToMove = player;
+  }
+
+  /**
+   * @param colIndex column index.
+   * @return true if the column is in range and not full.
+   */
+  @Override
+  public boolean canPlay(int colIndex) {
+    return colIndex >= 0 && colIndex < rules.getColNum()
+        && board.canPlay(colIndex);
+  }
+
+  /**
+   * Drop a disc of the player to move, then pass the turn.
+   * @param colIndex column index, must not be full.
+   * @return row index of the new disc, counted from the bottom.
+   */
+  public int play(int colIndex) {
+    int rowIndex = board.play(colIndex, playerToMove);
+    if (threats.play(colIndex, rowIndex, playerToMove)) {
+      winner = playerToMove;
+    }
+    playerToMove ^= 1;
+    return rowIndex;
+  }
+
+  /**
+   * Take back the last disc and give the turn back to its player.
+   * Nothing is allocated, so searches and simulations can make and
+   * unmake moves on the state directly.
+   * @return column index of the disc taken back.
+   * @throws IllegalStateException if no disc was played.
+   */
+  public int undo() {
+    int moveCount = board.getMoveCount();
+    if (moveCount == 0) {
+      throw new IllegalStateException("No move to undo");
+    }
+    int colIndex = board.getMove(moveCount - 1);
+    int rowIndex = board.getHeight(colIndex) - 1;
+    int player = board.getOwner(rowIndex, colIndex);
+    threats.undo(colIndex, rowIndex, player);
+    board.undo();
+    if (winner != NO_PLAYER && !threats.hasWon(winner)) {
+      winner = NO_PLAYER;
+    }
+    playerToMove = player;
+    return colIndex;
+  }
+
+  /**
+   * @param index number of the move, from 0 to getMoveCount() - 1.
+   * @return column index of the move.
+   */
+  @Override
+  public int getMove(int index) {
+    return board.getMove(index);
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @return true if the player has a winning line.
+   */
+  public boolean isWin(int player) {
+    return threats.hasWon(player);
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @param colIndex playable column index.
+   * @return true if a disc of the player in the column wins.
+   */
+  @Override
+  public boolean isWinningMove(int player, int colIndex) {
+    return threats.isThreat(player, colIndex, board.getHeight(colIndex));
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @return empty cells that would complete a line for the player, in
+   * the BitBoard layout. Only for boards that fit in a long.
+   */
+  public long getThreats(int player) {
+    return threats.getThreats(player);
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @return cells where the player can complete a line with the next
+   * disc. Only for boards that fit in a long.
+   */
+  public long getWinningMoves(int player) {
+    return threats.getWinningMoves(player);
+  }
+
+  /**
+   * @return id of the player who won with a played move,
+   * NO_PLAYER if nobody did.
+   */
+  public int getWinner() {
+    return winner;
+  }
+
+  public boolean isFull() {
+    return board.isFull();
+  }
+
+  public boolean isDraw() {
+    return winner == NO_PLAYER && board.isFull();
+  }
+
+  public boolean isOver() {
+    return winner != NO_PLAYER || board.isFull();
+  }
+
+  /**
+   * @param colIndex column index.
+   * @return number of discs in the column.
+   */
+  @Override
+  public int getHeight(int colIndex) {
+    return board.getHeight(colIndex);
+  }
+
+  @Override
+  public int getMoveCount() {
+    return board.getMoveCount();
+  }
+
+  /**
+   * @param rowIndex row index counted from the bottom.
+   * @param colIndex column index.
+   * @return 0 or 1 for the player owning the cell, -1 if empty.
+   */
+  @Override
+  public int getOwner(int rowIndex, int colIndex) {
+    return board.getOwner(rowIndex, colIndex);
+  }
+
+  /**
+   * @return a state with the same discs, moves and turn, e.g. for a
+   * move provider on another thread while the game goes on.
+   */
+  public GameState copy() {
+    GameState copy = new GameState(rules);
+    int[] heights = new int[rules.getColNum()];
+    for (int i = 0; i < getMoveCount(); i++) {
+      int colIndex = getMove(i);
+      copy.playerToMove = board.getOwner(heights[colIndex]++, colIndex);
+      copy.play(colIndex);
+    }
+    copy.playerToMove = playerToMove;
+    return copy;
+  }
+
+  /**
+   * @return board of the game, for reading. Discs must be dropped
+   * through play so that the threats follow them.
+   */
+  public Board getBoard() {
+    return board;
+  }
+
+  /**
+   * remove all the discs and give the first move to player 0.
+   */
+  public void reset() {
+    board.reset();
+    threats.reset();
+    playerToMove = 0;
+    winner = NO_PLAYER;
+  }
+}
@@ -0,0 +1,81 @@
+package connectfour.impl;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @author Huijuan Zou
+ * LineChannel reads and writes the ASCII lines of the GameServer
+ * protocol on a socket. It keeps a buffer of a few hundred bytes
+ * instead of the 8K of each reader and writer of java.io, since a
+ * server holds tens of thousands of them and the lines are short.
+ * Lines may be sent from any thread; one thread reads.
+ */
+class LineChannel implements Closeable {
+  private static final int BUFFER_SIZE = 256;
+  private static final int MAX_LINE = 1024;
+  private final Socket socket;
+  private final InputStream in;
+  private final OutputStream out;
+  private final StringBuilder line = new StringBuilder();
+
+  LineChannel(Socket socket) throws IOException {
+    this.socket = socket;
+    socket.setTcpNoDelay(true);
+    this.in = new BufferedInputStream(socket.getInputStream(), BUFFER_SIZE);
+    this.out = socket.getOutputStream();
+  }
+
+  /**
+   * @return next line without its end, null at the end of the stream.
+   * @throws IOException if the line is longer than MAX_LINE.
+   */
+  String readLine() throws IOException {
+    line.setLength(0);
+    int b;
+    while ((b = in.read()) != -1) {
+      if (b == '\n') {
+        return line.toString();
+      }
+      if (b != '\r') {
+        if (line.length() == MAX_LINE) {
+          throw new IOException("Line too long");
+        }
+        line.append((char) b);
+      }
+    }
+    return line.length() > 0 ? line.toString() : null;
+  }
+
+  /**
+   * Send a line; a failed send closes the channel, so the reading
+   * thread sees the end of the stream.
+   * @param text line without its end.
+   */
+  synchronized void send(String text) {
+    try {
+      out.write((text + "\n").getBytes(StandardCharsets.US_ASCII));
+      out.flush();
+    } catch (IOException e) {
+      close();
+    }
+  }
+
+  boolean isClosed() {
+    return socket.isClosed();
+  }
+
+  @Override
+  public void close() {
+    try {
+      socket.close();
+    } catch (IOException e) {
+      // closing anyway
+    }
+  }
+}
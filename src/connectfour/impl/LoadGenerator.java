@@ -0,0 +1,226 @@
+package connectfour.impl;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @author Huijuan Zou
+ * LoadGenerator plays many matches against a GameServer at once to
+ * test it locally. Every match is two clients asking for a MATCH, each
+ * on a thread of its own, dropping in random playable columns as soon
+ * as it is their turn. It measures the round trip of every drop, from
+ * DROP sent to its MOVE back, and the moves per second of all matches.
+ * Without a host it starts a server in the same JVM.
+ * Usage: LoadGenerator [matches] [host:port] [COLSxROWS[xCONNECT]]
+ */
+public class LoadGenerator {
+  private final String host;
+  private final int port;
+  private final Rules rules;
+  private final LongAdder moves = new LongAdder();
+  private final LongAdder roundTripNanos = new LongAdder();
+  private final LongAdder endings = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+
+  /**
+   * @param host host of the server.
+   * @param port port of the server.
+   * @param rules rules of the matches.
+   */
+  public LoadGenerator(String host, int port, Rules rules) {
+    if (host == null || rules == null) {
+      throw new IllegalArgumentException("Host and rules cannot be null");
+    }
+    this.host = host;
+    this.port = port;
+    this.rules = rules;
+  }
+
+  /**
+   * Play the matches, all at once, and wait for them to end.
+   * @param matches number of matches.
+   * @param timeoutMillis time to wait for the matches.
+   * @return what was played; clients still playing at the timeout
+   * are not counted.
+   */
+  public Result run(int matches, long timeoutMillis)
+      throws InterruptedException {
+    if (matches < 1) {
+      throw new IllegalArgumentException("Matches must be positive");
+    }
+    moves.reset();
+    roundTripNanos.reset();
+    endings.reset();
+    failures.reset();
+    ExecutorService executor = GameServer.newConnectionExecutor();
+    CountDownLatch done = new CountDownLatch(2 * matches);
+    long start = System.nanoTime();
+    for (int i = 0; i < 2 * matches; i++) {
+      long seed = i;
+      executor.execute(() -> {
+        try {
+          play(new SplittableRandom(seed));
+        } finally {
+          done.countDown();
+        }
+      });
+    }
+    done.await(timeoutMillis, TimeUnit.MILLISECONDS);
+    long elapsed = System.nanoTime() - start;
+    executor.shutdownNow();
+    return new Result(endings.sum() / 2, failures.sum(), moves.sum(),
+        roundTripNanos.sum(), elapsed);
+  }
+
+  /**
+   * One client playing one match.
+   */
+  private void play(SplittableRandom random) {
+    try (LineChannel channel = new LineChannel(new Socket(host, port))) {
+      int[] heights = new int[rules.getColNum()];
+      String me = null;
+      long sent = 0;
+      channel.send("MATCH " + rules);
+      String line;
+      while ((line = channel.readLine()) != null) {
+        String[] words = line.split(" ");
+        switch (words[0]) {
+          case "START":
+            me = words[1];
+            break;
+          case "TURN":
+            int col = randomColumn(random, heights);
+            sent = System.nanoTime();
+            channel.send("DROP " + col);
+            break;
+          case "MOVE":
+            heights[Integer.parseInt(words[2])]++;
+            if (words[1].equals(me) && sent != 0) {
+              roundTripNanos.add(System.nanoTime() - sent);
+              moves.increment();
+              sent = 0;
+            }
+            break;
+          case "WIN":
+          case "DRAW":
+            endings.increment();
+            channel.send("QUIT");
+            return;
+          case "LEFT":
+          case "ERROR":
+            failures.increment();
+            return;
+          default:
+            break;
+        }
+      }
+      failures.increment();
+    } catch (IOException | RuntimeException e) {
+      failures.increment();
+    }
+  }
+
+  private int randomColumn(SplittableRandom random, int[] heights) {
+    int col;
+    do {
+      col = random.nextInt(heights.length);
+    } while (heights[col] == rules.getRowNum());
+    return col;
+  }
+
+  /**
+   * Matches played by a run.
+   */
+  public static final class Result {
+    private final long matches;
+    private final long failures;
+    private final long moves;
+    private final long roundTripNanos;
+    private final long elapsedNanos;
+
+    private Result(long matches, long failures, long moves,
+        long roundTripNanos, long elapsedNanos) {
+      this.matches = matches;
+      this.failures = failures;
+      this.moves = moves;
+      this.roundTripNanos = roundTripNanos;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @return matches ended by a win or a draw.
+     */
+    public long getMatches() {
+      return matches;
+    }
+
+    /**
+     * @return clients that failed to connect or lost their match.
+     */
+    public long getFailures() {
+      return failures;
+    }
+
+    public long getMoves() {
+      return moves;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    /**
+     * @return mean round trip of a drop in microseconds.
+     */
+    public double getMeanRoundTripMicros() {
+      return moves == 0 ? 0 : roundTripNanos / 1e3 / moves;
+    }
+
+    public double getMovesPerSecond() {
+      return elapsedNanos == 0 ? 0 : moves * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("matches=%d, failures=%d, moves=%d, "
+          + "moves/s=%.0f, roundTrip=%.1fus, elapsed=%.2fs", matches,
+          failures, moves, getMovesPerSecond(), getMeanRoundTripMicros(),
+          elapsedNanos / 1e9);
+    }
+  }
+
+  /**
+   * @param args optional number of matches, host:port of the server
+   * and rules; a server in this JVM if no host is given.
+   */
+  public static void main(String[] args) throws Exception {
+    int matches = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+    Rules rules = args.length > 2 ? Rules.parse(args[2]) : Rules.STANDARD;
+    GameServer local = null;
+    String host = "localhost";
+    int port;
+    if (args.length > 1) {
+      String[] address = args[1].split(":");
+      host = address[0];
+      port = Integer.parseInt(address[1]);
+    } else {
+      local = new GameServer(0);
+      local.start();
+      port = local.getPort();
+    }
+    try {
+      Result result = new LoadGenerator(host, port, rules)
+          .run(matches, TimeUnit.MINUTES.toMillis(10));
+      System.out.println(result);
+    } finally {
+      if (local != null) {
+        local.close();
+      }
+    }
+  }
+}
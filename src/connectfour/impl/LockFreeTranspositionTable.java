@@ -0,0 +1,94 @@
+package connectfour.impl;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+/**
+ * @author Huijuan Zou
+ * Transposition table shared by several search threads without locks.
+ * Like TranspositionTableImpl every entry is two longs, but the first
+ * one holds key XOR data instead of the key. A reader accepts an entry
+ * only if the two longs XOR back to its key, so an entry torn by two
+ * threads writing the same slot at once reads as a miss instead of
+ * wrong data. The longs are read and written with opaque VarHandle
+ * access, which is atomic for longs on every JVM; nothing ever blocks.
+ * Replacement is depth-preferred as in TranspositionTableImpl; racing
+ * stores may lose one of the entries, which only costs search time.
+ */
+public class LockFreeTranspositionTable implements TranspositionTable {
+  private static final VarHandle SLOTS =
+      MethodHandles.arrayElementVarHandle(long[].class);
+  private static final int ENTRY_BYTES = 16;
+  private final long[] table;
+  private final int indexMask;
+  private volatile int age;
+
+  /**
+   * @param megabytes memory budget of the table, at least 1.
+   */
+  public LockFreeTranspositionTable(int megabytes) {
+    if (megabytes < 1) {
+      throw new IllegalArgumentException("Memory budget must be positive");
+    }
+    long entries = Long.highestOneBit((long) megabytes * 1024 * 1024
+        / ENTRY_BYTES);
+    if (entries > (1 << 29)) {
+      throw new IllegalArgumentException("Memory budget is too large");
+    }
+    this.table = new long[(int) entries * 2];
+    this.indexMask = (int) entries - 1;
+  }
+
+  @Override
+  public long probe(long key) {
+    int slot = index(key) << 1;
+    long check = (long) SLOTS.getOpaque(table, slot);
+    long data = (long) SLOTS.getOpaque(table, slot + 1);
+    if (data != MISS && (check ^ data) == key) {
+      return data;
+    }
+    return MISS;
+  }
+
+  @Override
+  public void store(long key, int depth, int bound, int score, int move) {
+    int slot = index(key) << 1;
+    int currentAge = age;
+    long check = (long) SLOTS.getOpaque(table, slot);
+    long data = (long) SLOTS.getOpaque(table, slot + 1);
+    if (data == MISS || (check ^ data) == key
+        || TranspositionTable.age(data) != currentAge
+        || depth >= TranspositionTable.depth(data)) {
+      long entry = TranspositionTable.pack(depth, bound, score, move,
+          currentAge);
+      SLOTS.setOpaque(table, slot, key ^ entry);
+      SLOTS.setOpaque(table, slot + 1, entry);
+    }
+  }
+
+  @Override
+  public void newSearch() {
+    age = (age + 1) & 0xFF;
+  }
+
+  /**
+   * remove all the entries. Must not run while other threads search.
+   */
+  @Override
+  public void clear() {
+    for (int i = 0; i < table.length; i++) {
+      SLOTS.setOpaque(table, i, 0L);
+    }
+    VarHandle.fullFence();
+  }
+
+  @Override
+  public int getCapacity() {
+    return indexMask + 1;
+  }
+
+  int index(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h >>> 32) & indexMask;
+  }
+}
@@ -0,0 +1,174 @@
+package connectfour.impl;
+
+/**
+ * @author Huijuan Zou
+ * MatchStats counts the games between two engines, A and B, seen from
+ * A, and turns them into an Elo difference with its error and the log
+ * likelihood ratio of a sequential probability ratio test (SPRT).
+ * The SPRT asks whether A is elo1 points stronger than B rather than
+ * elo0; it accepts elo1 once the ratio reaches log((1 - beta) / alpha)
+ * and elo0 once it falls to log(beta / (1 - alpha)), where alpha and
+ * beta are the chances of accepting the wrong one. The ratio uses the
+ * usual normal approximation of the game results, draws counted as
+ * half points; its variance counts half a virtual game of every result,
+ * so that it is not 0 when all games end alike. Counting is
+ * synchronized, so games finishing on several threads can add to the
+ * same stats.
+ */
+public class MatchStats {
+  private static final double Z95 = 1.959964;
+  private long wins;
+  private long draws;
+  private long losses;
+
+  public MatchStats() {
+  }
+
+  private MatchStats(long wins, long draws, long losses) {
+    this.wins = wins;
+    this.draws = draws;
+    this.losses = losses;
+  }
+
+  /**
+   * @param result 1 if A won, 0 for a draw, -1 if A lost.
+   */
+  public synchronized void add(int result) {
+    if (result > 0) {
+      wins++;
+    } else if (result == 0) {
+      draws++;
+    } else {
+      losses++;
+    }
+  }
+
+  public synchronized long getGames() {
+    return wins + draws + losses;
+  }
+
+  public synchronized long getWins() {
+    return wins;
+  }
+
+  public synchronized long getDraws() {
+    return draws;
+  }
+
+  public synchronized long getLosses() {
+    return losses;
+  }
+
+  /**
+   * @return the same games seen from B.
+   */
+  public synchronized MatchStats reversed() {
+    return new MatchStats(losses, draws, wins);
+  }
+
+  /**
+   * @return points of A per game, 0.5 if no game was played.
+   */
+  public synchronized double getScore() {
+    long games = getGames();
+    return games == 0 ? 0.5 : (wins + draws / 2.0) / games;
+  }
+
+  /**
+   * @return Elo difference of A over B, infinite if one side won all.
+   */
+  public double getEloDifference() {
+    return elo(getScore());
+  }
+
+  /**
+   * @return half width of the 95% confidence interval of the Elo
+   * difference, infinite with fewer than two games or if one side
+   * won them all.
+   */
+  public synchronized double getEloError() {
+    long games = getGames();
+    if (games < 2 || wins == games || losses == games) {
+      return Double.POSITIVE_INFINITY;
+    }
+    double score = getScore();
+    double error = Z95 * Math.sqrt(variance(score) / games);
+    return (elo(score + error) - elo(score - error)) / 2;
+  }
+
+  /**
+   * @param elo0 Elo difference of the null hypothesis.
+   * @param elo1 Elo difference of the alternative, above elo0.
+   * @return log likelihood ratio of elo1 against elo0, 0 before the
+   * first game.
+   */
+  public synchronized double getLlr(double elo0, double elo1) {
+    long games = getGames();
+    if (games == 0) {
+      return 0;
+    }
+    double score = getScore();
+    double variance = ((wins + 0.5) * (1 - score) * (1 - score)
+        + (draws + 0.5) * (0.5 - score) * (0.5 - score)
+        + (losses + 0.5) * score * score) / (games + 1.5);
+    double s0 = expectedScore(elo0);
+    double s1 = expectedScore(elo1);
+    return games * (s1 - s0) * (2 * score - s0 - s1) / (2 * variance);
+  }
+
+  /**
+   * @return -1 if the SPRT accepts elo0, 1 if it accepts elo1, 0 while
+   * it needs more games.
+   */
+  public int sprt(double elo0, double elo1, double alpha, double beta) {
+    double llr = getLlr(elo0, elo1);
+    if (llr >= Math.log((1 - beta) / alpha)) {
+      return 1;
+    }
+    if (llr <= Math.log(beta / (1 - alpha))) {
+      return -1;
+    }
+    return 0;
+  }
+
+  /**
+   * @return variance of the points of one game around the score.
+   */
+  private double variance(double score) {
+    long games = getGames();
+    if (games == 0) {
+      return 0;
+    }
+    return (wins * (1 - score) * (1 - score)
+        + draws * (0.5 - score) * (0.5 - score)
+        + losses * score * score) / games;
+  }
+
+  /**
+   * @param elo Elo difference.
+   * @return points per game the stronger side is expected to score.
+   */
+  static double expectedScore(double elo) {
+    return 1 / (1 + Math.pow(10, -elo / 400));
+  }
+
+  /**
+   * @param score points per game.
+   * @return Elo difference that scores them.
+   */
+  static double elo(double score) {
+    if (score <= 0) {
+      return Double.NEGATIVE_INFINITY;
+    }
+    if (score >= 1) {
+      return Double.POSITIVE_INFINITY;
+    }
+    return -400 * Math.log10(1 / score - 1);
+  }
+
+  @Override
+  public synchronized String toString() {
+    return String.format("+%d =%d -%d, %.1f +/- %.1f Elo", wins, draws,
+        losses, getEloDifference(), getEloError());
+  }
+}
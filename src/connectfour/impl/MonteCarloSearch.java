@@ -0,0 +1,427 @@
+package connectfour.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * @author Huijuan Zou
+ * MonteCarloSearch chooses a column by Monte Carlo tree search, for
+ * boards too large to search exhaustively: any board that fits a
+ * BitBoard, e.g. 8x7. Every playout descends the tree by UCT, expands
+ * a node on its second visit, plays the game out on a headless board
+ * with a light policy (win at once if possible, else a random column)
+ * and adds the result to the nodes it went through. The most visited
+ * root move is played.
+ * Nodes live in an arena of parallel arrays allocated once, children
+ * of a node side by side, so a search allocates no nodes. Several
+ * threads share the tree: descending through a node counts a visit
+ * before its result is known, a virtual loss that steers the other
+ * threads to other moves until the result comes back. Results are in
+ * half points for the side that moved into the node: 2 a win, 1 a draw.
+ * A full arena stops growing the tree, not the playouts.
+ * The search ends after the given playouts or when the time budget is
+ * up; the score is the mean result of the best move from -100 to 100
+ * and the nodes of the SearchResult are the playouts.
+ * Interrupting the searching thread stops the search with a
+ * CancellationException. Not thread-safe; call shutdown when done.
+ */
+public class MonteCarloSearch implements SearchEngine {
+  public static final int DEFAULT_CAPACITY = 1 << 20;
+  private static final int MIN_CAPACITY = 64;
+  private static final int MAX_VISITS = Integer.MAX_VALUE / 2;
+  private static final double EXPLORATION = 1.4;
+  private static final int UNEXPANDED = -1;
+  private static final int EXPANDING = -2;
+  private static final int LEAF = -3;
+  private static final int NO_WINNER = -1;
+  private static final long INTERRUPT_CHECK_MASK = (1 << 8) - 1;
+  private final int playouts;
+  private final long timeBudgetMillis;
+  private final int threads;
+  private final int capacity;
+  private final AtomicIntegerArray firstChild;
+  private final AtomicIntegerArray visits;
+  private final AtomicIntegerArray wins;
+  private final byte[] moves;
+  private final byte[] childCount;
+  private final AtomicInteger size = new AtomicInteger();
+  private final AtomicInteger maxDepth = new AtomicInteger();
+  private final SplittableRandom seeds = new SplittableRandom();
+  private ForkJoinPool pool;
+
+  public MonteCarloSearch(int playouts) {
+    this(playouts, 0, 1);
+  }
+
+  /**
+   * @param playouts playouts per search, 0 for as many as the time
+   * budget allows.
+   * @param timeBudgetMillis time budget per search, 0 for none.
+   * @param threads number of threads running playouts.
+   */
+  public MonteCarloSearch(int playouts, long timeBudgetMillis,
+      int threads) {
+    this(playouts, timeBudgetMillis, threads, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * @param playouts playouts per search, 0 for as many as the time
+   * budget allows.
+   * @param timeBudgetMillis time budget per search, 0 for none.
+   * @param threads number of threads running playouts.
+   * @param capacity number of nodes of the arena, at least 64.
+   */
+  public MonteCarloSearch(int playouts, long timeBudgetMillis,
+      int threads, int capacity) {
+    if (playouts < 0 || timeBudgetMillis < 0) {
+      throw new IllegalArgumentException("Limits cannot be negative");
+    }
+    if (playouts == 0 && timeBudgetMillis == 0) {
+      throw new IllegalArgumentException("Playouts or time budget needed");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Threads must be positive");
+    }
+    if (capacity < MIN_CAPACITY) {
+      throw new IllegalArgumentException("Capacity too small");
+    }
+    this.playouts = playouts;
+    this.timeBudgetMillis = timeBudgetMillis;
+    this.threads = threads;
+    this.capacity = capacity;
+    this.firstChild = new AtomicIntegerArray(capacity);
+    this.visits = new AtomicIntegerArray(capacity);
+    this.wins = new AtomicIntegerArray(capacity);
+    this.moves = new byte[capacity];
+    this.childCount = new byte[capacity];
+  }
+
+  public int getPlayouts() {
+    return playouts;
+  }
+
+  public long getTimeBudgetMillis() {
+    return timeBudgetMillis;
+  }
+
+  public int getThreads() {
+    return threads;
+  }
+
+  /**
+   * @return nodes of the tree of the last search.
+   */
+  public int getTreeSize() {
+    return Math.min(size.get(), capacity);
+  }
+
+  @Override
+  public SearchResult search(BitBoard board, int player) {
+    return search(board, player, timeBudgetMillis);
+  }
+
+  /**
+   * Search with a time budget for this search only.
+   * @param board board of the game, must not be over.
+   * @param player 0 or 1, player to move.
+   * @param timeBudgetMillis time budget, 0 for the playouts only.
+   * @return most visited column.
+   */
+  @Override
+  public SearchResult search(BitBoard board, int player,
+      long timeBudgetMillis) {
+    if (timeBudgetMillis < 0) {
+      throw new IllegalArgumentException("Time budget cannot be negative");
+    }
+    if (board == null) {
+      throw new IllegalArgumentException("Board cannot be null");
+    }
+    if (player != 0 && player != 1) {
+      throw new IllegalArgumentException("Player id must be 0 or 1");
+    }
+    if (board.isFull() || board.isWin(0) || board.isWin(1)) {
+      throw new IllegalArgumentException("Game is already over");
+    }
+    long start = System.nanoTime();
+    BitBoard root = board.copy();
+    int forced = forcedMove(root, player);
+    if (forced >= 0) {
+      return new SearchResult(forced, 0, 0, 0, System.nanoTime() - start);
+    }
+    int limit = playouts == 0 ? MAX_VISITS : playouts;
+    long deadline = timeBudgetMillis == 0 ? Long.MAX_VALUE
+        : start + timeBudgetMillis * 1000000L;
+    size.set(1);
+    maxDepth.set(0);
+    firstChild.set(0, UNEXPANDED);
+    visits.set(0, 0);
+    wins.set(0, 0);
+    AtomicBoolean stop = new AtomicBoolean();
+    long done = 0;
+    if (threads == 1) {
+      done = run(root, player, limit, deadline, seeds.split(), stop);
+    } else {
+      if (pool == null) {
+        pool = new ForkJoinPool(threads - 1);
+      }
+      List<Future<Long>> futures = new ArrayList<Future<Long>>();
+      for (int t = 1; t < threads; t++) {
+        BitBoard copy = root.copy();
+        SplittableRandom random = seeds.split();
+        futures.add(pool.submit(() ->
+            run(copy, player, limit, deadline, random, stop)));
+      }
+      Throwable failure = null;
+      try {
+        done = run(root, player, limit, deadline, seeds.split(), stop);
+      } finally {
+        // the next search reuses the arena, so wait for every thread
+        stop.set(true);
+        boolean interrupted = false;
+        for (Future<Long> future : futures) {
+          while (true) {
+            try {
+              done += future.get();
+              break;
+            } catch (InterruptedException e) {
+              interrupted = true;
+            } catch (ExecutionException e) {
+              failure = e.getCause();
+              break;
+            }
+          }
+        }
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+        }
+      }
+      if (failure != null) {
+        throw new IllegalStateException("Search failed", failure);
+      }
+    }
+    int best = bestChild(0);
+    int n = visits.get(best);
+    int score = n == 0 ? 0 : (int) Math.round(100.0 * wins.get(best) / n)
+        - 100;
+    return new SearchResult(moves[best], score, maxDepth.get(), done,
+        System.nanoTime() - start);
+  }
+
+  /**
+   * Stop the threads of the search.
+   */
+  public void shutdown() {
+    if (pool != null) {
+      pool.shutdownNow();
+    }
+  }
+
+  /**
+   * @return a column that wins at once, else the only column that
+   * stops the opponent winning at once, else -1.
+   */
+  private static int forcedMove(BitBoard board, int player) {
+    int colNum = board.getRules().getColNum();
+    int block = -1;
+    int threats = 0;
+    for (int col = 0; col < colNum; col++) {
+      if (!board.canPlay(col)) {
+        continue;
+      }
+      board.play(col, player);
+      boolean win = board.isWin(player);
+      board.undo();
+      if (win) {
+        return col;
+      }
+      board.play(col, player ^ 1);
+      if (board.isWin(player ^ 1)) {
+        block = col;
+        threats++;
+      }
+      board.undo();
+    }
+    return threats == 1 ? block : -1;
+  }
+
+  /**
+   * Run playouts on the calling thread until the limit, the deadline
+   * or another thread stops the search.
+   * @return playouts run.
+   */
+  private long run(BitBoard board, int player, int limit, long deadline,
+      SplittableRandom random, AtomicBoolean stop) {
+    int rootMoves = board.getMoveCount();
+    int[] path = new int[board.getRules().getCellNum() + 1];
+    long done = 0;
+    while (!stop.get() && visits.get(0) < limit) {
+      if ((done & INTERRUPT_CHECK_MASK) == INTERRUPT_CHECK_MASK) {
+        if (Thread.currentThread().isInterrupted()) {
+          stop.set(true);
+          throw new CancellationException("Search interrupted");
+        }
+        if (System.nanoTime() - deadline > 0) {
+          break;
+        }
+      }
+      visits.incrementAndGet(0);
+      int length = 1;
+      int node = 0;
+      int mover = player;
+      int winner = NO_WINNER;
+      boolean over = false;
+      while (true) {
+        int first = firstChild.get(node);
+        if (first == UNEXPANDED && (node == 0 || visits.get(node) > 1)
+            && firstChild.compareAndSet(node, UNEXPANDED, EXPANDING)) {
+          first = expand(node, board);
+        }
+        if (first < 0) {
+          break;
+        }
+        node = selectChild(node, first);
+        visits.incrementAndGet(node);
+        path[length++] = node;
+        board.play(moves[node], mover);
+        if (board.isWin(mover)) {
+          winner = mover;
+          over = true;
+          break;
+        }
+        if (board.isFull()) {
+          over = true;
+          break;
+        }
+        mover ^= 1;
+      }
+      if (length - 1 > maxDepth.get()) {
+        maxDepth.accumulateAndGet(length - 1, Math::max);
+      }
+      if (!over) {
+        winner = playout(board, mover, random);
+      }
+      for (int i = 1; i < length; i++) {
+        int moved = (player + i - 1) & 1;
+        wins.addAndGet(path[i], winner == NO_WINNER ? 1
+            : winner == moved ? 2 : 0);
+      }
+      while (board.getMoveCount() > rootMoves) {
+        board.undo();
+      }
+      if (visits.get(0) >= limit) {
+        stop.set(true);
+      }
+      done++;
+    }
+    return done;
+  }
+
+  /**
+   * Give the node a child per playable column, center first, and
+   * publish them.
+   * @return first child, or LEAF if the arena is full.
+   */
+  private int expand(int node, BitBoard board) {
+    int colNum = board.getRules().getColNum();
+    int count = 0;
+    for (int col = 0; col < colNum; col++) {
+      if (board.canPlay(col)) {
+        count++;
+      }
+    }
+    int first = size.getAndAdd(count);
+    if (first + count > capacity) {
+      firstChild.set(node, LEAF);
+      return LEAF;
+    }
+    int child = first;
+    for (int i = 0; i < colNum; i++) {
+      int col = colNum / 2 + ((i & 1) == 0 ? i / 2 : -(i + 1) / 2);
+      if (col < 0 || col >= colNum || !board.canPlay(col)) {
+        continue;
+      }
+      moves[child] = (byte) col;
+      firstChild.set(child, UNEXPANDED);
+      visits.set(child, 0);
+      wins.set(child, 0);
+      child++;
+    }
+    childCount[node] = (byte) count;
+    firstChild.set(node, first);
+    return first;
+  }
+
+  /**
+   * @return the child with the highest upper confidence bound, the
+   * first unvisited one if any.
+   */
+  private int selectChild(int node, int first) {
+    double logVisits = Math.log(Math.max(1, visits.get(node)));
+    int best = first;
+    double bestValue = Double.NEGATIVE_INFINITY;
+    for (int child = first; child < first + childCount[node]; child++) {
+      int n = visits.get(child);
+      if (n == 0) {
+        return child;
+      }
+      double value = wins.get(child) / (2.0 * n)
+          + EXPLORATION * Math.sqrt(logVisits / n);
+      if (value > bestValue) {
+        bestValue = value;
+        best = child;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * @return the most visited child of the node.
+   */
+  private int bestChild(int node) {
+    int first = firstChild.get(node);
+    int best = first;
+    for (int child = first; child < first + childCount[node]; child++) {
+      if (visits.get(child) > visits.get(best)) {
+        best = child;
+      }
+    }
+    return best;
+  }
+
+  /**
+   * Play the game out: a column winning at once if there is one, else a
+   * random playable column.
+   * @param mover player to move.
+   * @return winner, NO_WINNER for a draw.
+   */
+  private static int playout(BitBoard board, int mover,
+      SplittableRandom random) {
+    int colNum = board.getRules().getColNum();
+    while (!board.isFull()) {
+      for (int c = 0; c < colNum; c++) {
+        if (board.canPlay(c)) {
+          board.play(c, mover);
+          if (board.isWin(mover)) {
+            return mover;
+          }
+          board.undo();
+        }
+      }
+      int col = random.nextInt(colNum);
+      while (!board.canPlay(col)) {
+        col = random.nextInt(colNum);
+      }
+      board.play(col, mover);
+      mover ^= 1;
+    }
+    return NO_WINNER;
+  }
+}
@@ -0,0 +1,198 @@
+package connectfour.impl;
+
+/**
+ * @author Huijuan Zou
+ * MultiWordBoard is the board of games too large for one long, e.g.
+ * 9x7 or 10x9. It uses the BitBoard layout, one spare bit on top of
+ * every column, spread over as many longs as needed, and checks lines
+ * with the same shift-and-mask test shifting across the longs.
+ * The shifts go through two scratch arrays, so checking a win does not
+ * allocate. Not thread-safe.
+ */
+public class MultiWordBoard implements Board {
+  private final Rules rules;
+  private final int colNum;
+  private final int rowNum;
+  private final int h1;
+  private final int connect;
+  private final int words;
+  private final long[][] discs;
+  private final int[] heights;
+  private final long[] run;
+  private final long[] shifted;
+  private final int[] history;
+  private int moveCount;
+
+  /**
+   * @param rules rules of the game, any board size.
+   */
+  public MultiWordBoard(Rules rules) {
+    if (rules == null) {
+      throw new IllegalArgumentException("Rules cannot be null");
+    }
+    this.rules = rules;
+    this.colNum = rules.getColNum();
+    this.rowNum = rules.getRowNum();
+    this.h1 = rules.getColumnBits();
+    this.connect = rules.getConnect();
+    this.words = (colNum * h1 + Long.SIZE - 1) / Long.SIZE;
+    this.discs = new long[2][words];
+    this.heights = new int[colNum];
+    this.history = new int[colNum * rowNum];
+    this.run = new long[words];
+    this.shifted = new long[words];
+  }
+
+  @Override
+  public Rules getRules() {
+    return rules;
+  }
+
+  @Override
+  public boolean canPlay(int colIndex) {
+    return heights[colIndex] < rowNum;
+  }
+
+  @Override
+  public boolean isFull() {
+    return moveCount == colNum * rowNum;
+  }
+
+  @Override
+  public int getHeight(int colIndex) {
+    return heights[colIndex];
+  }
+
+  @Override
+  public int getMoveCount() {
+    return moveCount;
+  }
+
+  @Override
+  public int getCurrentPlayer() {
+    return moveCount & 1;
+  }
+
+  @Override
+  public int play(int colIndex) {
+    return play(colIndex, moveCount & 1);
+  }
+
+  @Override
+  public int play(int colIndex, int player) {
+    if (colIndex < 0 || colIndex >= colNum) {
+      throw new IllegalArgumentException("Column index out of range");
+    }
+    if (!canPlay(colIndex)) {
+      throw new IllegalArgumentException("Column is full");
+    }
+    int rowIndex = heights[colIndex]++;
+    int cell = colIndex * h1 + rowIndex;
+    discs[player][cell >>> 6] |= 1L << cell;
+    history[moveCount++] = colIndex;
+    return rowIndex;
+  }
+
+  @Override
+  public int undo() {
+    if (moveCount == 0) {
+      throw new IllegalStateException("No move to undo");
+    }
+    int colIndex = history[--moveCount];
+    int cell = colIndex * h1 + --heights[colIndex];
+    long bit = ~(1L << cell);
+    discs[0][cell >>> 6] &= bit;
+    discs[1][cell >>> 6] &= bit;
+    return colIndex;
+  }
+
+  @Override
+  public int getMove(int index) {
+    if (index < 0 || index >= moveCount) {
+      throw new IllegalArgumentException("Move index out of range");
+    }
+    return history[index];
+  }
+
+  @Override
+  public boolean isWin(int player) {
+    long[] board = discs[player];
+    return hasLine(board, 1) || hasLine(board, h1)
+        || hasLine(board, h1 - 1) || hasLine(board, h1 + 1);
+  }
+
+  @Override
+  public int getOwner(int rowIndex, int colIndex) {
+    int cell = colIndex * h1 + rowIndex;
+    long bit = 1L << cell;
+    if ((discs[0][cell >>> 6] & bit) != 0) {
+      return 0;
+    }
+    if ((discs[1][cell >>> 6] & bit) != 0) {
+      return 1;
+    }
+    return -1;
+  }
+
+  @Override
+  public void reset() {
+    for (int i = 0; i < words; i++) {
+      discs[0][i] = 0L;
+      discs[1][i] = 0L;
+    }
+    for (int i = 0; i < colNum; i++) {
+      heights[i] = 0;
+    }
+    moveCount = 0;
+  }
+
+  /**
+   * Same doubling runs as BitBoard.hasLine, on several longs.
+   */
+  private boolean hasLine(long[] board, int shift) {
+    System.arraycopy(board, 0, run, 0, words);
+    int length = 1;
+    while (length * 2 <= connect) {
+      and(length * shift);
+      length *= 2;
+    }
+    if (length < connect) {
+      and((connect - length) * shift);
+    }
+    for (int i = 0; i < words; i++) {
+      if (run[i] != 0) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * run &= run >>> bits, across the longs.
+   */
+  private void and(int bits) {
+    int q = bits >>> 6;
+    int r = bits & 63;
+    for (int i = 0; i < words; i++) {
+      long low = i + q < words ? run[i + q] : 0L;
+      long high = i + q + 1 < words ? run[i + q + 1] : 0L;
+      shifted[i] = r == 0 ? low : (low >>> r) | (high << (Long.SIZE - r));
+    }
+    for (int i = 0; i < words; i++) {
+      run[i] &= shifted[i];
+    }
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int row = rowNum - 1; row >= 0; row--) {
+      for (int col = 0; col < colNum; col++) {
+        int owner = getOwner(row, col);
+        sb.append(owner == 0 ? 'X' : owner == 1 ? 'O' : '.');
+      }
+      sb.append('\n');
+    }
+    return sb.toString();
+  }
+}
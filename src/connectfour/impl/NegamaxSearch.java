@@ -0,0 +1,380 @@
+package connectfour.impl;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Huijuan Zou
+ * NegamaxSearch chooses a column for a computer player.
+ * It is a depth-limited negamax with alpha-beta pruning that tries
+ * the transposition table move first, then center columns first.
+ * Positions are two longs: the discs of the side to move and the mask
+ * of all discs, so the search never allocates. The table keeps a
+ * position and its mirror in one entry under the canonical key.
+ * Scores are from the side to move: WIN_SCORE minus the number of plies
+ * to a win, the negative of that for a loss, otherwise the Evaluator
+ * score of the leaves, far below any win.
+ * The search deepens one ply at a time up to maxDepth. With a time
+ * budget the deadline is hard: it is checked every few thousand nodes
+ * inside the search, the unfinished iteration is dropped and the move of
+ * the last finished one is played, so there is always a best move ready
+ * once depth 1 is done. 0 means no time budget.
+ * Interrupting the searching thread stops the search with a
+ * CancellationException.
+ */
+public class NegamaxSearch implements SearchEngine {
+  public static final int WIN_SCORE = 1000;
+  public static final int DEFAULT_TABLE_MB = 8;
+  private static final int CELL_NUM = BitBoard.COL_NUM * BitBoard.ROW_NUM;
+  static final int MIN_WIN_SCORE = WIN_SCORE - CELL_NUM - 1;
+  private static final int[] COLUMN_ORDER = centerFirstOrder();
+  private static final long INTERRUPT_CHECK_MASK = (1 << 12) - 1;
+  private static final SearchTimeout TIMEOUT = new SearchTimeout();
+  private final int maxDepth;
+  private final long timeBudgetMillis;
+  private final TranspositionTable table;
+  private long nodes;
+  private long deadline;
+  private boolean timed;
+  private AtomicBoolean stop;
+  private int lastScore;
+  private int lastDepth;
+
+  public NegamaxSearch(int maxDepth) {
+    this(maxDepth, 0);
+  }
+
+  public NegamaxSearch(int maxDepth, long timeBudgetMillis) {
+    this(maxDepth, timeBudgetMillis,
+        new TranspositionTableImpl(DEFAULT_TABLE_MB));
+  }
+
+  /**
+   * @param maxDepth maximum depth in plies.
+   * @param timeBudgetMillis time budget per search, 0 for none.
+   * @param table transposition table, kept between searches.
+   */
+  public NegamaxSearch(int maxDepth, long timeBudgetMillis,
+      TranspositionTable table) {
+    if (maxDepth < 1) {
+      throw new IllegalArgumentException("Depth must be positive");
+    }
+    if (timeBudgetMillis < 0) {
+      throw new IllegalArgumentException("Time budget cannot be negative");
+    }
+    if (table == null) {
+      throw new IllegalArgumentException("Table cannot be null");
+    }
+    this.maxDepth = maxDepth;
+    this.timeBudgetMillis = timeBudgetMillis;
+    this.table = table;
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public long getTimeBudgetMillis() {
+    return timeBudgetMillis;
+  }
+
+  public TranspositionTable getTable() {
+    return table;
+  }
+
+  @Override
+  public SearchResult search(BitBoard board, int player) {
+    return search(board, player, timeBudgetMillis);
+  }
+
+  /**
+   * Search with a time budget for this search only.
+   * @param board board of the game, must not be full.
+   * @param player 0 or 1, player to move.
+   * @param timeBudgetMillis hard time budget, 0 for none.
+   * @return best move of the deepest finished iteration.
+   */
+  @Override
+  public SearchResult search(BitBoard board, int player,
+      long timeBudgetMillis) {
+    long start = System.nanoTime();
+    int bestMove = iterate(board, player, start, timeBudgetMillis);
+    return new SearchResult(bestMove, lastScore, lastDepth, nodes,
+        System.nanoTime() - start);
+  }
+
+  /**
+   * Same move as search, without building a SearchResult.
+   */
+  @Override
+  public int chooseMove(BitBoard board, int player) {
+    return iterate(board, player, System.nanoTime(), timeBudgetMillis);
+  }
+
+  /**
+   * Deepen one ply at a time; the score and depth of the deepest
+   * finished iteration are left in lastScore and lastDepth.
+   * @param start System.nanoTime() at the start of the search.
+   * @return best move of the deepest finished iteration.
+   */
+  private int iterate(BitBoard board, int player, long start,
+      long timeBudgetMillis) {
+    if (timeBudgetMillis < 0) {
+      throw new IllegalArgumentException("Time budget cannot be negative");
+    }
+    if (board == null) {
+      throw new IllegalArgumentException("Board cannot be null");
+    }
+    if (!Rules.STANDARD.equals(board.getRules())) {
+      throw new IllegalArgumentException("Board must be the standard 7x6");
+    }
+    if (board.isFull()) {
+      throw new IllegalArgumentException("Board is full");
+    }
+    long current = board.getDiscs(player);
+    long mask = board.getDiscs(0) | board.getDiscs(1);
+    deadline = start + timeBudgetMillis * 1000000L;
+    timed = false;
+    table.newSearch();
+    nodes = 0;
+    int bestMove = TranspositionTable.NO_MOVE;
+    int bestScore = 0;
+    int depth = 0;
+    try {
+      for (int d = 1; d <= maxDepth; d++) {
+        int alpha = -WIN_SCORE;
+        int move = TranspositionTable.NO_MOVE;
+        for (int i = -1; i < BitBoard.COL_NUM; i++) {
+          int col = i < 0 ? bestMove : COLUMN_ORDER[i];
+          if (col == TranspositionTable.NO_MOVE
+              || (i >= 0 && col == bestMove)
+              || (mask & BitBoard.topMask(col)) != 0) {
+            continue;
+          }
+          int score = searchMove(current, mask, col, d, alpha);
+          if (move == TranspositionTable.NO_MOVE || score > alpha) {
+            alpha = score;
+            move = col;
+          }
+        }
+        bestMove = move;
+        bestScore = alpha;
+        depth = d;
+        timed = timeBudgetMillis > 0;
+        if (bestScore > MIN_WIN_SCORE
+            || (timed && System.nanoTime() - deadline >= 0)) {
+          break;
+        }
+      }
+    } catch (SearchTimeout e) {
+      // keep the last finished iteration
+    } finally {
+      timed = false;
+    }
+    lastScore = bestScore;
+    lastDepth = depth;
+    return bestMove;
+  }
+
+  /**
+   * Score one root move. Used by the root loop and by ParallelSearch,
+   * which scores root moves on several threads.
+   * @param current discs of the side to move at the root.
+   * @param mask all discs at the root.
+   * @param col playable column.
+   * @param depth depth of the root search.
+   * @param alpha best score already found at the root.
+   * @return score of the move, at most alpha if it is not better.
+   */
+  int searchMove(long current, long mask, int col, int depth, int alpha) {
+    if (isWinningMove(current, mask, col)) {
+      return WIN_SCORE - 1;
+    }
+    return -negamax(current ^ mask, mask | (mask + BitBoard.bottomMask(col)),
+        depth - 1, 1, -WIN_SCORE, -alpha);
+  }
+
+  /**
+   * Score one root move for ParallelSearch, under the deadline and stop
+   * flag of the whole parallel search.
+   * @param deadline System.nanoTime() at which a SearchTimeout is thrown.
+   * @param timed false to ignore the deadline.
+   * @param stop set by another thread to stop the search with a
+   * CancellationException.
+   * @return score of the move, at most alpha if it is not better.
+   */
+  int searchMove(long current, long mask, int col, int depth, int alpha,
+      long deadline, boolean timed, AtomicBoolean stop) {
+    this.deadline = deadline;
+    this.timed = timed;
+    this.stop = stop;
+    try {
+      return searchMove(current, mask, col, depth, alpha);
+    } finally {
+      this.timed = false;
+      this.stop = null;
+    }
+  }
+
+  /**
+   * @return nodes visited by the last search or since resetNodes.
+   */
+  long getNodes() {
+    return nodes;
+  }
+
+  void resetNodes() {
+    nodes = 0;
+  }
+
+  /**
+   * @param current discs of the side to move.
+   * @param mask all discs.
+   * @param depth remaining plies.
+   * @param ply plies played since the root.
+   * @return score of the position for the side to move.
+   */
+  private int negamax(long current, long mask, int depth, int ply,
+      int alpha, int beta) {
+    if ((++nodes & INTERRUPT_CHECK_MASK) == 0) {
+      if (Thread.currentThread().isInterrupted()
+          || (stop != null && stop.get())) {
+        throw new CancellationException("Search interrupted");
+      }
+      if (timed && System.nanoTime() - deadline >= 0) {
+        throw TIMEOUT;
+      }
+    }
+    if (Long.bitCount(mask) == CELL_NUM) {
+      return 0;
+    }
+    if (Solver.canWinNext(current, mask)) {
+      return WIN_SCORE - ply - 1;
+    }
+    if (depth == 0) {
+      return Evaluator.STANDARD.evaluate(current, mask);
+    }
+    int alphaOrig = alpha;
+    long key = current + mask;
+    long mirroredKey = BitBoard.mirror(key);
+    boolean mirrored = mirroredKey < key;
+    if (mirrored) {
+      key = mirroredKey;
+    }
+    int tableMove = TranspositionTable.NO_MOVE;
+    long entry = table.probe(key);
+    if (entry != TranspositionTable.MISS) {
+      tableMove = mirrorMove(TranspositionTable.move(entry), mirrored);
+      if (TranspositionTable.depth(entry) >= depth) {
+        int score = fromTable(TranspositionTable.score(entry), ply);
+        int bound = TranspositionTable.bound(entry);
+        if (bound == TranspositionTable.BOUND_EXACT) {
+          return score;
+        } else if (bound == TranspositionTable.BOUND_LOWER && score > alpha) {
+          alpha = score;
+        } else if (bound == TranspositionTable.BOUND_UPPER && score < beta) {
+          beta = score;
+        }
+        if (alpha >= beta) {
+          return score;
+        }
+      }
+    }
+    int best = -WIN_SCORE;
+    int bestMove = TranspositionTable.NO_MOVE;
+    for (int i = -1; i < BitBoard.COL_NUM; i++) {
+      int col = i < 0 ? tableMove : COLUMN_ORDER[i];
+      if (col == TranspositionTable.NO_MOVE || (i >= 0 && col == tableMove)
+          || (mask & BitBoard.topMask(col)) != 0) {
+        continue;
+      }
+      int score = -negamax(current ^ mask,
+          mask | (mask + BitBoard.bottomMask(col)), depth - 1, ply + 1,
+          -beta, -alpha);
+      if (score > best) {
+        best = score;
+        bestMove = col;
+        if (score > alpha) {
+          alpha = score;
+          if (alpha >= beta) {
+            break;
+          }
+        }
+      }
+    }
+    int bound = best <= alphaOrig ? TranspositionTable.BOUND_UPPER
+        : best >= beta ? TranspositionTable.BOUND_LOWER
+        : TranspositionTable.BOUND_EXACT;
+    table.store(key, depth, bound, toTable(best, ply),
+        mirrorMove(bestMove, mirrored));
+    return best;
+  }
+
+  /**
+   * Moves are stored for the canonical position, so a position stored
+   * as its mirror stores and reads the mirrored column.
+   */
+  private static int mirrorMove(int move, boolean mirrored) {
+    if (!mirrored || move == TranspositionTable.NO_MOVE) {
+      return move;
+    }
+    return BitBoard.COL_NUM - 1 - move;
+  }
+
+  /**
+   * Win scores count plies from the root; the table keeps them counted
+   * from the stored position so they stay valid at any ply.
+   */
+  private static int toTable(int score, int ply) {
+    if (score > MIN_WIN_SCORE) {
+      return score + ply;
+    }
+    if (score < -MIN_WIN_SCORE) {
+      return score - ply;
+    }
+    return score;
+  }
+
+  private static int fromTable(int score, int ply) {
+    if (score > MIN_WIN_SCORE) {
+      return score - ply;
+    }
+    if (score < -MIN_WIN_SCORE) {
+      return score + ply;
+    }
+    return score;
+  }
+
+  /**
+   * @return true if dropping in the column makes four for the side to move.
+   */
+  private static boolean isWinningMove(long current, long mask, int col) {
+    long position = current
+        | ((mask + BitBoard.bottomMask(col)) & BitBoard.columnMask(col));
+    return BitBoard.hasFour(position);
+  }
+
+  /**
+   * @return column indexes ordered from the center outwards.
+   */
+  static int[] centerFirstOrder() {
+    int[] order = new int[BitBoard.COL_NUM];
+    for (int i = 0; i < BitBoard.COL_NUM; i++) {
+      order[i] = BitBoard.COL_NUM / 2 + (1 - 2 * (i % 2)) * (i + 1) / 2;
+    }
+    return order;
+  }
+
+  /**
+   * Thrown out of negamax when the deadline passes; shared and without
+   * stack trace, so timing out costs nothing. ParallelSearch catches it
+   * when its pool tasks time out.
+   */
+  static final class SearchTimeout extends RuntimeException {
+    private static final long serialVersionUID = 1L;
+
+    private SearchTimeout() {
+      super("Search timed out", null, false, false);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package connectfour.impl;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author Huijuan Zou
+ * OpeningBook holds exact solver scores of early positions.
+ * The file is a 16 byte header (magic, version, maximum plies, entry
+ * count) followed by entries sorted by position key, each a long key
+ * and a byte score. The file is memory-mapped, so opening it is cheap
+ * and the entries stay off the heap; get is a binary search.
+ * Keys are canonical solver keys, see BitBoard.canonicalKey: the
+ * smaller of discs of the side to move plus the mask and its mirror.
+ */
+public class OpeningBook {
+  public static final int MAGIC = 0x43344250;
+  public static final int VERSION = 1;
+  public static final int NO_ENTRY = Integer.MIN_VALUE;
+  private static final int HEADER_BYTES = 16;
+  private static final int ENTRY_BYTES = 9;
+  private final MappedByteBuffer buffer;
+  private final int maxPlies;
+  private final int size;
+
+  private OpeningBook(MappedByteBuffer buffer, int maxPlies, int size) {
+    this.buffer = buffer;
+    this.maxPlies = maxPlies;
+    this.size = size;
+  }
+
+  /**
+   * Memory-map a book file.
+   * @param path book file written by write.
+   * @return the book.
+   * @throws IOException if the file cannot be read or is not a book.
+   */
+  public static OpeningBook open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path,
+        StandardOpenOption.READ)) {
+      long length = channel.size();
+      if (length < HEADER_BYTES || length > Integer.MAX_VALUE) {
+        throw new IOException("Not an opening book: " + path);
+      }
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY,
+          0, length);
+      buffer.order(ByteOrder.BIG_ENDIAN);
+      if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+        throw new IOException("Not an opening book: " + path);
+      }
+      int maxPlies = buffer.getInt(8);
+      int size = buffer.getInt(12);
+      if (size < 0 || HEADER_BYTES + (long) size * ENTRY_BYTES != length) {
+        throw new IOException("Truncated opening book: " + path);
+      }
+      return new OpeningBook(buffer, maxPlies, size);
+    }
+  }
+
+  /**
+   * Write a book file.
+   * @param path book file.
+   * @param maxPlies deepest ply of the positions in the book.
+   * @param entries entries made by entry, sorted in increasing order.
+   * @param count number of entries to write.
+   * @throws IOException if the file cannot be written.
+   */
+  public static void write(Path path, int maxPlies, long[] entries,
+      int count) throws IOException {
+    ByteBuffer out = ByteBuffer.allocate(HEADER_BYTES + count * ENTRY_BYTES);
+    out.putInt(MAGIC).putInt(VERSION).putInt(maxPlies).putInt(count);
+    long previous = -1L;
+    for (int i = 0; i < count; i++) {
+      long key = entries[i] >>> 8;
+      if (key <= previous) {
+        throw new IllegalArgumentException("Entries must be sorted "
+            + "and unique");
+      }
+      previous = key;
+      out.putLong(key).put((byte) entries[i]);
+    }
+    out.flip();
+    try (FileChannel channel = FileChannel.open(path,
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+    }
+  }
+
+  /**
+   * Pack a key and its score into one long so that sorting the longs
+   * sorts the keys. Keys use at most 56 bits.
+   */
+  public static long entry(long key, int score) {
+    return (key << 8) | (score & 0xFF);
+  }
+
+  /**
+   * @param key canonical position key.
+   * @return score of the position, NO_ENTRY if not in the book.
+   */
+  public int get(long key) {
+    int low = 0;
+    int high = size - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int offset = HEADER_BYTES + mid * ENTRY_BYTES;
+      long midKey = buffer.getLong(offset);
+      if (midKey < key) {
+        low = mid + 1;
+      } else if (midKey > key) {
+        high = mid - 1;
+      } else {
+        return buffer.get(offset + 8);
+      }
+    }
+    return NO_ENTRY;
+  }
+
+  /**
+   * @return deepest ply of the positions in the book.
+   */
+  public int getMaxPlies() {
+    return maxPlies;
+  }
+
+  /**
+   * @return number of positions in the book.
+   */
+  public int size() {
+    return size;
+  }
+}
@@ -0,0 +1,187 @@
+package connectfour.impl;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+/**
+ * @author Huijuan Zou
+ * OpeningBookGenerator precomputes an opening book offline.
+ * It enumerates every position up to a number of plies from the empty
+ * board, solves the deepest ones with the solver and backs the scores
+ * up to the shallower plies, which then need no search at all.
+ * A book may also start from a given position instead of the empty
+ * board, e.g. to cover one opening deeper.
+ * Positions are enumerated by canonical key, so a position and its
+ * mirror are solved and written once, which about halves the book.
+ * Usage: OpeningBookGenerator book-file max-plies [table-megabytes]
+ */
+public class OpeningBookGenerator {
+  private static final int COL_NUM = BitBoard.COL_NUM;
+  private static final int CELL_NUM = COL_NUM * BitBoard.ROW_NUM;
+  private static final int H1 = BitBoard.ROW_NUM + 1;
+
+  private OpeningBookGenerator() {
+  }
+
+  /**
+   * @param args book file, maximum plies and optional table size in MB.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: OpeningBookGenerator book-file max-plies "
+          + "[table-mb]");
+      System.exit(2);
+    }
+    int megabytes = args.length > 2 ? Integer.parseInt(args[2])
+        : Solver.DEFAULT_TABLE_MB;
+    Solver solver = new Solver(new TranspositionTableImpl(megabytes));
+    long start = System.nanoTime();
+    int count = generate(Paths.get(args[0]), "", Integer.parseInt(args[1]),
+        solver, System.out);
+    System.out.printf("wrote %d positions in %.1fs%n", count,
+        (System.nanoTime() - start) / 1e9);
+  }
+
+  /**
+   * Generate and write a book.
+   * @param path book file.
+   * @param rootMoves moves to the first position of the book, see
+   * BitBoard.fromMoves; empty for a book from the empty board.
+   * @param plies number of plies after the root to store, 0 to 12.
+   * @param solver solver for the deepest ply.
+   * @param log progress output, may be null.
+   * @return number of positions written.
+   * @throws IOException if the book cannot be written.
+   */
+  public static int generate(Path path, String rootMoves, int plies,
+      Solver solver, PrintStream log) throws IOException {
+    if (plies < 0 || plies > 12) {
+      throw new IllegalArgumentException("Plies must be between 0 and 12");
+    }
+    BitBoard root = BitBoard.fromMoves(rootMoves);
+    if (root.isWin(0) || root.isWin(1)
+        || root.getMoveCount() + plies >= CELL_NUM) {
+      throw new IllegalArgumentException("Root must leave plies to play");
+    }
+    int player = root.getCurrentPlayer();
+    long[][] keys = new long[plies + 1][];
+    keys[0] = new long[] {root.getCanonicalKey(player)};
+    for (int ply = 1; ply <= plies; ply++) {
+      keys[ply] = children(keys[ply - 1]);
+    }
+    byte[][] scores = new byte[plies + 1][];
+    long[] deepest = keys[plies];
+    scores[plies] = new byte[deepest.length];
+    for (int i = 0; i < deepest.length; i++) {
+      long mask = decodeMask(deepest[i]);
+      scores[plies][i] = (byte) solver.solve(deepest[i] - mask, mask);
+      if (log != null && (i + 1) % 1000 == 0) {
+        log.println("solved " + (i + 1) + "/" + deepest.length);
+      }
+    }
+    for (int ply = plies - 1; ply >= 0; ply--) {
+      scores[ply] = backUp(keys[ply], keys[ply + 1], scores[ply + 1]);
+    }
+    int total = 0;
+    for (long[] level : keys) {
+      total += level.length;
+    }
+    long[] entries = new long[total];
+    int n = 0;
+    for (int ply = 0; ply <= plies; ply++) {
+      for (int i = 0; i < keys[ply].length; i++) {
+        entries[n++] = OpeningBook.entry(keys[ply][i], scores[ply][i]);
+      }
+      if (log != null) {
+        log.println("ply " + ply + ": " + keys[ply].length + " positions");
+      }
+    }
+    Arrays.sort(entries);
+    OpeningBook.write(path, root.getMoveCount() + plies, entries, total);
+    return total;
+  }
+
+  /**
+   * @param parents sorted keys of one ply.
+   * @return sorted unique keys of the next ply, without finished games.
+   */
+  private static long[] children(long[] parents) {
+    long[] next = new long[parents.length * COL_NUM];
+    int n = 0;
+    for (long key : parents) {
+      long mask = decodeMask(key);
+      long current = key - mask;
+      for (int col = 0; col < COL_NUM; col++) {
+        if ((mask & BitBoard.topMask(col)) != 0) {
+          continue;
+        }
+        long move = (mask + BitBoard.bottomMask(col))
+            & BitBoard.columnMask(col);
+        if (BitBoard.hasFour(current | move)) {
+          continue;
+        }
+        next[n++] = BitBoard.canonicalKey((current ^ mask) + (mask | move));
+      }
+    }
+    Arrays.sort(next, 0, n);
+    int unique = 0;
+    for (int i = 0; i < n; i++) {
+      if (unique == 0 || next[unique - 1] != next[i]) {
+        next[unique++] = next[i];
+      }
+    }
+    return Arrays.copyOf(next, unique);
+  }
+
+  /**
+   * Score every position from the scores of its children.
+   */
+  private static byte[] backUp(long[] parents, long[] childKeys,
+      byte[] childScores) {
+    byte[] scores = new byte[parents.length];
+    for (int i = 0; i < parents.length; i++) {
+      long mask = decodeMask(parents[i]);
+      long current = parents[i] - mask;
+      int moves = Long.bitCount(mask);
+      int best = -CELL_NUM;
+      for (int col = 0; col < COL_NUM; col++) {
+        if ((mask & BitBoard.topMask(col)) != 0) {
+          continue;
+        }
+        long move = (mask + BitBoard.bottomMask(col))
+            & BitBoard.columnMask(col);
+        int score;
+        if (BitBoard.hasFour(current | move)) {
+          score = (CELL_NUM + 1 - moves) / 2;
+        } else {
+          int index = Arrays.binarySearch(childKeys,
+              BitBoard.canonicalKey((current ^ mask) + (mask | move)));
+          score = -childScores[index];
+        }
+        best = Math.max(best, score);
+      }
+      scores[i] = (byte) best;
+    }
+    return scores;
+  }
+
+  /**
+   * Recover the mask from a key. In every column the key holds
+   * mask + current, where mask is 2^h - 1 for a column of height h
+   * and current is below 2^h, so h is the bit length of key + 1 minus 1.
+   * @param key discs of the side to move plus the mask.
+   * @return mask of all discs.
+   */
+  static long decodeMask(long key) {
+    long mask = 0L;
+    for (int col = 0; col < COL_NUM; col++) {
+      long column = (key >>> (col * H1)) & ((1L << H1) - 1);
+      int height = 63 - Long.numberOfLeadingZeros(column + 1);
+      mask |= ((1L << height) - 1) << (col * H1);
+    }
+    return mask;
+  }
+}
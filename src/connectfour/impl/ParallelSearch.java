@@ -0,0 +1,285 @@
+package connectfour.impl;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @author Huijuan Zou
+ * ParallelSearch searches the root moves on several cores.
+ * Every iteration of the iterative deepening first searches the
+ * expected best move alone to get a bound, then searches the younger
+ * brothers in parallel on a ForkJoinPool, each against that bound
+ * ("young brothers wait"). Every pool thread owns a NegamaxSearch, and
+ * all of them share one LockFreeTranspositionTable, so a position
+ * searched by one thread is a table hit for the others.
+ * parallelism sets the number of pool threads.
+ * The time budget is as hard as in NegamaxSearch: every pool task
+ * checks the deadline of the search and times out with it, and the
+ * move of the last finished iteration is played. Interrupting the
+ * searching thread stops the pool tasks too and ends the search with a
+ * CancellationException.
+ * Not thread-safe; call shutdown when done.
+ */
+public class ParallelSearch implements SearchEngine {
+  private static final int[] COLUMN_ORDER = NegamaxSearch.centerFirstOrder();
+  private final ForkJoinPool pool;
+  private final int maxDepth;
+  private final long timeBudgetMillis;
+  private final TranspositionTable table;
+  private final List<NegamaxSearch> engines =
+      new CopyOnWriteArrayList<NegamaxSearch>();
+  private final NegamaxSearch callerEngine;
+
+  public ParallelSearch(int maxDepth, int parallelism) {
+    this(maxDepth, 0, parallelism, NegamaxSearch.DEFAULT_TABLE_MB);
+  }
+
+  /**
+   * @param maxDepth maximum depth in plies.
+   * @param timeBudgetMillis time budget per search, 0 for none.
+   * @param parallelism number of search threads.
+   * @param tableMegabytes size of the shared transposition table.
+   */
+  public ParallelSearch(int maxDepth, long timeBudgetMillis,
+      int parallelism, int tableMegabytes) {
+    if (maxDepth < 1) {
+      throw new IllegalArgumentException("Depth must be positive");
+    }
+    if (timeBudgetMillis < 0) {
+      throw new IllegalArgumentException("Time budget cannot be negative");
+    }
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be positive");
+    }
+    this.maxDepth = maxDepth;
+    this.timeBudgetMillis = timeBudgetMillis;
+    this.table = new LockFreeTranspositionTable(tableMegabytes);
+    this.callerEngine = newEngine();
+    this.pool = new ForkJoinPool(parallelism, SearchThread::new, null, false);
+  }
+
+  public int getParallelism() {
+    return pool.getParallelism();
+  }
+
+  /**
+   * @return transposition table shared by the pool threads.
+   */
+  public TranspositionTable getTable() {
+    return table;
+  }
+
+  @Override
+  public SearchResult search(BitBoard board, int player) {
+    return search(board, player, timeBudgetMillis);
+  }
+
+  /**
+   * Search with a time budget for this search only.
+   * @param board board of the game, must not be full.
+   * @param player 0 or 1, player to move.
+   * @param timeBudgetMillis hard time budget, 0 for none.
+   * @return best move of the deepest finished iteration.
+   */
+  @Override
+  public SearchResult search(BitBoard board, int player,
+      long timeBudgetMillis) {
+    if (timeBudgetMillis < 0) {
+      throw new IllegalArgumentException("Time budget cannot be negative");
+    }
+    if (board == null) {
+      throw new IllegalArgumentException("Board cannot be null");
+    }
+    if (!Rules.STANDARD.equals(board.getRules())) {
+      throw new IllegalArgumentException("Board must be the standard 7x6");
+    }
+    if (board.isFull()) {
+      throw new IllegalArgumentException("Board is full");
+    }
+    long current = board.getDiscs(player);
+    long mask = board.getDiscs(0) | board.getDiscs(1);
+    long start = System.nanoTime();
+    long deadline = start + timeBudgetMillis * 1000000L;
+    table.newSearch();
+    for (NegamaxSearch engine : engines) {
+      engine.resetNodes();
+    }
+    int[] moves = new int[BitBoard.COL_NUM];
+    int count = 0;
+    for (int col : COLUMN_ORDER) {
+      if ((mask & BitBoard.topMask(col)) == 0) {
+        moves[count++] = col;
+      }
+    }
+    AtomicBoolean stop = new AtomicBoolean();
+    int bestScore = 0;
+    int depth = 0;
+    try {
+      for (int d = 1; d <= maxDepth; d++) {
+        boolean timed = d > 1 && timeBudgetMillis > 0;
+        int score = run(new MoveTask(current, mask, moves[0], d,
+            -NegamaxSearch.WIN_SCORE, deadline, timed, stop), stop);
+        int bestIndex = 0;
+        MoveTask[] brothers = new MoveTask[count - 1];
+        for (int i = 1; i < count; i++) {
+          brothers[i - 1] = new MoveTask(current, mask, moves[i], d, score,
+              deadline, timed, stop);
+        }
+        if (brothers.length > 0) {
+          run(new BrothersTask(brothers), stop);
+        }
+        for (int i = 1; i < count; i++) {
+          int brother = brothers[i - 1].join();
+          if (brother > score) {
+            score = brother;
+            bestIndex = i;
+          }
+        }
+        int best = moves[bestIndex];
+        System.arraycopy(moves, 0, moves, 1, bestIndex);
+        moves[0] = best;
+        bestScore = score;
+        depth = d;
+        if (bestScore > NegamaxSearch.MIN_WIN_SCORE
+            || (timeBudgetMillis > 0 && System.nanoTime() - deadline >= 0)) {
+          break;
+        }
+      }
+    } catch (NegamaxSearch.SearchTimeout e) {
+      // keep the last finished iteration
+    }
+    long nodes = 0;
+    for (NegamaxSearch engine : engines) {
+      nodes += engine.getNodes();
+    }
+    return new SearchResult(moves[0], bestScore, depth, nodes,
+        System.nanoTime() - start);
+  }
+
+  /**
+   * Run a task on the pool and wait for it. The caller can be
+   * interrupted while waiting; then, and when a task fails or times
+   * out, the stop flag ends the tasks still running, so none of them
+   * outlives the search.
+   * @return result of the task.
+   */
+  private int run(ForkJoinTask<Integer> task, AtomicBoolean stop) {
+    if (Thread.currentThread().isInterrupted()) {
+      throw new CancellationException("Search interrupted");
+    }
+    pool.execute(task);
+    try {
+      return task.get();
+    } catch (InterruptedException e) {
+      stop.set(true);
+      task.cancel(false);
+      Thread.currentThread().interrupt();
+      throw new CancellationException("Search interrupted");
+    } catch (ExecutionException e) {
+      stop.set(true);
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IllegalStateException("Search failed", cause);
+    }
+  }
+
+  /**
+   * Stop the pool threads.
+   */
+  public void shutdown() {
+    pool.shutdown();
+  }
+
+  private NegamaxSearch newEngine() {
+    NegamaxSearch engine = new NegamaxSearch(maxDepth, timeBudgetMillis,
+        table);
+    engines.add(engine);
+    return engine;
+  }
+
+  /**
+   * @return engine owned by the running thread.
+   */
+  private NegamaxSearch currentEngine() {
+    Thread thread = Thread.currentThread();
+    if (thread instanceof SearchThread) {
+      return ((SearchThread) thread).engine;
+    }
+    return callerEngine;
+  }
+
+  /**
+   * Pool thread that owns an engine.
+   */
+  private final class SearchThread extends ForkJoinWorkerThread {
+    private final NegamaxSearch engine;
+
+    private SearchThread(ForkJoinPool pool) {
+      super(pool);
+      this.engine = newEngine();
+    }
+  }
+
+  /**
+   * Score of one root move.
+   */
+  private final class MoveTask extends RecursiveTask<Integer> {
+    private static final long serialVersionUID = 1L;
+    private final long current;
+    private final long mask;
+    private final int col;
+    private final int depth;
+    private final int alpha;
+    private final long deadline;
+    private final boolean timed;
+    private final AtomicBoolean stop;
+
+    private MoveTask(long current, long mask, int col, int depth, int alpha,
+        long deadline, boolean timed, AtomicBoolean stop) {
+      this.current = current;
+      this.mask = mask;
+      this.col = col;
+      this.depth = depth;
+      this.alpha = alpha;
+      this.deadline = deadline;
+      this.timed = timed;
+      this.stop = stop;
+    }
+
+    @Override
+    protected Integer compute() {
+      if (stop.get()) {
+        throw new CancellationException("Search stopped");
+      }
+      return currentEngine().searchMove(current, mask, col, depth, alpha,
+          deadline, timed, stop);
+    }
+  }
+
+  /**
+   * Forks all the younger brothers and waits for them.
+   */
+  private static final class BrothersTask extends RecursiveTask<Integer> {
+    private static final long serialVersionUID = 1L;
+    private final MoveTask[] brothers;
+
+    private BrothersTask(MoveTask[] brothers) {
+      this.brothers = brothers;
+    }
+
+    @Override
+    protected Integer compute() {
+      invokeAll(brothers);
+      return 0;
+    }
+  }
+}
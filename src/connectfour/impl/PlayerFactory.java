@@ -2,8 +2,8 @@ package connectfour.impl;
 
 import java.awt.Color;
 
+import java.util.Collections;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
 
 import connectfour.api.Player;
 
@@ -16,9 +16,12 @@ import connectfour.api.Player;
  * create a new player, and call PlayerFactory.getPlayer(player);
  * The default setting is human playing with computer.
  * You can create your own player type to let human play with human.
+ * The static methods keep the players of the desktop game in a
+ * registry of two; games, lobbies and tournaments of their own pass
+ * their own PlayerRegistry instead.
  */
 public class PlayerFactory {
-  private static List<Player> playerList = new CopyOnWriteArrayList<Player>();
+  private static volatile PlayerRegistry registry = new PlayerRegistry(2);
   public static final String DEFAULT_PLAYER1_NAME  = "Player1";
   public static final String DEFAULT_PLAYER2_NAME  = "Computer Player";
   public static final String DEFAULT_PLAYER1_TYPE  = "Human";
@@ -41,45 +44,56 @@ public class PlayerFactory {
    * or alternatively, as identical color/name is not allowed.
    */
   public static Player getPlayer() {
-    Player player;
-    Player newPlayer1 = new PlayerImpl
+    return getDefaultPlayer(registry);
+  }
+
+  /**
+   * Default player 1 if its name and color are free in the registry,
+   * else default player 2 if its are.
+   * @param players registry of the game.
+   * @return default player, registered.
+   * @throws IllegalArgumentException if the registry is full or both
+   * default players clash with registered ones.
+   */
+  public static Player getDefaultPlayer(PlayerRegistry players) {
+    if (players == null) {
+      throw new IllegalArgumentException("Registry should not be null");
+    }
+    if (players.size() >= players.getCapacity()) {
+      throw new IllegalArgumentException("Already have "
+          + players.getCapacity() + " players. Cannot create more players.");
+    }
+    if (!players.isNameTaken(DEFAULT_PLAYER1_NAME)
+        && !players.isColorTaken(DEFAULT_PLAYER1_COLOR)) {
+      return players.register(newDefaultPlayer1());
+    }
+    if (!players.isNameTaken(DEFAULT_PLAYER2_NAME)
+        && !players.isColorTaken(DEFAULT_PLAYER2_COLOR)) {
+      return players.register(newDefaultPlayer2());
+    }
+    throw new IllegalArgumentException("Cannot get default player "
+        + "because of identical name or color."
+        + " Please create your customized player instead.");
+  }
+
+  /**
+   * @return default player 1, not registered anywhere.
+   */
+  public static Player newDefaultPlayer1() {
+    return new PlayerImpl
         .Builder(DEFAULT_PLAYER1_NAME, DEFAULT_PLAYER1_COLOR)
         .withIsActive(DEFAULT_PLAYER1_ACTIVE)
         .withType(DEFAULT_PLAYER1_TYPE).build();
-    Player newPlayer2 = new PlayerImpl
+  }
+
+  /**
+   * @return default player 2, not registered anywhere.
+   */
+  public static Player newDefaultPlayer2() {
+    return new PlayerImpl
         .Builder(DEFAULT_PLAYER2_NAME, DEFAULT_PLAYER2_COLOR)
         .withIsActive(DEFAULT_PLAYER2_ACTIVE)
         .withType(DEFAULT_PLAYER2_TYPE).build();
-    if (playerList.size() > 1) {
-      throw new IllegalArgumentException("Already have two players. "
-          + "Cannot create more players.");
-    }
-    if (playerList.isEmpty()) {
-      player = newPlayer1;
-      playerList.add(newPlayer1);
-    } else if ((!playerList.get(0)
-        .getPlayerColor().
-        equals(DEFAULT_PLAYER1_COLOR) &&
-        !playerList.get(0)
-        .getPlayerName()
-        .equals(DEFAULT_PLAYER1_NAME))
-        ) {
-      player = newPlayer1;
-      playerList.add(newPlayer1);
-    } else if (!playerList.get(0)
-        .getPlayerColor()
-        .equals(DEFAULT_PLAYER2_COLOR) &&
-        !playerList.get(0)
-        .getPlayerName().
-        equals(DEFAULT_PLAYER2_NAME)) {
-      player = newPlayer2;
-      playerList.add(newPlayer2);
-    } else {
-      throw new IllegalArgumentException("Cannot get default player "
-          + "because of identical name or color."
-          + " Please create your customized player instead.");
-    }
-    return player;
   }
 
   /**
@@ -89,40 +103,24 @@ public class PlayerFactory {
    * @return customized player.
    */
   public static Player getPlayer(Player player) {
-    if (player == null) {
-      throw new IllegalArgumentException("Player should not be null");
-    }
-    if (player.getPlayerColor().equals(Color.white)) {
-      throw new IllegalArgumentException("Color cannot be white.");
-    }
-    if (playerList.size() >1) {
-      throw new IllegalArgumentException("Already have two players. "
-          + "Cannot create more players.");
-    }
-    if (playerList.size() == 1 && 
-        player.getPlayerName().equals(playerList.get(0).getPlayerName())) {
-      throw new IllegalArgumentException("Player name should be different.");
-    }
-    if (playerList.size() == 1 && 
-        player.getPlayerColor().equals(playerList.get(0).getPlayerColor())) {
-      throw new IllegalArgumentException("Player color should be different.");
-    }
-    playerList.add(player);
-    return player;
+    return registry.register(player);
   }
 
   /**
    * @return list of players generated. 
    * At most two players are allowed.
+   * The list is a read-only snapshot: it no longer follows later
+   * players, and adding to it throws UnsupportedOperationException;
+   * add players with getPlayer and remove them with reset.
    */
   public static List<Player> getPlayerList(){
-    return playerList;
+    return Collections.unmodifiableList(registry.getPlayers());
   }
 
   /**
    * remove all the players.
    */
   public static void reset() {
-    playerList = new CopyOnWriteArrayList<Player>();
+    registry = new PlayerRegistry(2);
   }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package connectfour.impl;
 
 import java.awt.Color;
 
+import connectfour.api.MoveProvider;
 import connectfour.api.Player;
 
 /**
@@ -10,11 +11,18 @@ import connectfour.api.Player;
  * Default is human player.
  * No empty/null color, name, type is allowed. 
  * For withType, now only computer and human players are allowed.
+ * withTimeBudgetMillis lets a computer player search by time
+ * instead of to a fixed depth.
+ * withMoveProvider makes a computer player that chooses its columns
+ * with the given provider instead of the engines of the game.
  */
 public class PlayerImpl implements Player {
   private final String name;
   private final String type;
   private final Color color;
+  private final long timeBudgetMillis;
+  private final MoveProvider moveProvider;
+  private final boolean computer;
   private boolean isActive;
 
   public static class Builder {
@@ -22,6 +30,8 @@ public class PlayerImpl implements Player {
     private final Color color;
     private String type = "Human";
     private boolean isActive = false;
+    private long timeBudgetMillis = 0;
+    private MoveProvider moveProvider;
 
     public Builder(String name, Color color) {
       if (name == null || name.equals("")) {
@@ -50,7 +60,35 @@ public class PlayerImpl implements Player {
       return this;
     }
 
+    /**
+     * @param timeBudgetMillis time per move of a computer player,
+     * 0 to search to a fixed depth.
+     */
+    public Builder withTimeBudgetMillis(long timeBudgetMillis) {
+      if (timeBudgetMillis < 0) {
+        throw new IllegalArgumentException("time budget cannot be negative");
+      }
+      this.timeBudgetMillis = timeBudgetMillis;
+      return this;
+    }
+
+    /**
+     * @param moveProvider chooses the columns; makes the player a
+     * computer player.
+     */
+    public Builder withMoveProvider(MoveProvider moveProvider) {
+      if (moveProvider == null) {
+        throw new IllegalArgumentException("move provider cannot be null");
+      }
+      this.moveProvider = moveProvider;
+      this.type = "Computer";
+      return this;
+    }
+
     public PlayerImpl build() {
+      if (moveProvider != null && !type.equals("Computer")) {
+        throw new IllegalArgumentException("human cannot have a provider");
+      }
       return new PlayerImpl(this);
     }
   }
@@ -60,6 +98,9 @@ public class PlayerImpl implements Player {
     this.type = builder.type;
     this.color = builder.color;
     this.isActive = builder.isActive;
+    this.timeBudgetMillis = builder.timeBudgetMillis;
+    this.moveProvider = builder.moveProvider;
+    this.computer = type.equals("Computer");
   }
 
   @Override
@@ -77,6 +118,21 @@ public class PlayerImpl implements Player {
     return this.color;
   }
 
+  @Override
+  public boolean isComputer() {
+    return this.computer;
+  }
+
+  @Override
+  public MoveProvider getMoveProvider() {
+    return this.moveProvider;
+  }
+
+  @Override
+  public long getTimeBudgetMillis() {
+    return this.timeBudgetMillis;
+  }
+
   @Override
   public boolean getPlayerState() {
     return this.isActive;
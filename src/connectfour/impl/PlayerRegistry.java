@@ -0,0 +1,139 @@
+package connectfour.impl;
+
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import connectfour.api.Player;
+
+/**
+ * @author Huijuan Zou
+ * PlayerRegistry holds the players of one game, lobby or tournament.
+ * No two players may share a name or a color, and white, the color of
+ * the empty cells, is not allowed.
+ * Names and colors are indexed in hash maps, so registering checks them
+ * in constant time, and claiming a name or color is one putIfAbsent, so
+ * concurrent registrations need no lock and copy nothing. A player
+ * whose color is taken gives its name back; in that short window a
+ * registration of the same name may be refused.
+ * The capacity caps the number of players, e.g. two for a game.
+ */
+public class PlayerRegistry {
+  public static final int UNLIMITED = Integer.MAX_VALUE;
+  private final int capacity;
+  private final AtomicInteger size = new AtomicInteger();
+  private final Map<String, Player> byName =
+      new ConcurrentHashMap<String, Player>();
+  private final Map<Color, Player> byColor =
+      new ConcurrentHashMap<Color, Player>();
+  private final Queue<Player> players = new ConcurrentLinkedQueue<Player>();
+
+  /**
+   * Registry without a cap, e.g. for a tournament.
+   */
+  public PlayerRegistry() {
+    this(UNLIMITED);
+  }
+
+  /**
+   * @param capacity maximum number of players, at least 1.
+   */
+  public PlayerRegistry(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("Capacity must be positive");
+    }
+    this.capacity = capacity;
+  }
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  /**
+   * @param player player to add.
+   * @return the player.
+   * @throws IllegalArgumentException if the registry is full, or the
+   * name or color is taken or the color is white.
+   */
+  public Player register(Player player) {
+    if (player == null) {
+      throw new IllegalArgumentException("Player should not be null");
+    }
+    if (player.getPlayerColor().equals(Color.white)) {
+      throw new IllegalArgumentException("Color cannot be white.");
+    }
+    if (size.incrementAndGet() > capacity) {
+      size.decrementAndGet();
+      throw new IllegalArgumentException("Already have " + capacity
+          + " players. Cannot create more players.");
+    }
+    if (byName.putIfAbsent(player.getPlayerName(), player) != null) {
+      size.decrementAndGet();
+      throw new IllegalArgumentException("Player name should be different.");
+    }
+    if (byColor.putIfAbsent(player.getPlayerColor(), player) != null) {
+      byName.remove(player.getPlayerName(), player);
+      size.decrementAndGet();
+      throw new IllegalArgumentException("Player color should be different.");
+    }
+    players.add(player);
+    return player;
+  }
+
+  /**
+   * @param player player to remove.
+   * @return true if the player was registered here.
+   */
+  public boolean unregister(Player player) {
+    if (player == null || !byName.remove(player.getPlayerName(), player)) {
+      return false;
+    }
+    byColor.remove(player.getPlayerColor(), player);
+    players.remove(player);
+    size.decrementAndGet();
+    return true;
+  }
+
+  /**
+   * @param name player name.
+   * @return player with the name, null if none.
+   */
+  public Player getByName(String name) {
+    return name == null ? null : byName.get(name);
+  }
+
+  /**
+   * @param color player color.
+   * @return player with the color, null if none.
+   */
+  public Player getByColor(Color color) {
+    return color == null ? null : byColor.get(color);
+  }
+
+  public boolean isNameTaken(String name) {
+    return name != null && byName.containsKey(name);
+  }
+
+  public boolean isColorTaken(Color color) {
+    return color != null && byColor.containsKey(color);
+  }
+
+  /**
+   * @return number of players registered.
+   */
+  public int size() {
+    return size.get();
+  }
+
+  /**
+   * @return snapshot of the players, in the order they registered.
+   */
+  public List<Player> getPlayers() {
+    return new ArrayList<Player>(players);
+  }
+}
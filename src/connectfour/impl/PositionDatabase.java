@@ -0,0 +1,207 @@
+package connectfour.impl;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * @author Huijuan Zou
+ * PositionDatabase answers questions about every position of an
+ * archive of games, e.g. how often column 3 was the winning reply.
+ * The file, written by PositionDatabaseBuilder, is a 20 byte header
+ * (magic, version, columns, rows and connect, entry count) followed by
+ * fixed-size entries sorted by position key: the key as a long, wins,
+ * draws and losses of the side to move as ints, then for every column
+ * the games playing it next and the games its player won, as ints.
+ * The file is memory-mapped in chunks of up to 1G, so it is never read
+ * as a whole: a lookup is a binary search touching a few pages, and
+ * files of hundreds of millions of positions only need the address
+ * space. Keys are the canonical solver keys, the smaller of discs of
+ * the side to move plus the mask and its mirror, in the BitBoard
+ * layout: a position and its mirror share an entry whose columns are
+ * those of the canonical one, and lookups of the mirror get the columns
+ * back mirrored.
+ */
+public class PositionDatabase {
+  public static final int MAGIC = 0x43345044;
+  public static final int VERSION = 2;
+  static final int HEADER_BYTES = 20;
+  private static final long CHUNK_BYTES = 1L << 30;
+  private final Rules rules;
+  private final int entryBytes;
+  private final long size;
+  private final long entriesPerChunk;
+  private final MappedByteBuffer[] chunks;
+
+  private PositionDatabase(Rules rules, long size, MappedByteBuffer[] chunks,
+      long entriesPerChunk) {
+    this.rules = rules;
+    this.entryBytes = entryBytes(rules);
+    this.size = size;
+    this.chunks = chunks;
+    this.entriesPerChunk = entriesPerChunk;
+  }
+
+  /**
+   * @return bytes of an entry for the rules.
+   */
+  static int entryBytes(Rules rules) {
+    return 20 + 8 * rules.getColNum();
+  }
+
+  /**
+   * Memory-map a database file.
+   * @param path file written by PositionDatabaseBuilder.
+   * @return the database.
+   * @throws IOException if the file cannot be read or is not a database.
+   */
+  public static PositionDatabase open(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path,
+        StandardOpenOption.READ)) {
+      long length = channel.size();
+      if (length < HEADER_BYTES) {
+        throw new IOException("Not a position database: " + path);
+      }
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY,
+          0, HEADER_BYTES);
+      header.order(ByteOrder.BIG_ENDIAN);
+      if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION) {
+        throw new IOException("Not a position database: " + path);
+      }
+      Rules rules;
+      try {
+        rules = new Rules(header.get(8), header.get(9), header.get(10));
+      } catch (IllegalArgumentException e) {
+        throw new IOException("Not a position database: " + path);
+      }
+      long size = header.getLong(12);
+      int entryBytes = entryBytes(rules);
+      if (size < 0 || HEADER_BYTES + size * entryBytes != length) {
+        throw new IOException("Truncated position database: " + path);
+      }
+      long perChunk = CHUNK_BYTES / entryBytes;
+      int chunkCount = (int) ((size + perChunk - 1) / perChunk);
+      MappedByteBuffer[] chunks = new MappedByteBuffer[chunkCount];
+      for (int i = 0; i < chunkCount; i++) {
+        long first = i * perChunk;
+        long entries = Math.min(perChunk, size - first);
+        chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+            HEADER_BYTES + first * entryBytes, entries * entryBytes);
+      }
+      return new PositionDatabase(rules, size, chunks, perChunk);
+    }
+  }
+
+  public Rules getRules() {
+    return rules;
+  }
+
+  /**
+   * @return number of positions.
+   */
+  public long size() {
+    return size;
+  }
+
+  /**
+   * @param moves columns played from the empty board.
+   * @return stats of the position reached, null if no game reached it.
+   */
+  public PositionStats get(int... moves) {
+    return getByKey(key(rules, moves));
+  }
+
+  /**
+   * @param key solver key of the position, canonical or not.
+   * @return stats of the position, null if no game reached it.
+   */
+  public PositionStats getByKey(long key) {
+    long mirroredKey = BitBoard.mirror(key, rules);
+    boolean mirrored = mirroredKey < key;
+    if (mirrored) {
+      key = mirroredKey;
+    }
+    long low = 0;
+    long high = size - 1;
+    while (low <= high) {
+      long mid = (low + high) >>> 1;
+      long midKey = chunk(mid).getLong(offset(mid));
+      if (midKey < key) {
+        low = mid + 1;
+      } else if (midKey > key) {
+        high = mid - 1;
+      } else {
+        return read(mid, mirrored);
+      }
+    }
+    return null;
+  }
+
+  private MappedByteBuffer chunk(long index) {
+    return chunks[(int) (index / entriesPerChunk)];
+  }
+
+  private int offset(long index) {
+    return (int) (index % entriesPerChunk) * entryBytes;
+  }
+
+  private PositionStats read(long index, boolean mirrored) {
+    MappedByteBuffer chunk = chunk(index);
+    int offset = offset(index) + 8;
+    int colNum = rules.getColNum();
+    int[] played = new int[colNum];
+    int[] won = new int[colNum];
+    for (int col = 0; col < colNum; col++) {
+      int stored = mirrored ? colNum - 1 - col : col;
+      played[col] = chunk.getInt(offset + 12 + 8 * stored);
+      won[col] = chunk.getInt(offset + 16 + 8 * stored);
+    }
+    return new PositionStats(chunk.getInt(offset), chunk.getInt(offset + 4),
+        chunk.getInt(offset + 8), played, won);
+  }
+
+  /**
+   * @param rules rules whose board fits in a long.
+   * @param moves columns played from the empty board.
+   * @return solver key of the position reached.
+   */
+  public static long key(Rules rules, int... moves) {
+    int h1 = rules.getColumnBits();
+    long current = 0L;
+    long mask = 0L;
+    for (int col : moves) {
+      if (col < 0 || col >= rules.getColNum()) {
+        throw new IllegalArgumentException("Column index out of range");
+      }
+      if ((mask >>> (col * h1 + rules.getRowNum() - 1) & 1L) != 0) {
+        throw new IllegalArgumentException("Column is full");
+      }
+      current ^= mask;
+      mask |= mask + (1L << (col * h1));
+    }
+    return current + mask;
+  }
+
+  /**
+   * @param args database file and the moves of a position as digits
+   * from 1, e.g. 4453; the empty board if left out.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: PositionDatabase db-file [moves]");
+      System.exit(1);
+    }
+    PositionDatabase db = open(Paths.get(args[0]));
+    String text = args.length > 1 ? args[1] : "";
+    int[] moves = new int[text.length()];
+    for (int i = 0; i < moves.length; i++) {
+      moves[i] = text.charAt(i) - '1';
+    }
+    System.out.println(db.size() + " positions of " + db.getRules());
+    System.out.println(db.get(moves));
+  }
+}
@@ -0,0 +1,331 @@
+package connectfour.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * @author Huijuan Zou
+ * PositionDatabaseBuilder builds a PositionDatabase from game records
+ * with an external sort, so the archive never has to fit in memory.
+ * Every position of every finished game is one observation packed in a
+ * long: the canonical key, the column played next and the result for
+ * the side to move. The mirrored discs are played along with the game,
+ * and a position whose mirror has the smaller key is observed as the
+ * mirror, with the mirrored column. Observations fill a buffer; a full
+ * buffer is sorted, summed per position and written as a sorted run to
+ * a temporary file. build then merges the runs, summing positions found
+ * in several runs, straight into the database file.
+ * Keys take the upper 56 bits of an observation, so the board must have
+ * at most 56 cells with the spare cell of every column, e.g. 7x6 or
+ * 8x6; the sign bit is flipped while sorting so that the longs sort as
+ * the unsigned keys. Counts stop at Integer.MAX_VALUE. Unfinished games
+ * and games of other rules are skipped. Not thread-safe.
+ */
+public class PositionDatabaseBuilder implements Closeable {
+  public static final int DEFAULT_RUN_SIZE = 1 << 23;
+  private static final int KEY_BITS = 56;
+  private static final int NO_MOVE = 63;
+  private static final int WIN = 0;
+  private static final int DRAW = 1;
+  private static final int LOSS = 2;
+  private static final int BUFFER_BYTES = 1 << 16;
+  private final Rules rules;
+  private final Path tempDir;
+  private final long[] observations;
+  private final List<Path> runs = new ArrayList<Path>();
+  private int count;
+  private long games;
+
+  /**
+   * @param rules rules of the games to index.
+   * @param tempDir directory of the sorted runs.
+   * @param runSize observations sorted in memory at a time, 8 bytes
+   * each.
+   */
+  public PositionDatabaseBuilder(Rules rules, Path tempDir, int runSize) {
+    if (rules == null || tempDir == null) {
+      throw new IllegalArgumentException("Arguments cannot be null");
+    }
+    if (rules.getColNum() * rules.getColumnBits() > KEY_BITS) {
+      throw new IllegalArgumentException("Board too large for the keys");
+    }
+    if (runSize < 1) {
+      throw new IllegalArgumentException("Run size must be positive");
+    }
+    this.rules = rules;
+    this.tempDir = tempDir;
+    this.observations = new long[runSize];
+  }
+
+  /**
+   * @param record game to index.
+   * @return false if the game is skipped, unfinished or of other rules.
+   */
+  public boolean add(GameRecord record) throws IOException {
+    if (!rules.equals(record.getRules())
+        || record.getResult() == GameRecord.UNFINISHED) {
+      return false;
+    }
+    int colNum = rules.getColNum();
+    int h1 = rules.getColumnBits();
+    long current = 0L;
+    long mask = 0L;
+    long mirroredCurrent = 0L;
+    long mirroredMask = 0L;
+    int moves = record.getMoveCount();
+    for (int ply = 0; ply <= moves; ply++) {
+      int mover = ply & 1;
+      int result = record.getResult() == GameRecord.DRAW ? DRAW
+          : record.getResult() == mover ? WIN : LOSS;
+      int col = ply < moves ? record.getMove(ply) : NO_MOVE;
+      long key = current + mask;
+      long mirroredKey = mirroredCurrent + mirroredMask;
+      int observed = col;
+      if (mirroredKey < key) {
+        key = mirroredKey;
+        observed = col == NO_MOVE ? NO_MOVE : colNum - 1 - col;
+      }
+      if (count == observations.length) {
+        writeRun();
+      }
+      observations[count++] = (key << (Long.SIZE - KEY_BITS)
+          | (long) observed << 2 | result) ^ Long.MIN_VALUE;
+      if (ply < moves) {
+        current ^= mask;
+        mask |= mask + (1L << (col * h1));
+        mirroredCurrent ^= mirroredMask;
+        mirroredMask |= mirroredMask + (1L << ((colNum - 1 - col) * h1));
+      }
+    }
+    games++;
+    return true;
+  }
+
+  /**
+   * @param records record file whose games to index.
+   * @return number of games indexed.
+   */
+  public long addAll(Path records) throws IOException {
+    long added = 0;
+    try (GameRecordReader reader = GameRecordReader.open(records)) {
+      GameRecord record;
+      while ((record = reader.next()) != null) {
+        if (add(record)) {
+          added++;
+        }
+      }
+    }
+    return added;
+  }
+
+  /**
+   * @return number of games indexed so far.
+   */
+  public long getGames() {
+    return games;
+  }
+
+  /**
+   * Merge the runs into the database file and delete them.
+   * @param path database file.
+   * @return number of positions written.
+   */
+  public long build(Path path) throws IOException {
+    if (count > 0) {
+      writeRun();
+    }
+    int colNum = rules.getColNum();
+    PriorityQueue<Run> queue = new PriorityQueue<Run>(
+        Math.max(1, runs.size()), (a, b) -> Long.compare(a.key, b.key));
+    long size = 0;
+    try (FileChannel out = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+      buffer.putInt(PositionDatabase.MAGIC).putInt(PositionDatabase.VERSION)
+          .put((byte) colNum).put((byte) rules.getRowNum())
+          .put((byte) rules.getConnect()).put((byte) 0).putLong(0L);
+      for (Path run : runs) {
+        Run reader = new Run(run, colNum);
+        if (reader.next()) {
+          queue.add(reader);
+        } else {
+          reader.close();
+        }
+      }
+      long[] counts = new long[3 + 2 * colNum];
+      while (!queue.isEmpty()) {
+        long key = queue.peek().key;
+        Arrays.fill(counts, 0L);
+        while (!queue.isEmpty() && queue.peek().key == key) {
+          Run run = queue.poll();
+          for (int i = 0; i < counts.length; i++) {
+            counts[i] += run.counts[i];
+          }
+          if (run.next()) {
+            queue.add(run);
+          } else {
+            run.close();
+          }
+        }
+        if (buffer.remaining() < PositionDatabase.entryBytes(rules)) {
+          drain(out, buffer);
+        }
+        buffer.putLong(key);
+        for (long c : counts) {
+          buffer.putInt((int) Math.min(c, Integer.MAX_VALUE));
+        }
+        size++;
+      }
+      drain(out, buffer);
+      buffer.putLong(size).flip();
+      out.write(buffer, PositionDatabase.HEADER_BYTES - 8);
+    } finally {
+      for (Run run : queue) {
+        run.close();
+      }
+      close();
+    }
+    return size;
+  }
+
+  /**
+   * Delete the runs written so far.
+   */
+  @Override
+  public void close() throws IOException {
+    for (Path run : runs) {
+      Files.deleteIfExists(run);
+    }
+    runs.clear();
+    count = 0;
+  }
+
+  /**
+   * Sort the observations and write them summed per position.
+   */
+  private void writeRun() throws IOException {
+    Arrays.sort(observations, 0, count);
+    for (int i = 0; i < count; i++) {
+      observations[i] ^= Long.MIN_VALUE;
+    }
+    Path run = Files.createTempFile(tempDir, "positions", ".run");
+    runs.add(run);
+    int colNum = rules.getColNum();
+    int[] counts = new int[3 + 2 * colNum];
+    try (FileChannel out = FileChannel.open(run, StandardOpenOption.WRITE)) {
+      ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+      int i = 0;
+      while (i < count) {
+        long key = observations[i] >>> (Long.SIZE - KEY_BITS);
+        Arrays.fill(counts, 0);
+        for (; i < count
+            && observations[i] >>> (Long.SIZE - KEY_BITS) == key; i++) {
+          int result = (int) observations[i] & 3;
+          int col = (int) (observations[i] >>> 2) & NO_MOVE;
+          counts[result]++;
+          if (col != NO_MOVE) {
+            counts[3 + 2 * col]++;
+            if (result == WIN) {
+              counts[4 + 2 * col]++;
+            }
+          }
+        }
+        if (buffer.remaining() < PositionDatabase.entryBytes(rules)) {
+          drain(out, buffer);
+        }
+        buffer.putLong(key);
+        for (int c : counts) {
+          buffer.putInt(c);
+        }
+      }
+      drain(out, buffer);
+    }
+    count = 0;
+  }
+
+  private static void drain(FileChannel out, ByteBuffer buffer)
+      throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      out.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Sorted run being merged, positioned on its current entry.
+   */
+  private static final class Run implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_BYTES);
+    private final long[] counts;
+    private final int entryBytes;
+    private long key;
+
+    private Run(Path path, int colNum) throws IOException {
+      this.channel = FileChannel.open(path, StandardOpenOption.READ);
+      this.counts = new long[3 + 2 * colNum];
+      this.entryBytes = 8 + 4 * counts.length;
+      buffer.flip();
+    }
+
+    /**
+     * @return false at the end of the run.
+     */
+    private boolean next() throws IOException {
+      if (buffer.remaining() < entryBytes) {
+        buffer.compact();
+        while (buffer.position() < entryBytes && channel.read(buffer) > 0) {
+          // fill at least one entry
+        }
+        buffer.flip();
+        if (buffer.remaining() < entryBytes) {
+          return false;
+        }
+      }
+      key = buffer.getLong();
+      for (int i = 0; i < counts.length; i++) {
+        counts[i] = buffer.getInt();
+      }
+      return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+      channel.close();
+    }
+  }
+
+  /**
+   * @param args database file to write, then record files to index.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 2) {
+      System.err.println("Usage: PositionDatabaseBuilder db-file "
+          + "record-file...");
+      System.exit(1);
+    }
+    Path out = Paths.get(args[0]);
+    Path dir = out.toAbsolutePath().getParent();
+    long start = System.nanoTime();
+    try (PositionDatabaseBuilder builder =
+        new PositionDatabaseBuilder(Rules.STANDARD, dir, DEFAULT_RUN_SIZE)) {
+      for (int i = 1; i < args.length; i++) {
+        builder.addAll(Paths.get(args[i]));
+      }
+      long positions = builder.build(out);
+      System.out.printf("%d games, %d positions in %.1fs%n",
+          builder.getGames(), positions, (System.nanoTime() - start) / 1e9);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package connectfour.impl;
+
+/**
+ * @author Huijuan Zou
+ * PositionStats is what a PositionDatabase knows of one position:
+ * how the games through it ended for the side to move, and for every
+ * column how often it was played next and how often the side playing
+ * it went on to win.
+ */
+public final class PositionStats {
+  private final int wins;
+  private final int draws;
+  private final int losses;
+  private final int[] played;
+  private final int[] won;
+
+  PositionStats(int wins, int draws, int losses, int[] played, int[] won) {
+    this.wins = wins;
+    this.draws = draws;
+    this.losses = losses;
+    this.played = played;
+    this.won = won;
+  }
+
+  /**
+   * @return number of games through the position.
+   */
+  public long getGames() {
+    return (long) wins + draws + losses;
+  }
+
+  /**
+   * @return games won by the side to move.
+   */
+  public int getWins() {
+    return wins;
+  }
+
+  public int getDraws() {
+    return draws;
+  }
+
+  /**
+   * @return games lost by the side to move.
+   */
+  public int getLosses() {
+    return losses;
+  }
+
+  public int getColNum() {
+    return played.length;
+  }
+
+  /**
+   * @param colIndex column index.
+   * @return games in which the column was played next.
+   */
+  public int getPlayed(int colIndex) {
+    return played[colIndex];
+  }
+
+  /**
+   * @param colIndex column index.
+   * @return games in which the column was played next and its player won.
+   */
+  public int getWon(int colIndex) {
+    return won[colIndex];
+  }
+
+  /**
+   * @param colIndex column index.
+   * @return share of the games playing the column next that its player
+   * won, 0 if it was never played.
+   */
+  public double getWinRate(int colIndex) {
+    return played[colIndex] == 0 ? 0 : (double) won[colIndex]
+        / played[colIndex];
+  }
+
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int col = 0; col < played.length; col++) {
+      sb.append(col == 0 ? "" : " ").append(won[col]).append('/')
+          .append(played[col]);
+    }
+    return "PositionStats [wins=" + wins + ", draws=" + draws + ", losses="
+        + losses + ", won/played=" + sb + "]";
+  }
+}
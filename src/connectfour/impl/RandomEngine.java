@@ -0,0 +1,48 @@
+package connectfour.impl;
+
+import java.util.SplittableRandom;
+
+/**
+ * @author Huijuan Zou
+ * RandomEngine plays a random playable column, like the first
+ * computer player did. It is the baseline opponent for simulations.
+ * Not thread-safe; one engine per thread.
+ */
+public class RandomEngine implements SearchEngine {
+  private final SplittableRandom random;
+
+  public RandomEngine() {
+    this(new SplittableRandom());
+  }
+
+  /**
+   * @param seed seed of the random columns, for repeatable games.
+   */
+  public RandomEngine(long seed) {
+    this(new SplittableRandom(seed));
+  }
+
+  private RandomEngine(SplittableRandom random) {
+    this.random = random;
+  }
+
+  @Override
+  public SearchResult search(BitBoard board, int player) {
+    long start = System.nanoTime();
+    int col = chooseMove(board, player);
+    return new SearchResult(col, 0, 0, 0, System.nanoTime() - start);
+  }
+
+  @Override
+  public int chooseMove(BitBoard board, int player) {
+    if (board.isFull()) {
+      throw new IllegalArgumentException("Board is full");
+    }
+    int colNum = board.getRules().getColNum();
+    int col = random.nextInt(colNum);
+    while (!board.canPlay(col)) {
+      col = random.nextInt(colNum);
+    }
+    return col;
+  }
+}
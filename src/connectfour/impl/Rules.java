@@ -0,0 +1,189 @@
+package connectfour.impl;
+
+/**
+ * @author Huijuan Zou
+ * Rules of a game variant: number of columns and rows of the board and
+ * number of discs in a line that wins, e.g. 7x6 connect four or 10x9
+ * connect five.
+ * Cells are numbered column by column from the bottom, with one spare
+ * cell on top of every column, as in BitBoard: cell = col * (rows + 1)
+ * + row. Boards whose cells fit in one long are BitBoards; larger ones
+ * spread the cells over several longs.
+ * The windows, the lines of connect cells that can win, are computed
+ * once per rules and shared by every game using them.
+ */
+public final class Rules {
+  public static final Rules STANDARD = new Rules(7, 6, 4);
+  public static final int MAX_SIZE = 32;
+  private final int colNum;
+  private final int rowNum;
+  private final int connect;
+  private final int[][] windows;
+  private final int[][] cellWindows;
+
+  /**
+   * @param colNum number of columns, 1 to MAX_SIZE.
+   * @param rowNum number of rows, 1 to MAX_SIZE.
+   * @param connect discs in a line to win, at least 2 and at most the
+   * longer side of the board.
+   */
+  public Rules(int colNum, int rowNum, int connect) {
+    if (colNum < 1 || colNum > MAX_SIZE || rowNum < 1 || rowNum > MAX_SIZE) {
+      throw new IllegalArgumentException("Board size out of range");
+    }
+    if (connect < 2 || connect > Math.max(colNum, rowNum)) {
+      throw new IllegalArgumentException("Connect out of range");
+    }
+    this.colNum = colNum;
+    this.rowNum = rowNum;
+    this.connect = connect;
+    this.windows = windows();
+    this.cellWindows = cellWindows();
+  }
+
+  /**
+   * @param text rules as COLSxROWS or COLSxROWSxCONNECT, e.g. 8x7 or
+   * 10x9x5; connect is 4 if left out.
+   * @return the rules.
+   */
+  public static Rules parse(String text) {
+    if (text == null) {
+      throw new IllegalArgumentException("Rules cannot be null");
+    }
+    String[] parts = text.split("x");
+    if (parts.length < 2 || parts.length > 3) {
+      throw new IllegalArgumentException("Rules must be COLSxROWS[xCONNECT]");
+    }
+    try {
+      int connect = parts.length == 3 ? Integer.parseInt(parts[2]) : 4;
+      return new Rules(Integer.parseInt(parts[0]),
+          Integer.parseInt(parts[1]), connect);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Rules must be COLSxROWS[xCONNECT]");
+    }
+  }
+
+  public int getColNum() {
+    return colNum;
+  }
+
+  public int getRowNum() {
+    return rowNum;
+  }
+
+  public int getConnect() {
+    return connect;
+  }
+
+  /**
+   * @return number of cells of the board.
+   */
+  public int getCellNum() {
+    return colNum * rowNum;
+  }
+
+  /**
+   * @return number of bits per column, rows plus the spare one.
+   */
+  public int getColumnBits() {
+    return rowNum + 1;
+  }
+
+  /**
+   * @return true if all the cells fit in one long.
+   */
+  public boolean fitsLong() {
+    return colNum * getColumnBits() <= Long.SIZE;
+  }
+
+  /**
+   * @return an empty board for the rules: a BitBoard if it fits in one
+   * long, otherwise a MultiWordBoard.
+   */
+  public Board newBoard() {
+    if (fitsLong()) {
+      return new BitBoard(this);
+    }
+    return new MultiWordBoard(this);
+  }
+
+  /**
+   * @return cells of every window, each window connect cells long.
+   */
+  int[][] getWindows() {
+    return windows;
+  }
+
+  /**
+   * @return windows through every cell, indexed by cell.
+   */
+  int[][] getCellWindows() {
+    return cellWindows;
+  }
+
+  private int[][] windows() {
+    int[][] directions = {{0, 1}, {1, 0}, {1, 1}, {1, -1}};
+    int[][] all = new int[colNum * rowNum * directions.length][];
+    int count = 0;
+    for (int col = 0; col < colNum; col++) {
+      for (int row = 0; row < rowNum; row++) {
+        for (int[] direction : directions) {
+          int lastCol = col + (connect - 1) * direction[0];
+          int lastRow = row + (connect - 1) * direction[1];
+          if (lastCol >= colNum || lastRow < 0 || lastRow >= rowNum) {
+            continue;
+          }
+          int[] window = new int[connect];
+          for (int i = 0; i < connect; i++) {
+            window[i] = (col + i * direction[0]) * getColumnBits()
+                + row + i * direction[1];
+          }
+          all[count++] = window;
+        }
+      }
+    }
+    int[][] result = new int[count][];
+    System.arraycopy(all, 0, result, 0, count);
+    return result;
+  }
+
+  private int[][] cellWindows() {
+    int[] counts = new int[colNum * getColumnBits()];
+    for (int[] window : windows) {
+      for (int cell : window) {
+        counts[cell]++;
+      }
+    }
+    int[][] result = new int[counts.length][];
+    for (int cell = 0; cell < counts.length; cell++) {
+      result[cell] = new int[counts[cell]];
+      counts[cell] = 0;
+    }
+    for (int w = 0; w < windows.length; w++) {
+      for (int cell : windows[w]) {
+        result[cell][counts[cell]++] = w;
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    if (!(other instanceof Rules)) {
+      return false;
+    }
+    Rules rules = (Rules) other;
+    return colNum == rules.colNum && rowNum == rules.rowNum
+        && connect == rules.connect;
+  }
+
+  @Override
+  public int hashCode() {
+    return (colNum * 31 + rowNum) * 31 + connect;
+  }
+
+  @Override
+  public String toString() {
+    return colNum + "x" + rowNum + "x" + connect;
+  }
+}
@@ -0,0 +1,53 @@
+package connectfour.impl;
+
+/**
+ * @author Huijuan Zou
+ * SearchEngine is how a computer player chooses its column.
+ * Implementations may keep state between searches, e.g. a
+ * transposition table, and are not required to be thread-safe.
+ */
+public interface SearchEngine {
+
+  /**
+   * Search the best column for a player.
+   * @param board board of the game, must not be full.
+   * @param player 0 or 1, player to move.
+   * @return best column with its score and search statistics.
+   */
+  SearchResult search(BitBoard board, int player);
+
+  /**
+   * Search the best column within a time budget. Engines without time
+   * control ignore the budget.
+   * @param board board of the game, must not be full.
+   * @param player 0 or 1, player to move.
+   * @param timeBudgetMillis time budget for this search, 0 for none.
+   * @return best column with its score and search statistics.
+   */
+  default SearchResult search(BitBoard board, int player,
+      long timeBudgetMillis) {
+    return search(board, player);
+  }
+
+  /**
+   * Score a position without choosing a column. Engines that can score
+   * cheaper than they search override this, e.g. the solver.
+   * @param board board of the game, must not be over.
+   * @param player 0 or 1, player to move.
+   * @return score of the position for the player, as search scores it.
+   */
+  default int evaluate(BitBoard board, int player) {
+    return search(board, player).getScore();
+  }
+
+  /**
+   * Choose a column without statistics. Engines that can choose
+   * without allocating override this; simulations call it every move.
+   * @param board board of the game, must not be full.
+   * @param player 0 or 1, player to move.
+   * @return playable column.
+   */
+  default int chooseMove(BitBoard board, int player) {
+    return search(board, player).getBestMove();
+  }
+}
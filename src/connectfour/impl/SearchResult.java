@@ -0,0 +1,67 @@
+package connectfour.impl;
+
+/**
+ * @author Huijuan Zou
+ * SearchResult is what a computer player search returns:
+ * the chosen column, its score, how deep the search went
+ * and how many nodes it visited in how much time.
+ */
+public class SearchResult {
+  private final int bestMove;
+  private final int score;
+  private final int depth;
+  private final long nodes;
+  private final long elapsedNanos;
+
+  public SearchResult(int bestMove, int score, int depth,
+      long nodes, long elapsedNanos) {
+    if (bestMove < 0) {
+      throw new IllegalArgumentException("move cannot be negative");
+    }
+    if (nodes < 0 || elapsedNanos < 0) {
+      throw new IllegalArgumentException("counters cannot be negative");
+    }
+    this.bestMove = bestMove;
+    this.score = score;
+    this.depth = depth;
+    this.nodes = nodes;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public int getBestMove() {
+    return bestMove;
+  }
+
+  public int getScore() {
+    return score;
+  }
+
+  public int getDepth() {
+    return depth;
+  }
+
+  public long getNodes() {
+    return nodes;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  /**
+   * @return nodes visited per second, 0 if no time was measured.
+   */
+  public long getNodesPerSecond() {
+    if (elapsedNanos == 0) {
+      return 0;
+    }
+    return (long) (nodes * 1e9 / elapsedNanos);
+  }
+
+  @Override
+  public String toString() {
+    return "SearchResult [bestMove=" + bestMove + ", score=" + score
+        + ", depth=" + depth + ", nodes=" + nodes
+        + ", nodesPerSecond=" + getNodesPerSecond() + "]";
+  }
+}
@@ -0,0 +1,207 @@
+package connectfour.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import connectfour.api.MoveProvider;
+
+/**
+ * @author Huijuan Zou
+ * SelfPlaySimulator plays many headless games between two engines,
+ * A and B, on all cores. A moves first in even games and B in odd ones.
+ * Every worker thread gets its own engines from the suppliers and one
+ * BitBoard reused for all its games, and counts outcomes in local
+ * primitives, so the harness allocates nothing per move or per game.
+ * The sides are SearchEngines rather than Players, which would need a
+ * model per game; withProviders plays the MoveProviders of computer
+ * players instead, e.g. those given to PlayerImpl.Builder, through a
+ * GameState kept in step with the board.
+ * Usage: SelfPlaySimulator games [depthA] [depthB] [threads],
+ * where depth 0 is a random player.
+ */
+public class SelfPlaySimulator {
+  private final Supplier<? extends SearchEngine> engineA;
+  private final Supplier<? extends SearchEngine> engineB;
+  private final int threads;
+
+  /**
+   * @param engineA makes one engine A per worker thread.
+   * @param engineB makes one engine B per worker thread.
+   * @param threads number of worker threads.
+   */
+  public SelfPlaySimulator(Supplier<? extends SearchEngine> engineA,
+      Supplier<? extends SearchEngine> engineB, int threads) {
+    if (engineA == null || engineB == null) {
+      throw new IllegalArgumentException("Engines cannot be null");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("Threads must be positive");
+    }
+    this.engineA = engineA;
+    this.engineB = engineB;
+    this.threads = threads;
+  }
+
+  /**
+   * @param providerA makes one move provider A per worker thread.
+   * @param providerB makes one move provider B per worker thread.
+   * @param threads number of worker threads.
+   * @return simulator of the two providers on the standard board.
+   */
+  public static SelfPlaySimulator withProviders(
+      Supplier<? extends MoveProvider> providerA,
+      Supplier<? extends MoveProvider> providerB, int threads) {
+    if (providerA == null || providerB == null) {
+      throw new IllegalArgumentException("Providers cannot be null");
+    }
+    return new SelfPlaySimulator(() -> new ProviderEngine(providerA.get()),
+        () -> new ProviderEngine(providerB.get()), threads);
+  }
+
+  /**
+   * @param args number of games, optional depths of A and B and threads.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    if (args.length < 1) {
+      System.err.println("Usage: SelfPlaySimulator games [depthA] [depthB] "
+          + "[threads]");
+      System.exit(2);
+    }
+    long games = Long.parseLong(args[0]);
+    int depthA = args.length > 1 ? Integer.parseInt(args[1]) : 0;
+    int depthB = args.length > 2 ? Integer.parseInt(args[2]) : 0;
+    int threads = args.length > 3 ? Integer.parseInt(args[3])
+        : Runtime.getRuntime().availableProcessors();
+    SelfPlaySimulator simulator = new SelfPlaySimulator(engine(depthA),
+        engine(depthB), threads);
+    System.out.println(simulator.run(games));
+  }
+
+  private static Supplier<SearchEngine> engine(int depth) {
+    if (depth == 0) {
+      return RandomEngine::new;
+    }
+    return () -> new NegamaxSearch(depth, 0, new TranspositionTableImpl(1));
+  }
+
+  /**
+   * Play games and wait for all of them.
+   * @param games number of games.
+   * @return outcomes seen from engine A.
+   */
+  public SimulationResult run(long games) throws InterruptedException {
+    if (games < 0) {
+      throw new IllegalArgumentException("Games cannot be negative");
+    }
+    long start = System.nanoTime();
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    try {
+      List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+      for (int t = 0; t < threads; t++) {
+        long first = games * t / threads;
+        long last = games * (t + 1) / threads;
+        futures.add(executor.submit(() -> play(first, last)));
+      }
+      long[] total = new long[4];
+      for (Future<long[]> future : futures) {
+        long[] counts = future.get();
+        for (int i = 0; i < total.length; i++) {
+          total[i] += counts[i];
+        }
+      }
+      return new SimulationResult(total[0], total[1], total[2], total[3],
+          System.nanoTime() - start);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Simulation failed", e.getCause());
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Play games first to last - 1 on the calling thread.
+   * @return wins, draws and losses of A, then total plies.
+   */
+  private long[] play(long first, long last) {
+    SearchEngine[] engines = {engineA.get(), engineB.get()};
+    BitBoard board = new BitBoard();
+    long wins = 0;
+    long draws = 0;
+    long losses = 0;
+    long plies = 0;
+    for (long game = first; game < last; game++) {
+      board.reset();
+      int engineToMove = (int) (game & 1);
+      int player = 0;
+      while (true) {
+        int col = engines[engineToMove].chooseMove(board, player);
+        board.play(col, player);
+        if (board.isWin(player)) {
+          if (engineToMove == 0) {
+            wins++;
+          } else {
+            losses++;
+          }
+          break;
+        }
+        if (board.isFull()) {
+          draws++;
+          break;
+        }
+        player ^= 1;
+        engineToMove ^= 1;
+      }
+      plies += board.getMoveCount();
+    }
+    return new long[] {wins, draws, losses, plies};
+  }
+
+  /**
+   * Plays a MoveProvider as an engine. The provider sees a GameState
+   * that replays the moves of the board it has not seen yet, and starts
+   * over when the board is a new game.
+   */
+  private static final class ProviderEngine implements SearchEngine {
+    private final MoveProvider provider;
+    private final GameState state = new GameState();
+
+    private ProviderEngine(MoveProvider provider) {
+      if (provider == null) {
+        throw new IllegalArgumentException("Provider cannot be null");
+      }
+      this.provider = provider;
+    }
+
+    @Override
+    public SearchResult search(BitBoard board, int player) {
+      long start = System.nanoTime();
+      int col = chooseMove(board, player);
+      return new SearchResult(col, 0, 0, 0, System.nanoTime() - start);
+    }
+
+    @Override
+    public int chooseMove(BitBoard board, int player) {
+      int seen = state.getMoveCount();
+      boolean sameGame = seen <= board.getMoveCount();
+      for (int i = 0; sameGame && i < seen; i++) {
+        sameGame = state.getMove(i) == board.getMove(i);
+      }
+      if (!sameGame) {
+        state.reset();
+        seen = 0;
+      }
+      for (int i = seen; i < board.getMoveCount(); i++) {
+        int col = board.getMove(i);
+        state.setPlayerToMove(board.getOwner(state.getHeight(col), col));
+        state.play(col);
+      }
+      state.setPlayerToMove(player);
+      return provider.chooseMove(state);
+    }
+  }
+}
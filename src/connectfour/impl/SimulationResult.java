@@ -0,0 +1,90 @@
+package connectfour.impl;
+
+/**
+ * @author Huijuan Zou
+ * SimulationResult sums up a self-play run between engine A and B:
+ * game outcomes seen from A, total plies and wall-clock time.
+ */
+public class SimulationResult {
+  private final long wins;
+  private final long draws;
+  private final long losses;
+  private final long plies;
+  private final long elapsedNanos;
+
+  public SimulationResult(long wins, long draws, long losses, long plies,
+      long elapsedNanos) {
+    if (wins < 0 || draws < 0 || losses < 0 || plies < 0
+        || elapsedNanos < 0) {
+      throw new IllegalArgumentException("counters cannot be negative");
+    }
+    this.wins = wins;
+    this.draws = draws;
+    this.losses = losses;
+    this.plies = plies;
+    this.elapsedNanos = elapsedNanos;
+  }
+
+  public long getGames() {
+    return wins + draws + losses;
+  }
+
+  public long getWins() {
+    return wins;
+  }
+
+  public long getDraws() {
+    return draws;
+  }
+
+  public long getLosses() {
+    return losses;
+  }
+
+  public long getPlies() {
+    return plies;
+  }
+
+  public long getElapsedNanos() {
+    return elapsedNanos;
+  }
+
+  public double getWinRate() {
+    return rate(wins);
+  }
+
+  public double getDrawRate() {
+    return rate(draws);
+  }
+
+  public double getLossRate() {
+    return rate(losses);
+  }
+
+  /**
+   * @return mean number of plies per game.
+   */
+  public double getAverageLength() {
+    return rate(plies);
+  }
+
+  public double getGamesPerSecond() {
+    if (elapsedNanos == 0) {
+      return 0;
+    }
+    return getGames() * 1e9 / elapsedNanos;
+  }
+
+  private double rate(long count) {
+    long games = getGames();
+    return games == 0 ? 0 : (double) count / games;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("SimulationResult [games=%d, win=%.4f, draw=%.4f, "
+        + "loss=%.4f, averageLength=%.2f, gamesPerSecond=%.0f]", getGames(),
+        getWinRate(), getDrawRate(), getLossRate(), getAverageLength(),
+        getGamesPerSecond());
+  }
+}
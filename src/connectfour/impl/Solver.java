@@ -0,0 +1,349 @@
+package connectfour.impl;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * @author Huijuan Zou
+ * Solver computes the exact game-theoretic score of 7x6 positions.
+ * The score is from the side to move: positive if it wins, negative if
+ * it loses, 0 for a draw. A player who wins with its n-th disc of the
+ * game scores 22 - n, so faster wins score higher.
+ * solve narrows the score with null-window negamax searches, each one
+ * only asking whether the score is above a guess. Moves that let the
+ * opponent win at once are never searched, and the remaining moves are
+ * tried in order of the number of threats they create.
+ * Scores are kept in the transposition table as lower or upper bounds,
+ * under canonical keys so that a position and its mirror share them.
+ * Positions in the opening book, if any, are not searched.
+ * Interrupting the solving thread stops it with a CancellationException.
+ * Not thread-safe; one solver per thread.
+ */
+public class Solver implements SearchEngine {
+  public static final int DEFAULT_TABLE_MB = 64;
+  private static final int COL_NUM = BitBoard.COL_NUM;
+  private static final int ROW_NUM = BitBoard.ROW_NUM;
+  private static final int CELL_NUM = COL_NUM * ROW_NUM;
+  private static final int H1 = ROW_NUM + 1;
+  public static final int MIN_SCORE = -CELL_NUM / 2 + 3;
+  public static final int MAX_SCORE = (CELL_NUM + 1) / 2 - 3;
+  private static final long BOTTOM_MASK = bottomRow();
+  private static final long BOARD_MASK = BOTTOM_MASK * ((1L << ROW_NUM) - 1);
+  private static final int[] COLUMN_ORDER = {3, 2, 4, 1, 5, 0, 6};
+  private static final long INTERRUPT_CHECK_MASK = (1 << 12) - 1;
+  private final TranspositionTable table;
+  private final OpeningBook book;
+  private final long[][] moveBuffer = new long[CELL_NUM][COL_NUM];
+  private final int[][] scoreBuffer = new int[CELL_NUM][COL_NUM];
+  private long nodes;
+
+  public Solver() {
+    this(new TranspositionTableImpl(DEFAULT_TABLE_MB));
+  }
+
+  /**
+   * @param table transposition table, kept between solves.
+   */
+  public Solver(TranspositionTable table) {
+    this(table, null);
+  }
+
+  /**
+   * @param table transposition table, kept between solves.
+   * @param book opening book looked up before searching, may be null.
+   */
+  public Solver(TranspositionTable table, OpeningBook book) {
+    if (table == null) {
+      throw new IllegalArgumentException("Table cannot be null");
+    }
+    this.table = table;
+    this.book = book;
+  }
+
+  public TranspositionTable getTable() {
+    return table;
+  }
+
+  /**
+   * @return opening book of the solver, null if none.
+   */
+  public OpeningBook getBook() {
+    return book;
+  }
+
+  /**
+   * @return nodes visited since the last reset.
+   */
+  public long getNodes() {
+    return nodes;
+  }
+
+  public void resetNodes() {
+    nodes = 0;
+  }
+
+  /**
+   * @param board board of the game, must not be over.
+   * @param player 0 or 1, player to move.
+   * @return exact score of the position for the player.
+   */
+  public int solve(BitBoard board, int player) {
+    checkBoard(board, player);
+    return solve(board.getDiscs(player), board.getDiscs(0) | board.getDiscs(1));
+  }
+
+  /**
+   * @param current discs of the side to move.
+   * @param mask all discs.
+   * @return exact score of the position for the side to move.
+   */
+  public int solve(long current, long mask) {
+    int moves = Long.bitCount(mask);
+    if (canWinNext(current, mask)) {
+      return (CELL_NUM + 1 - moves) / 2;
+    }
+    int bookScore = bookScore(BitBoard.canonicalKey(current + mask),
+        moves);
+    if (bookScore != OpeningBook.NO_ENTRY) {
+      return bookScore;
+    }
+    int min = -(CELL_NUM - moves) / 2;
+    int max = (CELL_NUM + 1 - moves) / 2;
+    while (min < max) {
+      int med = min + (max - min) / 2;
+      if (med <= 0 && min / 2 < med) {
+        med = min / 2;
+      } else if (med >= 0 && max / 2 > med) {
+        med = max / 2;
+      }
+      int r = negamax(current, mask, moves, med, med + 1);
+      if (r <= med) {
+        max = r;
+      } else {
+        min = r;
+      }
+    }
+    return min;
+  }
+
+  @Override
+  public int evaluate(BitBoard board, int player) {
+    return solve(board, player);
+  }
+
+  /**
+   * Solve every column and pick the one with the best exact score,
+   * center columns first on ties.
+   */
+  @Override
+  public SearchResult search(BitBoard board, int player) {
+    checkBoard(board, player);
+    long start = System.nanoTime();
+    long before = nodes;
+    table.newSearch();
+    long current = board.getDiscs(player);
+    long mask = board.getDiscs(0) | board.getDiscs(1);
+    int moves = Long.bitCount(mask);
+    int bestMove = -1;
+    int bestScore = Integer.MIN_VALUE;
+    for (int col : COLUMN_ORDER) {
+      if ((mask & BitBoard.topMask(col)) != 0) {
+        continue;
+      }
+      long move = (mask + BitBoard.bottomMask(col)) & BitBoard.columnMask(col);
+      int score;
+      if ((winningPosition(current, mask) & move) != 0) {
+        score = (CELL_NUM + 1 - moves) / 2;
+      } else if (moves + 1 == CELL_NUM) {
+        score = 0;
+      } else {
+        score = -solve(current ^ mask, mask | move);
+      }
+      if (score > bestScore) {
+        bestScore = score;
+        bestMove = col;
+      }
+    }
+    return new SearchResult(bestMove, bestScore, CELL_NUM - moves,
+        nodes - before, System.nanoTime() - start);
+  }
+
+  /**
+   * Null-window friendly negamax. Only called when the side to move
+   * cannot win with its next disc.
+   * @return the exact score if it is inside (alpha, beta), otherwise
+   * a bound on the same side of the window as the exact score.
+   */
+  private int negamax(long current, long mask, int moves,
+      int alpha, int beta) {
+    if ((++nodes & INTERRUPT_CHECK_MASK) == 0
+        && Thread.currentThread().isInterrupted()) {
+      throw new CancellationException("Search interrupted");
+    }
+    long next = possibleNonLosingMoves(current, mask);
+    if (next == 0) {
+      return -(CELL_NUM - moves) / 2;
+    }
+    if (moves >= CELL_NUM - 2) {
+      return 0;
+    }
+    int min = -(CELL_NUM - 2 - moves) / 2;
+    if (alpha < min) {
+      alpha = min;
+      if (alpha >= beta) {
+        return alpha;
+      }
+    }
+    int max = (CELL_NUM - 1 - moves) / 2;
+    long key = BitBoard.canonicalKey(current + mask);
+    long entry = table.probe(key);
+    if (entry != TranspositionTable.MISS) {
+      int score = TranspositionTable.score(entry);
+      if (TranspositionTable.bound(entry) == TranspositionTable.BOUND_LOWER) {
+        if (alpha < score) {
+          alpha = score;
+          if (alpha >= beta) {
+            return alpha;
+          }
+        }
+      } else if (score < max) {
+        max = score;
+      }
+    }
+    int bookScore = bookScore(key, moves);
+    if (bookScore != OpeningBook.NO_ENTRY) {
+      return bookScore;
+    }
+    if (beta > max) {
+      beta = max;
+      if (alpha >= beta) {
+        return beta;
+      }
+    }
+    long[] sortedMoves = moveBuffer[moves];
+    int[] scores = scoreBuffer[moves];
+    int count = 0;
+    for (int i = COL_NUM - 1; i >= 0; i--) {
+      long move = next & BitBoard.columnMask(COLUMN_ORDER[i]);
+      if (move != 0) {
+        int score = Long.bitCount(winningPosition(current | move, mask));
+        int pos = count++;
+        while (pos > 0 && scores[pos - 1] > score) {
+          sortedMoves[pos] = sortedMoves[pos - 1];
+          scores[pos] = scores[pos - 1];
+          pos--;
+        }
+        sortedMoves[pos] = move;
+        scores[pos] = score;
+      }
+    }
+    int depth = CELL_NUM - moves;
+    while (count > 0) {
+      long move = sortedMoves[--count];
+      int score = -negamax(current ^ mask, mask | move, moves + 1,
+          -beta, -alpha);
+      if (score >= beta) {
+        table.store(key, depth, TranspositionTable.BOUND_LOWER, score,
+            TranspositionTable.NO_MOVE);
+        return score;
+      }
+      if (score > alpha) {
+        alpha = score;
+      }
+    }
+    table.store(key, depth, TranspositionTable.BOUND_UPPER, alpha,
+        TranspositionTable.NO_MOVE);
+    return alpha;
+  }
+
+  /**
+   * @return exact score from the opening book, NO_ENTRY if not there.
+   */
+  private int bookScore(long key, int moves) {
+    if (book == null || moves > book.getMaxPlies()) {
+      return OpeningBook.NO_ENTRY;
+    }
+    return book.get(key);
+  }
+
+  /**
+   * @return true if the side to move can make four with its next disc.
+   */
+  static boolean canWinNext(long current, long mask) {
+    return (winningPosition(current, mask) & possible(mask)) != 0;
+  }
+
+  /**
+   * @return bits of the cells where a disc can be dropped now.
+   */
+  static long possible(long mask) {
+    return (mask + BOTTOM_MASK) & BOARD_MASK;
+  }
+
+  /**
+   * @return playable cells that do not give the opponent an immediate
+   * win: forced blocks first, and never the cell below an opponent's
+   * winning cell. 0 if every move loses.
+   */
+  static long possibleNonLosingMoves(long current, long mask) {
+    long possibleMask = possible(mask);
+    long opponentWin = winningPosition(current ^ mask, mask);
+    long forcedMoves = possibleMask & opponentWin;
+    if (forcedMoves != 0) {
+      if ((forcedMoves & (forcedMoves - 1)) != 0) {
+        return 0;
+      }
+      possibleMask = forcedMoves;
+    }
+    return possibleMask & ~(opponentWin >> 1);
+  }
+
+  /**
+   * @param position discs of one player.
+   * @param mask all discs.
+   * @return empty cells that would complete four for the player.
+   */
+  static long winningPosition(long position, long mask) {
+    long r = (position << 1) & (position << 2) & (position << 3);
+    r |= lineThreats(position, H1);
+    r |= lineThreats(position, H1 - 1);
+    r |= lineThreats(position, H1 + 1);
+    return r & (BOARD_MASK ^ mask);
+  }
+
+  /**
+   * @return cells completing three discs spaced by shift, on either side
+   * or in a gap.
+   */
+  private static long lineThreats(long position, int shift) {
+    long p = (position << shift) & (position << 2 * shift);
+    long r = p & (position << 3 * shift);
+    r |= p & (position >> shift);
+    p = (position >> shift) & (position >> 2 * shift);
+    r |= p & (position << shift);
+    r |= p & (position >> 3 * shift);
+    return r;
+  }
+
+  private static void checkBoard(BitBoard board, int player) {
+    if (board == null) {
+      throw new IllegalArgumentException("Board cannot be null");
+    }
+    if (!Rules.STANDARD.equals(board.getRules())) {
+      throw new IllegalArgumentException("Board must be the standard 7x6");
+    }
+    if (player != 0 && player != 1) {
+      throw new IllegalArgumentException("Player id must be 0 or 1");
+    }
+    if (board.isFull() || board.isWin(0) || board.isWin(1)) {
+      throw new IllegalArgumentException("Game is already over");
+    }
+  }
+
+  private static long bottomRow() {
+    long mask = 0L;
+    for (int i = 0; i < COL_NUM; i++) {
+      mask |= BitBoard.bottomMask(i);
+    }
+    return mask;
+  }
+}
@@ -0,0 +1,38 @@
+package connectfour.impl;
+
+import connectfour.api.GameStateView;
+import connectfour.api.MoveProvider;
+
+/**
+ * @author Huijuan Zou
+ * ThreatMoveProvider is the light heuristic player for boards of any
+ * size: a winning column, else a column blocking the opponent's win,
+ * else the playable column closest to the center. It needs no search,
+ * so it answers at once and ignores the time budget.
+ */
+public class ThreatMoveProvider implements MoveProvider {
+
+  @Override
+  public int chooseMove(GameStateView state, long timeBudgetMillis) {
+    int player = state.getPlayerToMove();
+    int colNum = state.getColNum();
+    int best = -1;
+    for (int i = 0; i < colNum; i++) {
+      int col = colNum / 2 + ((i & 1) == 0 ? i / 2 : -(i + 1) / 2);
+      if (col < 0 || col >= colNum || !state.canPlay(col)) {
+        continue;
+      }
+      if (state.isWinningMove(player, col)) {
+        return col;
+      }
+      if (best < 0 || (state.isWinningMove(player ^ 1, col)
+          && !state.isWinningMove(player ^ 1, best))) {
+        best = col;
+      }
+    }
+    if (best < 0) {
+      throw new IllegalArgumentException("Board is full");
+    }
+    return best;
+  }
+}
@@ -0,0 +1,215 @@
+package connectfour.impl;
+
+import java.util.Arrays;
+
+/**
+ * @author Huijuan Zou
+ * ThreatTracker follows every window of the board, the lines of
+ * connect cells, as discs are dropped, so wins and threats are known
+ * without scanning lines. A disc touches only the windows through its
+ * cell, at most 16 of them for connect four, taken from the Rules.
+ * For every window and player it keeps the number of discs; a full
+ * window of one player is a win, one missing a single disc of a player
+ * and holding none of the other makes its empty cell a threat of that
+ * player. The empty cell is the window's cell sum minus the sum of its
+ * occupied cells, so finding it needs no scan either.
+ * Threats and occupied cells are kept as bit masks in the BitBoard
+ * layout, over several longs for large boards, with a count per threat
+ * cell since several windows can share one threat cell.
+ * Discs must be removed in the reverse order they were added.
+ */
+public class ThreatTracker {
+  private final int h1;
+  private final int connect;
+  private final int[][] cellWindows;
+  private final int[] windowSums;
+  private final int[] occupiedSums;
+  private final byte[][] counts;
+  private final int[][] threatCounts;
+  private final long[][] threats;
+  private final int[] fours = new int[2];
+  private final long bottomMask;
+  private final long boardMask;
+  private final long[] occupied;
+
+  /**
+   * Tracker of the standard 7x6 connect four.
+   */
+  public ThreatTracker() {
+    this(Rules.STANDARD);
+  }
+
+  /**
+   * @param rules rules of the game.
+   */
+  public ThreatTracker(Rules rules) {
+    if (rules == null) {
+      throw new IllegalArgumentException("Rules cannot be null");
+    }
+    int[][] windows = rules.getWindows();
+    int cells = rules.getColNum() * rules.getColumnBits();
+    this.h1 = rules.getColumnBits();
+    this.connect = rules.getConnect();
+    this.cellWindows = rules.getCellWindows();
+    this.windowSums = new int[windows.length];
+    for (int w = 0; w < windows.length; w++) {
+      for (int cell : windows[w]) {
+        windowSums[w] += cell;
+      }
+    }
+    this.occupiedSums = new int[windows.length];
+    this.counts = new byte[2][windows.length];
+    this.threatCounts = new int[2][cells];
+    this.threats = new long[2][(cells + Long.SIZE - 1) / Long.SIZE];
+    this.occupied = new long[threats[0].length];
+    long bottom = 0L;
+    if (rules.fitsLong()) {
+      for (int col = 0; col < rules.getColNum(); col++) {
+        bottom |= 1L << (col * h1);
+      }
+    }
+    this.bottomMask = bottom;
+    this.boardMask = bottom * ((1L << rules.getRowNum()) - 1);
+  }
+
+  /**
+   * Add a disc.
+   * @param colIndex column index.
+   * @param rowIndex row index counted from the bottom, must be empty.
+   * @param player 0 or 1.
+   * @return true if the disc completes a line for the player.
+   */
+  public boolean play(int colIndex, int rowIndex, int player) {
+    int cell = colIndex * h1 + rowIndex;
+    int opponent = player ^ 1;
+    boolean win = false;
+    occupied[cell >>> 6] |= 1L << cell;
+    for (int window : cellWindows[cell]) {
+      occupiedSums[window] += cell;
+      int own = ++counts[player][window];
+      int other = counts[opponent][window];
+      if (other == 0) {
+        if (own == connect) {
+          fours[player]++;
+          removeThreat(player, cell);
+          win = true;
+        } else if (own == connect - 1) {
+          addThreat(player, windowSums[window] - occupiedSums[window]);
+        }
+      } else if (own == 1 && other == connect - 1) {
+        removeThreat(opponent, cell);
+      }
+    }
+    return win;
+  }
+
+  /**
+   * Remove the disc added last.
+   * @param colIndex column index.
+   * @param rowIndex row index counted from the bottom.
+   * @param player 0 or 1, owner of the disc.
+   */
+  public void undo(int colIndex, int rowIndex, int player) {
+    int cell = colIndex * h1 + rowIndex;
+    int opponent = player ^ 1;
+    for (int window : cellWindows[cell]) {
+      int own = counts[player][window]--;
+      int other = counts[opponent][window];
+      if (other == 0) {
+        if (own == connect) {
+          fours[player]--;
+          addThreat(player, cell);
+        } else if (own == connect - 1) {
+          removeThreat(player, windowSums[window] - occupiedSums[window]);
+        }
+      } else if (own == 1 && other == connect - 1) {
+        addThreat(opponent, cell);
+      }
+      occupiedSums[window] -= cell;
+    }
+    occupied[cell >>> 6] &= ~(1L << cell);
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @return true if the player has completed a line anywhere.
+   */
+  public boolean hasWon(int player) {
+    return fours[player] > 0;
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @param colIndex column index.
+   * @param rowIndex row index counted from the bottom.
+   * @return true if a disc of the player there would complete a line.
+   */
+  public boolean isThreat(int player, int colIndex, int rowIndex) {
+    return threatCounts[player][colIndex * h1 + rowIndex] > 0;
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @return empty cells that would complete a line for the player,
+   * playable now or not, in the BitBoard layout.
+   * @throws IllegalStateException if the board does not fit in a long.
+   */
+  public long getThreats(int player) {
+    checkFitsLong();
+    return threats[player][0];
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @return threats of the player that can be played right now.
+   * @throws IllegalStateException if the board does not fit in a long.
+   */
+  public long getWinningMoves(int player) {
+    checkFitsLong();
+    return threats[player][0] & (occupied[0] + bottomMask) & boardMask;
+  }
+
+  /**
+   * @param player 0 or 1.
+   * @return number of threat cells of the player.
+   */
+  public int getThreatCount(int player) {
+    int count = 0;
+    for (long word : threats[player]) {
+      count += Long.bitCount(word);
+    }
+    return count;
+  }
+
+  /**
+   * remove all the discs.
+   */
+  public void reset() {
+    for (int player = 0; player < 2; player++) {
+      Arrays.fill(counts[player], (byte) 0);
+      Arrays.fill(threatCounts[player], 0);
+      Arrays.fill(threats[player], 0L);
+      fours[player] = 0;
+    }
+    Arrays.fill(occupiedSums, 0);
+    Arrays.fill(occupied, 0L);
+  }
+
+  private void addThreat(int player, int cell) {
+    if (threatCounts[player][cell]++ == 0) {
+      threats[player][cell >>> 6] |= 1L << cell;
+    }
+  }
+
+  private void removeThreat(int player, int cell) {
+    if (--threatCounts[player][cell] == 0) {
+      threats[player][cell >>> 6] &= ~(1L << cell);
+    }
+  }
+
+  private void checkFitsLong() {
+    if (threats[0].length > 1) {
+      throw new IllegalStateException("Board does not fit in a long");
+    }
+  }
+}
@@ -0,0 +1,437 @@
+package connectfour.impl;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * @author Huijuan Zou
+ * Tournament plays a round-robin between engines on all cores. Every
+ * round, every pair of entrants plays every opening twice, once with
+ * each side moving first. Games are tasks of a work-stealing
+ * ForkJoinPool, and every pool thread gets its own engine of every
+ * entrant from the suppliers, so engines need not be thread-safe.
+ * Every finished game is added to the MatchStats of its pair and
+ * written at once as a CSV or JSON line. With an SPRT set, a pair
+ * stops playing as soon as its test accepts either hypothesis, and the
+ * tournament ends when every pair has; without one all rounds are
+ * played. Openings are moves in the digits of BitBoard.fromMoves and
+ * must not end the game. Build one with Builder.
+ * Usage: Tournament rounds engine engine... [--json] [--openings=4,43]
+ * where an engine is random, negamax:depth, mcts:playouts or solver.
+ */
+public class Tournament {
+  /**
+   * Format of the lines written per game.
+   */
+  public enum Format {
+    CSV, JSON
+  }
+
+  public static final String CSV_HEADER =
+      "round,first,second,opening,result,plies,millis";
+  private final List<String> names;
+  private final List<Supplier<? extends SearchEngine>> engines;
+  private final List<String> openings;
+  private final int rounds;
+  private final int threads;
+  private final boolean sprt;
+  private final double elo0;
+  private final double elo1;
+  private final double alpha;
+  private final double beta;
+
+  public static class Builder {
+    private final List<String> names = new ArrayList<String>();
+    private final List<Supplier<? extends SearchEngine>> engines =
+        new ArrayList<Supplier<? extends SearchEngine>>();
+    private List<String> openings = Arrays.asList("");
+    private int rounds = 1;
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private boolean sprt = false;
+    private double elo0;
+    private double elo1;
+    private double alpha;
+    private double beta;
+
+    /**
+     * @param name unique name, without commas, quotes or backslashes.
+     * @param engine makes the engine of the entrant for every thread.
+     */
+    public Builder addEntrant(String name,
+        Supplier<? extends SearchEngine> engine) {
+      if (name == null || name.equals("") || !name.matches("[^,\"\\\\]+")) {
+        throw new IllegalArgumentException("illegal entrant name");
+      }
+      if (names.contains(name)) {
+        throw new IllegalArgumentException("entrant names must differ");
+      }
+      if (engine == null) {
+        throw new IllegalArgumentException("engine cannot be null");
+      }
+      names.add(name);
+      engines.add(engine);
+      return this;
+    }
+
+    /**
+     * @param openings moves played before the engines take over, e.g.
+     * "44"; "" starts from the empty board.
+     */
+    public Builder withOpenings(List<String> openings) {
+      if (openings == null || openings.isEmpty()) {
+        throw new IllegalArgumentException("openings cannot be empty");
+      }
+      Set<String> seen = new HashSet<String>();
+      for (String opening : openings) {
+        BitBoard board = BitBoard.fromMoves(opening);
+        if (board.isFull() || board.isWin(0) || board.isWin(1)) {
+          throw new IllegalArgumentException("opening ends the game");
+        }
+        if (!seen.add(opening)) {
+          throw new IllegalArgumentException("openings must differ");
+        }
+      }
+      this.openings = new ArrayList<String>(openings);
+      return this;
+    }
+
+    public Builder withRounds(int rounds) {
+      if (rounds < 1) {
+        throw new IllegalArgumentException("rounds must be positive");
+      }
+      this.rounds = rounds;
+      return this;
+    }
+
+    public Builder withThreads(int threads) {
+      if (threads < 1) {
+        throw new IllegalArgumentException("threads must be positive");
+      }
+      this.threads = threads;
+      return this;
+    }
+
+    /**
+     * Stop every pair once an SPRT of elo1 against elo0 decides it.
+     * @param elo0 Elo difference of the null hypothesis.
+     * @param elo1 Elo difference of the alternative, above elo0.
+     * @param alpha chance of accepting elo1 wrongly.
+     * @param beta chance of accepting elo0 wrongly.
+     */
+    public Builder withSprt(double elo0, double elo1, double alpha,
+        double beta) {
+      if (!(elo1 > elo0)) {
+        throw new IllegalArgumentException("elo1 must be above elo0");
+      }
+      if (!(alpha > 0 && alpha < 0.5 && beta > 0 && beta < 0.5)) {
+        throw new IllegalArgumentException("illegal error rates");
+      }
+      this.sprt = true;
+      this.elo0 = elo0;
+      this.elo1 = elo1;
+      this.alpha = alpha;
+      this.beta = beta;
+      return this;
+    }
+
+    public Tournament build() {
+      if (names.size() < 2) {
+        throw new IllegalArgumentException("two entrants needed");
+      }
+      return new Tournament(this);
+    }
+  }
+
+  private Tournament(Builder builder) {
+    this.names = new ArrayList<String>(builder.names);
+    this.engines = new ArrayList<Supplier<? extends SearchEngine>>(
+        builder.engines);
+    this.openings = builder.openings;
+    this.rounds = builder.rounds;
+    this.threads = builder.threads;
+    this.sprt = builder.sprt;
+    this.elo0 = builder.elo0;
+    this.elo1 = builder.elo1;
+    this.alpha = builder.alpha;
+    this.beta = builder.beta;
+  }
+
+  public List<String> getNames() {
+    return names;
+  }
+
+  /**
+   * @param args rounds, engines and options.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    Builder builder = new Builder();
+    Format format = Format.CSV;
+    int rounds = -1;
+    for (String arg : args) {
+      if (arg.equals("--json")) {
+        format = Format.JSON;
+      } else if (arg.startsWith("--openings=")) {
+        builder.withOpenings(Arrays.asList(
+            arg.substring("--openings=".length()).split(",")));
+      } else if (rounds < 0) {
+        rounds = Integer.parseInt(arg);
+      } else {
+        builder.addEntrant(arg, engine(arg));
+      }
+    }
+    if (rounds < 1) {
+      System.err.println("Usage: Tournament rounds engine engine... "
+          + "[--json] [--openings=4,43]");
+      System.exit(2);
+    }
+    PrintWriter out = new PrintWriter(System.out);
+    Result result = builder.withRounds(rounds).build().run(out, format);
+    out.flush();
+    System.err.println(result);
+  }
+
+  private static Supplier<SearchEngine> engine(String spec) {
+    String[] parts = spec.split(":");
+    int value = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+    switch (parts[0]) {
+      case "random":
+        return RandomEngine::new;
+      case "negamax":
+        return () -> new NegamaxSearch(value);
+      case "mcts":
+        return () -> new MonteCarloSearch(value);
+      case "solver":
+        return Solver::new;
+      default:
+        throw new IllegalArgumentException("Unknown engine: " + spec);
+    }
+  }
+
+  /**
+   * Play the tournament and wait for it.
+   * @param out gets a line per game as it ends, and the CSV header
+   * first; null for none.
+   * @param format format of the lines.
+   * @return stats of every pair.
+   */
+  public Result run(Appendable out, Format format)
+      throws InterruptedException {
+    long start = System.nanoTime();
+    int n = names.size();
+    MatchStats[][] stats = new MatchStats[n][n];
+    for (int a = 0; a < n; a++) {
+      for (int b = a + 1; b < n; b++) {
+        stats[a][b] = new MatchStats();
+      }
+    }
+    if (out != null && format == Format.CSV) {
+      write(out, CSV_HEADER);
+    }
+    ThreadLocal<SearchEngine[]> local =
+        ThreadLocal.withInitial(() -> new SearchEngine[n]);
+    AtomicLong skipped = new AtomicLong();
+    List<ForkJoinTask<?>> games = new ArrayList<ForkJoinTask<?>>();
+    ForkJoinPool pool = new ForkJoinPool(threads);
+    try {
+      for (int round = 1; round <= rounds; round++) {
+        for (String opening : openings) {
+          for (int a = 0; a < n; a++) {
+            for (int b = a + 1; b < n; b++) {
+              for (int first = 0; first < 2; first++) {
+                int r = round;
+                int white = first == 0 ? a : b;
+                int black = first == 0 ? b : a;
+                MatchStats match = stats[a][b];
+                int sign = white == a ? 1 : -1;
+                games.add(pool.submit(() -> {
+                  if (sprt && match.sprt(elo0, elo1, alpha, beta) != 0) {
+                    skipped.incrementAndGet();
+                    return;
+                  }
+                  long begin = System.nanoTime();
+                  BitBoard board = BitBoard.fromMoves(opening);
+                  int winner = play(board, engine(local.get(), white),
+                      engine(local.get(), black));
+                  match.add(winner < 0 ? 0 : winner == 0 ? sign : -sign);
+                  if (out != null) {
+                    write(out, line(format, r, white, black, opening,
+                        winner, board.getMoveCount(),
+                        (System.nanoTime() - begin) / 1000000L));
+                  }
+                }));
+              }
+            }
+          }
+        }
+      }
+      for (ForkJoinTask<?> game : games) {
+        game.get();
+      }
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Tournament failed", e.getCause());
+    } finally {
+      pool.shutdownNow();
+    }
+    return new Result(stats, games.size() - skipped.get(), skipped.get(),
+        System.nanoTime() - start);
+  }
+
+  private SearchEngine engine(SearchEngine[] cache, int entrant) {
+    if (cache[entrant] == null) {
+      cache[entrant] = engines.get(entrant).get();
+    }
+    return cache[entrant];
+  }
+
+  /**
+   * Play a game out, the first engine moving for the side to move.
+   * @return 0 if the first engine won, 1 if the second did, -1 for a
+   * draw.
+   */
+  private static int play(BitBoard board, SearchEngine first,
+      SearchEngine second) {
+    SearchEngine[] sides = board.getCurrentPlayer() == 0
+        ? new SearchEngine[] {first, second}
+        : new SearchEngine[] {second, first};
+    while (true) {
+      int player = board.getCurrentPlayer();
+      board.play(sides[player].chooseMove(board, player), player);
+      if (board.isWin(player)) {
+        return sides[player] == first ? 0 : 1;
+      }
+      if (board.isFull()) {
+        return -1;
+      }
+    }
+  }
+
+  private String line(Format format, int round, int white, int black,
+      String opening, int winner, int plies, long millis) {
+    String result = winner < 0 ? "1/2-1/2" : winner == 0 ? "1-0" : "0-1";
+    if (format == Format.CSV) {
+      return round + "," + names.get(white) + "," + names.get(black) + ","
+          + opening + "," + result + "," + plies + "," + millis;
+    }
+    return "{\"round\":" + round + ",\"first\":\"" + names.get(white)
+        + "\",\"second\":\"" + names.get(black) + "\",\"opening\":\""
+        + opening + "\",\"result\":\"" + result + "\",\"plies\":" + plies
+        + ",\"millis\":" + millis + "}";
+  }
+
+  private static void write(Appendable out, String line) {
+    synchronized (out) {
+      try {
+        out.append(line).append('\n');
+        if (out instanceof Flushable) {
+          ((Flushable) out).flush();
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  /**
+   * Result sums up a tournament: the stats of every pair, games played
+   * and skipped once their pair was decided, and wall-clock time.
+   */
+  public final class Result {
+    private final MatchStats[][] stats;
+    private final long games;
+    private final long skipped;
+    private final long elapsedNanos;
+
+    private Result(MatchStats[][] stats, long games, long skipped,
+        long elapsedNanos) {
+      this.stats = stats;
+      this.games = games;
+      this.skipped = skipped;
+      this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * @param a index of an entrant, in the order added.
+     * @param b index of another entrant.
+     * @return games between them, seen from a.
+     */
+    public MatchStats getMatch(int a, int b) {
+      if (a == b) {
+        throw new IllegalArgumentException("entrants must differ");
+      }
+      if (a < b) {
+        return stats[a][b];
+      }
+      return stats[b][a].reversed();
+    }
+
+    /**
+     * @param entrant index of an entrant.
+     * @return points of the entrant, half a point per draw.
+     */
+    public double getPoints(int entrant) {
+      double points = 0;
+      for (int other = 0; other < names.size(); other++) {
+        if (other != entrant) {
+          MatchStats match = getMatch(entrant, other);
+          points += match.getWins() + match.getDraws() / 2.0;
+        }
+      }
+      return points;
+    }
+
+    public long getGames() {
+      return games;
+    }
+
+    /**
+     * @return games not played because the SPRT of their pair ended.
+     */
+    public long getSkipped() {
+      return skipped;
+    }
+
+    public long getElapsedNanos() {
+      return elapsedNanos;
+    }
+
+    public double getGamesPerSecond() {
+      return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+      StringBuilder sb = new StringBuilder();
+      sb.append(String.format("%d games, %d skipped in %.1fs%n", games,
+          skipped, elapsedNanos / 1e9));
+      for (int a = 0; a < names.size(); a++) {
+        sb.append(String.format("%-16s %6.1f%n", names.get(a),
+            getPoints(a)));
+      }
+      for (int a = 0; a < names.size(); a++) {
+        for (int b = a + 1; b < names.size(); b++) {
+          sb.append(names.get(a)).append(" vs ").append(names.get(b))
+              .append(": ").append(stats[a][b]);
+          if (sprt) {
+            int verdict = stats[a][b].sprt(elo0, elo1, alpha, beta);
+            sb.append(verdict > 0 ? ", H1 accepted" : verdict < 0
+                ? ", H0 accepted" : ", undecided");
+          }
+          sb.append(System.lineSeparator());
+        }
+      }
+      return sb.toString();
+    }
+  }
+}
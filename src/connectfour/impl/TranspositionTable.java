@@ -0,0 +1,101 @@
+package connectfour.impl;
+
+/**
+ * @author Huijuan Zou
+ * TranspositionTable remembers search results of positions reached
+ * through different move orders.
+ * An entry is packed into one long so that probe and store never
+ * allocate: score, depth, bound type, best move and search age.
+ * Keys are position keys, e.g. discs of the side to move plus the mask
+ * of all discs, which is unique for every position.
+ */
+public interface TranspositionTable {
+  int BOUND_EXACT = 0;
+  int BOUND_LOWER = 1;
+  int BOUND_UPPER = 2;
+  int NO_MOVE = 0xF;
+  long MISS = 0L;
+
+  /**
+   * @param key position key.
+   * @return packed entry of the position, MISS if not stored.
+   */
+  long probe(long key);
+
+  /**
+   * Store a search result. The table may keep an older entry instead.
+   * @param key position key.
+   * @param depth remaining depth the score was searched with, 0 to 255.
+   * @param bound BOUND_EXACT, BOUND_LOWER or BOUND_UPPER.
+   * @param score score of the position, fits in 16 bits.
+   * @param move best column, NO_MOVE if unknown.
+   */
+  void store(long key, int depth, int bound, int score, int move);
+
+  /**
+   * Start a new search: entries of older searches become replaceable.
+   */
+  void newSearch();
+
+  /**
+   * remove all the entries.
+   */
+  void clear();
+
+  /**
+   * @return number of entries the table can hold.
+   */
+  int getCapacity();
+
+  /**
+   * @param entry packed entry, not MISS.
+   * @return score of the entry.
+   */
+  static int score(long entry) {
+    return (int) (entry & 0xFFFF) - 0x8000;
+  }
+
+  /**
+   * @param entry packed entry, not MISS.
+   * @return depth of the entry.
+   */
+  static int depth(long entry) {
+    return (int) (entry >>> 16) & 0xFF;
+  }
+
+  /**
+   * @param entry packed entry, not MISS.
+   * @return bound type of the entry.
+   */
+  static int bound(long entry) {
+    return (int) (entry >>> 24) & 0x3;
+  }
+
+  /**
+   * @param entry packed entry, not MISS.
+   * @return best move of the entry, NO_MOVE if unknown.
+   */
+  static int move(long entry) {
+    return (int) (entry >>> 26) & 0xF;
+  }
+
+  /**
+   * @param entry packed entry, not MISS.
+   * @return age of the search that stored the entry.
+   */
+  static int age(long entry) {
+    return (int) (entry >>> 30) & 0xFF;
+  }
+
+  /**
+   * @return entry packed into a long with the top bit set as valid flag.
+   */
+  static long pack(int depth, int bound, int score, int move, int age) {
+    return Long.MIN_VALUE
+        | ((long) (age & 0xFF) << 30)
+        | ((long) (move & 0xF) << 26)
+        | ((long) (bound & 0x3) << 24)
+        | ((long) (depth & 0xFF) << 16)
+        | ((score + 0x8000) & 0xFFFF);
+  }
+}
@@ -0,0 +1,83 @@
+package connectfour.impl;
+
+import java.util.Arrays;
+
+/**
+ * @author Huijuan Zou
+ * Implementation for the TranspositionTable interface.
+ * Entries live in one long array, two slots per entry: the key and the
+ * packed data. The number of entries is the largest power of two that
+ * fits in the memory budget, so the index is a mask of the key hash.
+ * Replacement is depth-preferred: a slot is overwritten by the same
+ * position, by an entry of a newer search, or by a deeper search.
+ * Not thread-safe; threads searching together share a
+ * LockFreeTranspositionTable instead.
+ */
+public class TranspositionTableImpl implements TranspositionTable {
+  private static final int ENTRY_BYTES = 16;
+  private final long[] table;
+  private final int indexMask;
+  private int age;
+
+  /**
+   * @param megabytes memory budget of the table, at least 1.
+   */
+  public TranspositionTableImpl(int megabytes) {
+    if (megabytes < 1) {
+      throw new IllegalArgumentException("Memory budget must be positive");
+    }
+    long entries = Long.highestOneBit((long) megabytes * 1024 * 1024
+        / ENTRY_BYTES);
+    if (entries > (1 << 29)) {
+      throw new IllegalArgumentException("Memory budget is too large");
+    }
+    this.table = new long[(int) entries * 2];
+    this.indexMask = (int) entries - 1;
+  }
+
+  @Override
+  public long probe(long key) {
+    int slot = index(key) << 1;
+    long data = table[slot + 1];
+    if (data != MISS && table[slot] == key) {
+      return data;
+    }
+    return MISS;
+  }
+
+  @Override
+  public void store(long key, int depth, int bound, int score, int move) {
+    int slot = index(key) << 1;
+    long data = table[slot + 1];
+    if (data == MISS || table[slot] == key
+        || TranspositionTable.age(data) != age
+        || depth >= TranspositionTable.depth(data)) {
+      table[slot] = key;
+      table[slot + 1] = TranspositionTable.pack(depth, bound, score, move, age);
+    }
+  }
+
+  @Override
+  public void newSearch() {
+    age = (age + 1) & 0xFF;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(table, 0L);
+  }
+
+  @Override
+  public int getCapacity() {
+    return indexMask + 1;
+  }
+
+  /**
+   * @return slot of the key, mixing the bits so that keys of nearby
+   * positions spread over the table.
+   */
+  int index(long key) {
+    long h = key * 0x9E3779B97F4A7C15L;
+    return (int) (h >>> 32) & indexMask;
+  }
+}
@@ -0,0 +1,212 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class BitBoardTest {
+  private BitBoard board;
+
+  @Before
+  public void setUp() {
+    board = new BitBoard();
+  }
+
+  @Test
+  public void testPlay_heights() {
+    assertEquals(0, board.play(3));
+    assertEquals(1, board.play(3));
+    assertEquals(2, board.getHeight(3));
+    assertEquals(0, board.getOwner(0, 3));
+    assertEquals(1, board.getOwner(1, 3));
+    assertEquals(-1, board.getOwner(2, 3));
+    assertEquals(2, board.getMoveCount());
+    assertEquals(0, board.getCurrentPlayer());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testPlay_fullColumn() {
+    for (int i = 0; i <= BitBoard.ROW_NUM; i++) {
+      board.play(0);
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testPlay_negativeIndex() {
+    board.play(-1);
+  }
+
+  @Test
+  public void testIsFull() {
+    for (int j = 0; j < BitBoard.COL_NUM; j++) {
+      assertFalse(board.isFull());
+      for (int i = 0; i < BitBoard.ROW_NUM; i++) {
+        board.play(j, 0);
+      }
+      assertFalse(board.canPlay(j));
+    }
+    assertTrue(board.isFull());
+    board.reset();
+    assertEquals(0, board.getMoveCount());
+    assertTrue(board.canPlay(0));
+  }
+
+  @Test
+  public void testIsWin_vertical() {
+    for (int i = 0; i < 3; i++) {
+      board.play(2, 1);
+    }
+    assertFalse(board.isWin(1));
+    board.play(2, 1);
+    assertTrue(board.isWin(1));
+    assertFalse(board.isWin(0));
+  }
+
+  @Test
+  public void testIsWin_horizontal() {
+    for (int j = 3; j < 6; j++) {
+      board.play(j, 0);
+    }
+    assertFalse(board.isWin(0));
+    board.play(6, 0);
+    assertTrue(board.isWin(0));
+  }
+
+  @Test
+  public void testIsWin_diagonals() {
+    for (int j = 0; j < 4; j++) {
+      for (int i = 0; i < j; i++) {
+        board.play(j, 1);
+      }
+      board.play(j, 0);
+    }
+    assertTrue(board.isWin(0));
+    assertFalse(board.isWin(1));
+
+    board.reset();
+    for (int j = 6; j > 2; j--) {
+      for (int i = 0; i < 6 - j; i++) {
+        board.play(j, 1);
+      }
+      board.play(j, 0);
+    }
+    assertTrue(board.isWin(0));
+  }
+
+  /* three on top of one column and one at the bottom of the next. */
+  @Test
+  public void testIsWin_noWrapAcrossColumns() {
+    for (int i = 0; i < 3; i++) {
+      board.play(0, 1);
+    }
+    for (int i = 0; i < 3; i++) {
+      board.play(0, 0);
+    }
+    board.play(1, 0);
+    assertFalse(board.isWin(0));
+  }
+
+  @Test
+  public void testToString() {
+    board.play(0);
+    board.play(1);
+    assertTrue(board.toString().endsWith("XO.....\n"));
+  }
+
+  /* 8x7 fills all 64 bits, the top bit included. */
+  @Test
+  public void testIsWin_largestSingleLong() {
+    BitBoard large = new BitBoard(new Rules(8, 7, 4));
+    for (int col = 4; col < 8; col++) {
+      for (int row = 0; row < 6; row++) {
+        large.play(col, 1);
+      }
+      assertFalse(large.isWin(0));
+      large.play(col, 0);
+    }
+    assertTrue(large.isWin(0));
+    assertEquals(0, large.getOwner(6, 7));
+    assertFalse(large.canPlay(7));
+  }
+
+  @Test
+  public void testIsWin_connectFive() {
+    BitBoard five = new BitBoard(new Rules(7, 6, 5));
+    for (int i = 0; i < 4; i++) {
+      five.play(0, 0);
+    }
+    assertFalse(five.isWin(0));
+    five.play(0, 0);
+    assertTrue(five.isWin(0));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testConstructor_tooLarge() {
+    new BitBoard(new Rules(9, 7, 4));
+  }
+
+  @Test
+  public void testUndo() {
+    BitBoard board = BitBoard.fromMoves("4453");
+    long discs0 = board.getDiscs(0);
+    long discs1 = board.getDiscs(1);
+    board.play(2);
+    assertEquals(2, board.getMove(4));
+    assertEquals(2, board.undo());
+    assertEquals(4, board.getMoveCount());
+    assertEquals(1, board.getHeight(2));
+    assertEquals(discs0, board.getDiscs(0));
+    assertEquals(discs1, board.getDiscs(1));
+    assertEquals(2, board.undo());
+    assertEquals(3, board.getMoveCount());
+    assertEquals(-1, board.getOwner(0, 2));
+  }
+
+  @Test (expected = IllegalStateException.class)
+  public void testUndo_emptyBoard() {
+    new BitBoard().undo();
+  }
+
+  @Test
+  public void testCanonicalKey() {
+    BitBoard board = BitBoard.fromMoves("1127");
+    BitBoard mirrored = BitBoard.fromMoves("7761");
+    assertEquals(board.getKey(0), mirrored.getMirroredKey(0));
+    assertEquals(board.getMirroredKey(0), mirrored.getKey(0));
+    assertEquals(board.getCanonicalKey(0), mirrored.getCanonicalKey(0));
+    assertEquals(board.getMirroredKey(0), BitBoard.mirror(board.getKey(0)));
+    assertEquals(board.getMirroredKey(1),
+        BitBoard.mirror(board.getKey(1), Rules.STANDARD));
+    assertEquals(board.getCanonicalKey(1),
+        BitBoard.canonicalKey(board.getKey(1)));
+    assertEquals(board.getKey(1), BitBoard.mirror(BitBoard.mirror(
+        board.getKey(1))));
+  }
+
+  /* the mirrored discs follow play, undo, reset and copy. */
+  @Test
+  public void testMirroredKey_incremental() {
+    Rules rules = new Rules(8, 6, 4);
+    BitBoard board = new BitBoard(rules);
+    board.play(0);
+    board.play(2);
+    BitBoard copy = board.copy();
+    board.play(7);
+    assertEquals(BitBoard.mirror(board.getKey(1), rules),
+        board.getMirroredKey(1));
+    board.undo();
+    assertEquals(copy.getMirroredKey(0), board.getMirroredKey(0));
+    assertEquals(BitBoard.mirror(copy.getKey(0), rules),
+        copy.getMirroredKey(0));
+    board.reset();
+    assertEquals(0L, board.getCanonicalKey(0));
+  }
+
+  @Test
+  public void testCanonicalKey_symmetricPosition() {
+    BitBoard board = BitBoard.fromMoves("345");
+    assertEquals(board.getKey(0), board.getMirroredKey(0));
+    assertEquals(board.getKey(0), board.getCanonicalKey(0));
+  }
+}
@@ -3,10 +3,11 @@ package connectfour.impl;
 import static org.junit.Assert.*;
 
 import java.awt.Color;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
 
-import javax.swing.JLabel;
-import javax.swing.border.LineBorder;
-
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -16,27 +17,50 @@ public class ConnectFourModelTest {
   private ConnectFourModel game;
   private Player player1;
   private Player player2;
-  private static final int COL_NUM = 7;
-  private static final int ROW_NUM = 6;
-  private JLabel[][] grid = new JLabel[ROW_NUM][COL_NUM];
+  private static final int COL_NUM = Rules.STANDARD.getColNum();
+  private static final int ROW_NUM = Rules.STANDARD.getRowNum();
 
   @Before
   public void setUp() {
     game = ConnectFourModel.getInstance();
     game.setGameActive(false);
     game.switchMode(true);
+    game.resetBoard();
     player1 = game.getPlayer1();
     player2 = game.getPlayer2();
+  }
+
+  @After
+  public void tearDown() {
+    game.setRules(Rules.STANDARD);
+  }
+
+  /**
+   * helper to fill a column with discs of player 0.
+   */
+  private void fillColumn(int colIndex) {
+    GameState state = game.getGameState();
     for (int i = 0; i < ROW_NUM; i++) {
-      for (int j = 0; j < COL_NUM; j++) {
-        grid[i][j] = new JLabel();
-        grid[i][j].setBorder(new LineBorder(Color.BLACK));
-        grid[i][j].setBackground(Color.white);
-        grid[i][j].setOpaque(true);
-      }
+      state.setPlayerToMove(0);
+      state.play(colIndex);
     }
   }
 
+  /**
+   * helper to put a disc of player 0 at a grid cell, row counted from
+   * the top like the view does. Cells below are filled by player 1.
+   */
+  private void place(int rowIndex, int colIndex) {
+    GameState state = game.getGameState();
+    int bottomRow = ROW_NUM - 1 - rowIndex;
+    while (state.getHeight(colIndex) < bottomRow) {
+      state.setPlayerToMove(1);
+      state.play(colIndex);
+    }
+    state.setPlayerToMove(0);
+    state.play(colIndex);
+  }
+
   @Test
   public void testSwitchMode() {
     game.switchMode(true);
@@ -45,265 +69,333 @@ public class ConnectFourModelTest {
 
   @Test
   public void testCheckBoard_emptyBoard() {
-    game.checkBoard(0, grid);
+    game.checkBoard(0);
   }
 
   @Test
   public void testCheckBoard_emptyBoard_activePlayer2() {
     game.setActivePlayer(player2);
-    game.checkBoard(0, grid);
+    game.checkBoard(0);
   }
 
   /* default setting active player is player1 */
   @Test
   public void testCheckBoard() {
     game.setActivePlayer(player1);
-    for (int i = 0; i < ROW_NUM ; i++) {
-      grid[i][0].setBackground(Color.red);
-    }
-    game.checkBoard(1, grid);
+    fillColumn(0);
+    game.checkBoard(1);
+    assertEquals(1, game.getBoard().getHeight(1));
   }
 
   @Test
   public void testCheckBoard_activePlayer2() {
     game.switchMode(false);
     game.setActivePlayer(player2);
-    for (int i = 0; i < ROW_NUM; i++) {
-      grid[i][1].setBackground(Color.red);
-    }
-    game.checkBoard(1, grid);
+    fillColumn(1);
+    game.checkBoard(1);
   }
 
   @Test
   public void testCheckBoard_full() {
     game.setActivePlayer(player1);
-    for (int i = 0; i < ROW_NUM; i++) {
-      for (int j = 0; j < COL_NUM; j++) {
-        grid[i][j].setBackground(Color.red);
-      }  
+    for (int j = 0; j < COL_NUM; j++) {
+      fillColumn(j);
     }
-    game.checkBoard(1, grid);
+    game.checkBoard(1);
+    assertTrue(game.getBoard().isFull());
   }
 
   @Test
   public void testCheckBoard_columnFull() {
     game.setActivePlayer(player1);
-    for (int i = 0; i < ROW_NUM; i++) {
-      grid[i][1].setBackground(Color.red);
-    }
-    game.checkBoard(1, grid);
+    fillColumn(1);
+    game.checkBoard(1);
+    assertEquals(ROW_NUM, game.getBoard().getMoveCount());
   }
 
   @Test (expected = IllegalArgumentException.class)
   public void testCheckBoard_negativeIndex() {
-    game.checkBoard(-1, grid);
+    game.checkBoard(-1);
   }
 
   @Test (expected = IllegalArgumentException.class)
-  public void testCheckBoard_nullGrid() {
-    game.checkBoard(1, null);
+  public void testCheckBoard_indexOutOfRange() {
+    game.checkBoard(COL_NUM);
   }
 
   @Test (expected = IllegalArgumentException.class)
   public void testFindDrop_negativeIndex() {
-    game.findDrop(-1, grid);
+    game.findDrop(-1);
   }
 
   @Test (expected = IllegalArgumentException.class)
-  public void testFindDrop_nullGrid() {
-    game.findDrop(1, null);
+  public void testFindDrop_fullColumn() {
+    fillColumn(1);
+    game.findDrop(1);
   }
 
   @Test 
   public void testFindDrop_gameActive() {
     game.setGameActive(true);
-    game.findDrop(1, grid);
-  }
-
-  @Test (expected = IllegalArgumentException.class)
-  public void testCheckWin_nullGrid() {
-    Drop drop = new Drop(1, 3, Color.red);
-    game.checkWin(null, drop);
+    game.findDrop(1);
+    assertEquals(1, game.getBoard().getHeight(1));
   }
 
   @Test (expected = IllegalArgumentException.class)
   public void testCheckWin_nullDrop() {
-    game.checkWin(grid, null);
-  }
-
-  @Test (expected = IllegalArgumentException.class)
-  public void testCheckWin_2null() {
-    game.checkWin(null, null);
-  }
-
-  /**
-   * helper class to reset color back to background color
-   */
-  public void resetColor() {
-    for (int i = 0; i < ROW_NUM; i++) {
-      for (int j = 0; j < COL_NUM; j++) {
-        grid[i][j].setBackground(Color.white);
-      }
-    }
+    game.checkWin(null);
   }
 
   @Test
   public void testIsWinner() {
-    Color color;
-    if (player1.getPlayerState()) {
-      color = player1.getPlayerColor();
-    } else {
-      color = player2.getPlayerColor();
-    }
+    game.setActivePlayer(player1);
+    Color color = player1.getPlayerColor();
 
     //test 4 in a column
     Drop dropCol = new Drop(2, 0, color);
     for (int i = 5; i >= 2; i--) {
-      grid[i][0].setBackground(color);
+      place(i, 0);
     }
-    assertTrue(game.checkWin(grid, dropCol));
-    grid[2][0].setBackground(Color.white);
-    assertFalse(game.checkWin(grid, dropCol));
+    assertTrue(game.checkWin(dropCol));
+    game.resetBoard();
+    for (int i = 5; i >= 3; i--) {
+      place(i, 0);
+    }
+    assertFalse(game.checkWin(dropCol));
 
     //test 4 in a row 
-    resetColor();
+    game.resetBoard();
     Drop dropRow = new Drop(1, 2, color);
-    Drop dropLeft = new Drop(1, 0, color);
-    Drop dropRight = new Drop(1, 3, color);
     for (int i = 0; i < 4; i++) {
-      grid[1][i].setBackground(color);
+      place(1, i);
+    }
+    assertTrue(game.checkWin(dropRow));
+    game.resetBoard();
+    for (int i = 1; i < 4; i++) {
+      place(1, i);
     }
-    assertTrue(game.checkWin(grid, dropRow));
-    assertTrue(game.checkWin(grid, dropLeft));
-    assertTrue(game.checkWin(grid, dropRight));
-    grid[1][0].setBackground(Color.white);
-    assertFalse(game.checkWin(grid, dropRow));
+    assertFalse(game.checkWin(dropRow));
 
     //test 4 in diagonal SW
-    resetColor();
+    game.resetBoard();
     Drop dropDiagSW = new Drop(2, 3, color);
     int rowIndex = 2;
     int colIndex = 3;
     while (rowIndex < ROW_NUM && colIndex >= 0) {
-      grid[rowIndex][colIndex].setBackground(color);
+      place(rowIndex, colIndex);
       rowIndex++;
       colIndex--;
     }
-    assertTrue(game.checkWin(grid, dropDiagSW));
-    grid[2][3].setBackground(Color.white);
-    assertFalse(game.checkWin(grid, dropDiagSW));
+    assertTrue(game.checkWin(dropDiagSW));
+    game.resetBoard();
+    rowIndex = 3;
+    colIndex = 2;
+    while (rowIndex < ROW_NUM && colIndex >= 0) {
+      place(rowIndex, colIndex);
+      rowIndex++;
+      colIndex--;
+    }
+    assertFalse(game.checkWin(dropDiagSW));
 
     //test 4 in diagonal SE
-    resetColor();
+    game.resetBoard();
     Drop dropDiagSE = new Drop(2, 3, color);
     rowIndex = 2;
     colIndex = 3;
     while (rowIndex < ROW_NUM && colIndex < COL_NUM) {
-      grid[rowIndex][colIndex].setBackground(color);
+      place(rowIndex, colIndex);
+      rowIndex++;
+      colIndex++;
+    }
+    assertTrue(game.checkWin(dropDiagSE));
+    game.resetBoard();
+    rowIndex = 3;
+    colIndex = 4;
+    while (rowIndex < ROW_NUM && colIndex < COL_NUM) {
+      place(rowIndex, colIndex);
       rowIndex++;
       colIndex++;
     }
-    assertTrue(game.checkWin(grid, dropDiagSE));
-    grid[2][3].setBackground(Color.white);
-    assertFalse(game.checkWin(grid, dropDiagSE));
+    assertFalse(game.checkWin(dropDiagSE));
 
     //test 4 in diagonal NW
-    resetColor();
+    game.resetBoard();
     Drop dropDiagNW = new Drop(3, 3, color);
-    rowIndex = 3;
-    colIndex = 3;
-    while (rowIndex >= 0 && colIndex >= 0) {
-      grid[rowIndex][colIndex].setBackground(color);
-      rowIndex--;
-      colIndex--;
+    for (int i = 3; i >= 0; i--) {
+      place(i, i);
     }
-    assertTrue(game.checkWin(grid, dropDiagNW));
-    grid[3][3].setBackground(Color.white);
-    assertFalse(game.checkWin(grid, dropDiagNW));
+    assertTrue(game.checkWin(dropDiagNW));
+    game.resetBoard();
+    for (int i = 2; i >= 0; i--) {
+      place(i, i);
+    }
+    assertFalse(game.checkWin(dropDiagNW));
 
     //test 4 in diagonal NW + SE
-    resetColor();
+    game.resetBoard();
     Drop dropDiagNWSE = new Drop(3, 3, color);
-    rowIndex = 3;
-    colIndex = 3;
-    while (rowIndex >= 1 && colIndex >= 1) {
-      grid[rowIndex][colIndex].setBackground(color);
-      rowIndex--;
-      colIndex--;
+    for (int i = 1; i <= 4; i++) {
+      place(i, i);
     }
-    rowIndex = 3;
-    colIndex = 3;
-    while (rowIndex < ROW_NUM - 1 && colIndex < COL_NUM - 1) {
-      grid[rowIndex][colIndex].setBackground(color);
-      rowIndex++;
-      colIndex++;
+    assertTrue(game.checkWin(dropDiagNWSE));
+    game.resetBoard();
+    for (int i = 2; i <= 4; i++) {
+      place(i, i);
     }
-    assertTrue(game.checkWin(grid, dropDiagNWSE));
-    grid[1][1].setBackground(Color.white);
-    assertFalse(game.checkWin(grid, dropDiagNWSE));
-    grid[1][1].setBackground(color);
-    grid[4][4].setBackground(Color.white);
-    assertFalse(game.checkWin(grid, dropDiagNWSE));
+    assertFalse(game.checkWin(dropDiagNWSE));
+    game.resetBoard();
+    for (int i = 1; i <= 3; i++) {
+      place(i, i);
+    }
+    assertFalse(game.checkWin(dropDiagNWSE));
 
     //test 4 in diagonal NE
-    resetColor();
+    game.resetBoard();
     Drop dropDiagNE = new Drop(3, 3, color);
-    rowIndex = 3;
-    colIndex = 3;
-    while (rowIndex >= 0 && colIndex < COL_NUM) {
-      grid[rowIndex][colIndex].setBackground(color);
-      rowIndex--;
-      colIndex++;
+    for (int i = 3; i >= 0; i--) {
+      place(i, 6 - i);
+    }
+    assertTrue(game.checkWin(dropDiagNE));
+    game.resetBoard();
+    for (int i = 2; i >= 0; i--) {
+      place(i, 6 - i);
     }
-    assertTrue(game.checkWin(grid, dropDiagNE));
-    grid[3][3].setBackground(Color.white);
-    assertFalse(game.checkWin(grid, dropDiagNE));
+    assertFalse(game.checkWin(dropDiagNE));
 
     //test in diagonal SW + NE
-    resetColor();
+    game.resetBoard();
     Drop dropDiagSWNE = new Drop(3, 3, color);
-    rowIndex = 3;
-    colIndex = 3;
-    while (rowIndex < ROW_NUM - 1 && colIndex >= 2) {
-      grid[rowIndex][colIndex].setBackground(color);
-      rowIndex++;
-      colIndex--;
+    for (int i = 1; i <= 4; i++) {
+      place(i, 6 - i);
     }
-    rowIndex = 3;
-    colIndex = 3;
-    while (rowIndex >= 1 && colIndex < COL_NUM - 1) {
-      grid[rowIndex][colIndex].setBackground(color);
-      rowIndex--;
-      colIndex++;
+    assertTrue(game.checkWin(dropDiagSWNE));
+    game.resetBoard();
+    for (int i = 2; i <= 4; i++) {
+      place(i, 6 - i);
     }
-    assertTrue(game.checkWin(grid, dropDiagSWNE));
-    grid[1][5].setBackground(Color.white);
-    assertFalse(game.checkWin(grid, dropDiagSWNE));
+    assertFalse(game.checkWin(dropDiagSWNE));
 
     //empty board
-    resetColor();
+    game.resetBoard();
     Drop dropEmpty = new Drop(0, 0, color);
-    assertFalse(game.checkWin(grid, dropEmpty));
+    assertFalse(game.checkWin(dropEmpty));
 
     //not empty board, but not winning case
     Drop drop = new Drop(2, 2, color);
-    for (int i = 0; i < 3; i++) {
+    for (int i = 2; i >= 0; i--) {
       for (int j = 0; j < 3; j++) {
-        grid[i][j].setBackground(color);
+        place(i, j);
       }
     }
-    assertFalse(game.checkWin(grid, drop));
+    assertFalse(game.checkWin(drop));
   }
 
   @Test
   public void testMakeDrop() {
     game.setGameActive(true);
     game.setActivePlayer(player1);
-    game.makeDrop(grid);
+    game.makeDrop();
 
     game.switchMode(false);
     game.setActivePlayer(player2);
-    game.makeDrop(grid);
+    game.makeDrop();
+  }
+
+  @Test
+  public void testComputerDrop() {
+    game.switchMode(false);
+    game.setActivePlayer(game.getPlayer2());
+    fillColumn(3);
+    game.computerDrop();
+    SearchResult result = game.getLastSearchResult();
+    assertNotNull(result);
+    assertTrue(result.getBestMove() != 3);
+    assertEquals(ROW_NUM + 1, game.getBoard().getMoveCount());
+  }
+
+  @Test
+  public void testComputerDrop_timeBudget() {
+    Player computer = new PlayerImpl.Builder("Deep", Color.black)
+        .withType("Computer").withTimeBudgetMillis(50).build();
+    game.setPlayers(player1, computer);
+    game.setActivePlayer(computer);
+    game.computerDrop();
+    SearchResult result = game.getLastSearchResult();
+    assertNotNull(result);
+    assertTrue(result.getDepth() > ConnectFourModel.DEFAULT_SEARCH_DEPTH);
+    assertTrue(result.getElapsedNanos() < 1000000000L);
+    assertEquals(1, game.getBoard().getMoveCount());
+  }
+
+  @Test
+  public void testComputerDrop_searchThreads() {
+    game.setSearchThreads(2);
+    try {
+      assertEquals(2, game.getSearchThreads());
+      assertTrue(game.getComputerSearch() instanceof ParallelSearch);
+      game.switchMode(false);
+      game.setActivePlayer(game.getPlayer2());
+      fillColumn(3);
+      game.computerDrop();
+      assertTrue(game.getLastSearchResult().getBestMove() != 3);
+      assertEquals(ROW_NUM + 1, game.getBoard().getMoveCount());
+    } finally {
+      game.setSearchThreads(1);
+    }
+    assertTrue(game.getComputerSearch() instanceof NegamaxSearch);
+  }
+
+  /* a failing search plays the threat move instead of hanging. */
+  @Test
+  public void testComputerDrop_searchThrows() {
+    game.setComputerSearch((board, player) -> {
+      throw new IllegalStateException("broken");
+    });
+    try {
+      game.switchMode(false);
+      game.setActivePlayer(game.getPlayer2());
+      game.computerDrop();
+      assertFalse(game.isSearching());
+      assertEquals(1, game.getBoard().getMoveCount());
+      assertEquals(0, game.getLastSearchResult().getDepth());
+    } finally {
+      game.setSearchThreads(1);
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testSetSearchThreads_none() {
+    game.setSearchThreads(0);
+  }
+
+  @Test
+  public void testComputerDrop_moveProvider() {
+    Player computer = new PlayerImpl.Builder("Edge", Color.black)
+        .withMoveProvider((view, budget) -> view.getColNum() - 1).build();
+    game.setPlayers(player1, computer);
+    game.setActivePlayer(computer);
+    game.computerDrop();
+    assertEquals(COL_NUM - 1, game.getLastSearchResult().getBestMove());
+    assertEquals(1, game.getBoard().getOwner(0, COL_NUM - 1));
+  }
+
+  /* a provider choosing a full column gets the threat move instead. */
+  @Test
+  public void testComputerDrop_faultyMoveProvider() {
+    Player computer = new PlayerImpl.Builder("Stuck", Color.black)
+        .withMoveProvider((view, budget) -> 3).build();
+    game.setPlayers(player1, computer);
+    fillColumn(3);
+    game.setActivePlayer(computer);
+    game.computerDrop();
+    assertTrue(game.getLastSearchResult().getBestMove() != 3);
+    assertEquals(ROW_NUM + 1, game.getBoard().getMoveCount());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testSetPlayers_sameColor() {
+    game.setPlayers(player1, new PlayerImpl.Builder("Deep", Color.red)
+        .build());
   }
 
   @Test
@@ -315,4 +407,84 @@ public class ConnectFourModelTest {
     game.setGameActive(true);
     assertEquals(true, game.getGameActive());
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testSetRules_largeBoard() {
+    game.setRules(new Rules(10, 9, 5));
+    assertEquals(10, game.getRules().getColNum());
+    game.setActivePlayer(player1);
+    for (int col = 5; col < 10; col++) {
+      game.findDrop(col);
+      assertEquals(col == 9, game.checkWin(new Drop(8, col, Color.red)));
+      if (col < 9) {
+        game.getGameState().setPlayerToMove(1);
+        game.getGameState().play(col);
+        game.setActivePlayer(player1);
+      }
+    }
+    assertEquals(9, game.getBoard().getMoveCount());
+  }
+
+  @Test
+  public void testComputerDrop_variantBlocks() {
+    game.setRules(new Rules(8, 7, 4));
+    game.switchMode(false);
+    GameState state = game.getGameState();
+    for (int col = 0; col < 3; col++) {
+      state.setPlayerToMove(0);
+      state.play(col);
+    }
+    game.setActivePlayer(game.getPlayer2());
+    game.computerDrop();
+    assertEquals(3, game.getLastSearchResult().getBestMove());
+    assertEquals(1, state.getBoard().getOwner(0, 3));
+  }
+
+  @Test
+  public void testComputerDrop_variantMonteCarlo() {
+    game.setRules(new Rules(8, 7, 4));
+    game.switchMode(false);
+    game.setVariantSearch(new MonteCarloSearch(2000));
+    game.getGameState().setPlayerToMove(0);
+    game.getGameState().play(3);
+    game.setActivePlayer(game.getPlayer2());
+    game.computerDrop();
+    assertEquals(2000, game.getLastSearchResult().getNodes());
+    assertEquals(2, game.getBoard().getMoveCount());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testSetRules_null() {
+    game.setRules(null);
+  }
+
+  /* restart while the computer searches on a worker: the move is dropped. */
+  @Test
+  public void testResetBoard_cancelsSearch() throws Exception {
+    ExecutorService worker = GameEventBus.newWorker();
+    LinkedBlockingQueue<Runnable> callbacks =
+        new LinkedBlockingQueue<Runnable>();
+    GameEventBus bus = game.getEventBus();
+    try {
+      bus.setWorkerExecutor(worker);
+      bus.setCallbackExecutor(callbacks::add);
+      game.switchMode(false);
+      game.setActivePlayer(game.getPlayer2());
+      game.computerDrop();
+      assertTrue(game.isSearching());
+      game.checkBoard(0);
+      assertEquals(0, game.getBoard().getMoveCount());
+      game.resetBoard();
+      assertFalse(game.isSearching());
+      Runnable callback = callbacks.poll(10, TimeUnit.SECONDS);
+      if (callback != null) {
+        callback.run();
+      }
+      assertEquals(0, game.getBoard().getMoveCount());
+    } finally {
+      bus.setWorkerExecutor(Runnable::run);
+      bus.setCallbackExecutor(Runnable::run);
+      worker.shutdownNow();
+    }
+  }
+}
@@ -0,0 +1,79 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class EngineMoveProviderTest {
+
+  private static GameState state(Rules rules, String moves) {
+    GameState state = new GameState(rules);
+    for (int i = 0; i < moves.length(); i++) {
+      state.play(moves.charAt(i) - '1');
+    }
+    return state;
+  }
+
+  @Test
+  public void testChooseMove_search() {
+    EngineMoveProvider provider =
+        new EngineMoveProvider(new NegamaxSearch(4));
+    assertEquals(0, provider.chooseMove(state(Rules.STANDARD, "121212")));
+    assertEquals(0, provider.getLastResult().getBestMove());
+    assertTrue(provider.getLastResult().getNodes() > 0);
+  }
+
+  /* the discs of the view count, not the order of the moves. */
+  @Test
+  public void testChooseMove_ownersFromView() {
+    GameState state = state(Rules.STANDARD, "");
+    for (int i = 0; i < 3; i++) {
+      state.setPlayerToMove(1);
+      state.play(6);
+    }
+    state.setPlayerToMove(0);
+    assertEquals(6, new EngineMoveProvider(new NegamaxSearch(2))
+        .chooseMove(state));
+  }
+
+  @Test
+  public void testChooseMove_variant() {
+    int col = new EngineMoveProvider(new MonteCarloSearch(500))
+        .chooseMove(state(new Rules(8, 7, 4), "4"), 0);
+    assertTrue(col >= 0 && col < 8);
+  }
+
+  /* a board beyond a long gets the threat move, not an exception. */
+  @Test
+  public void testChooseMove_largeBoard() {
+    EngineMoveProvider provider =
+        new EngineMoveProvider(new MonteCarloSearch(500));
+    assertEquals(4, provider.chooseMove(state(new Rules(10, 9, 5),
+        "6172839")));
+    assertEquals(0, provider.getLastResult().getNodes());
+  }
+
+  /* the board is kept between calls and replays the game each time. */
+  @Test
+  public void testChooseMove_reusedBoard() {
+    EngineMoveProvider provider =
+        new EngineMoveProvider(new NegamaxSearch(4));
+    assertEquals(0, provider.chooseMove(state(Rules.STANDARD, "121212")));
+    assertEquals(3, provider.chooseMove(state(Rules.STANDARD, "")));
+    assertEquals(0, provider.chooseMove(state(Rules.STANDARD, "121212")));
+  }
+
+  @Test
+  public void testThreatMoveProvider() {
+    ThreatMoveProvider provider = new ThreatMoveProvider();
+    assertEquals(3, provider.chooseMove(state(Rules.STANDARD, "")));
+    assertEquals(0, provider.chooseMove(state(Rules.STANDARD, "414151")));
+    assertEquals(4, provider.chooseMove(state(new Rules(10, 9, 5),
+        "6172839")));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testConstructor_null() {
+    new EngineMoveProvider(null);
+  }
+}
@@ -0,0 +1,128 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class EvaluatorTest {
+  private static final int H1 = BitBoard.ROW_NUM + 1;
+
+  private static long cell(int col, int row) {
+    return 1L << (col * H1 + row);
+  }
+
+  @Test
+  public void testWindowCount() {
+    assertEquals(69, Evaluator.STANDARD.getWindowCount());
+    assertEquals(4 * 7 + 8 * 3 + 2 * 4 * 3,
+        new Evaluator(new Rules(8, 7, 5)).getWindowCount());
+  }
+
+  @Test
+  public void testEvaluate_emptyBoard() {
+    assertEquals(0, Evaluator.STANDARD.evaluate(new BitBoard(), 0));
+  }
+
+  @Test
+  public void testEvaluate_centerIsBetter() {
+    BitBoard center = BitBoard.fromMoves("4");
+    BitBoard edge = BitBoard.fromMoves("1");
+    assertTrue(Evaluator.STANDARD.evaluate(center, 1) < 0);
+    assertTrue(Evaluator.STANDARD.evaluate(center, 1)
+        < Evaluator.STANDARD.evaluate(edge, 1));
+  }
+
+  @Test
+  public void testEvaluate_mirrorSymmetric() {
+    BitBoard board = BitBoard.fromMoves("12234451");
+    BitBoard mirrored = BitBoard.fromMoves("76654437");
+    assertEquals(Evaluator.STANDARD.evaluate(board, 0),
+        Evaluator.STANDARD.evaluate(mirrored, 0));
+  }
+
+  /* rows 3 and 4 from the bottom mirror each other vertically, so only
+     the parity of the threat cell tells the two positions apart. */
+  @Test
+  public void testEvaluate_oddEvenThreats() {
+    long odd = cell(0, 2) | cell(1, 2) | cell(2, 2);
+    long even = cell(0, 3) | cell(1, 3) | cell(2, 3);
+    int first = Evaluator.STANDARD.evaluate(odd, odd | cell(6, 2))
+        - Evaluator.STANDARD.evaluate(even, even | cell(6, 3));
+    assertEquals(Evaluator.GOOD_THREAT - Evaluator.THREAT, first);
+    int second = Evaluator.STANDARD.evaluate(odd,
+        odd | cell(6, 2) | cell(6, 1))
+        - Evaluator.STANDARD.evaluate(even, even | cell(6, 3) | cell(6, 4));
+    assertEquals(Evaluator.THREAT - Evaluator.GOOD_THREAT, second);
+  }
+
+  /* the connect four shortcut must agree with the general counting. */
+  @Test
+  public void testFours_matchesLines() {
+    SplittableRandom random = new SplittableRandom(7);
+    for (int i = 0; i < 1000; i++) {
+      BitBoard board = new BitBoard();
+      int plies = random.nextInt(30);
+      while (board.getMoveCount() < plies) {
+        int col = random.nextInt(BitBoard.COL_NUM);
+        if (board.canPlay(col)) {
+          board.play(col);
+        }
+      }
+      long mask = board.getDiscs(0) | board.getDiscs(1);
+      long current = board.getDiscs(board.getCurrentPlayer());
+      long rows = random.nextLong();
+      assertEquals(Evaluator.STANDARD.lines(current, mask, rows),
+          Evaluator.STANDARD.fours(current, mask, rows));
+    }
+  }
+
+  @Test
+  public void testEvaluate_connectFive() {
+    Evaluator evaluator = new Evaluator(new Rules(8, 7, 5));
+    BitBoard board = new BitBoard(new Rules(8, 7, 5));
+    assertEquals(0, evaluator.evaluate(board, 0));
+    board.play(3);
+    board.play(3);
+    board.play(4);
+    assertTrue(evaluator.evaluate(board, 1) < 0);
+  }
+
+  @Test
+  public void testEvaluate_bounded() {
+    long all = 0L;
+    for (int col = 0; col < BitBoard.COL_NUM; col++) {
+      all |= BitBoard.columnMask(col);
+    }
+    assertTrue(Math.abs(Evaluator.STANDARD.evaluate(all, all))
+        <= Evaluator.MAX_SCORE);
+    assertTrue(Evaluator.MAX_SCORE < NegamaxSearch.MIN_WIN_SCORE);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testEvaluate_otherRules() {
+    Evaluator.STANDARD.evaluate(new BitBoard(new Rules(8, 6, 4)), 0);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testEvaluator_tooLarge() {
+    new Evaluator(new Rules(9, 7, 4));
+  }
+
+  /* eight fits the three-bit counters, nine does not. */
+  @Test
+  public void testEvaluator_maxConnect() {
+    Evaluator eight = new Evaluator(new Rules(8, 7, Evaluator.MAX_CONNECT));
+    BitBoard board = new BitBoard(eight.getRules());
+    for (int col = 0; col < 7; col++) {
+      board.play(col, 0);
+    }
+    assertTrue(eight.evaluate(board, 0) > 0);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testEvaluator_connectTooLong() {
+    new Evaluator(new Rules(10, 5, Evaluator.MAX_CONNECT + 1));
+  }
+}
@@ -0,0 +1,153 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.Test;
+
+public class GameAnalyzerTest {
+
+  /* scores a position from its discs alone, so any thread gets the same. */
+  private static final class HashEngine implements SearchEngine {
+    @Override
+    public SearchResult search(BitBoard board, int player) {
+      return new SearchResult(0, evaluate(board, player), 0, 0, 0);
+    }
+
+    @Override
+    public int evaluate(BitBoard board, int player) {
+      return (int) Long.remainderUnsigned(board.getDiscs(player) * 31
+          + board.getDiscs(player ^ 1), 19) - 9;
+    }
+  }
+
+  private static GameRecord game(String moves, int result) {
+    int[] columns = new int[moves.length()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = moves.charAt(i) - '1';
+    }
+    return new GameRecord(Rules.STANDARD, "A", "B", result, columns);
+  }
+
+  private static GameRecord randomGame(SplittableRandom random) {
+    BitBoard board = new BitBoard();
+    StringBuilder moves = new StringBuilder();
+    int player = 0;
+    while (!board.isFull() && !board.isWin(player ^ 1)) {
+      int col = random.nextInt(BitBoard.COL_NUM);
+      if (board.canPlay(col)) {
+        board.play(col, player);
+        moves.append(col + 1);
+        player ^= 1;
+      }
+    }
+    return game(moves.toString(), board.isFull() && !board.isWin(player ^ 1)
+        ? GameRecord.DRAW : player ^ 1);
+  }
+
+  @Test
+  public void testAnalyze_findsMissedWin() throws InterruptedException {
+    // A can win with column 1 at the 7th move but plays 7, then B wins
+    GameRecord record = game("12121272", 1);
+    GameAnalysis analysis = GameAnalyzer.withSearch(6, 1, 2)
+        .analyze(record);
+    assertEquals(8, analysis.getMoveCount());
+    assertTrue(analysis.getBestScore(6) > NegamaxSearch.MIN_WIN_SCORE);
+    assertTrue(analysis.getPlayedScore(6) < 0);
+    assertTrue(analysis.isBlunder(6));
+    assertTrue(analysis.getDelta(6) > 0);
+    assertEquals(analysis.getBestScore(7), analysis.getPlayedScore(7));
+    assertEquals(1, analysis.getBlunderCount(0));
+    assertTrue(analysis.toString().contains(" 7 A 7 "));
+  }
+
+  @Test
+  public void testAnalyzeAll_sameForAnyThreads() throws InterruptedException {
+    SplittableRandom random = new SplittableRandom(5);
+    List<GameRecord> records = new ArrayList<GameRecord>();
+    for (int i = 0; i < 200; i++) {
+      records.add(randomGame(random));
+    }
+    List<GameAnalysis> one = new GameAnalyzer(HashEngine::new, 1)
+        .analyzeAll(records);
+    List<GameAnalysis> four = new GameAnalyzer(HashEngine::new, 4)
+        .analyzeAll(records);
+    assertEquals(records.size(), four.size());
+    for (int g = 0; g < records.size(); g++) {
+      GameAnalysis analysis = four.get(g);
+      assertSame(records.get(g), analysis.getRecord());
+      for (int ply = 0; ply < analysis.getMoveCount(); ply++) {
+        assertEquals(one.get(g).getBestScore(ply),
+            analysis.getBestScore(ply));
+        assertEquals(one.get(g).getPlayedScore(ply),
+            analysis.getPlayedScore(ply));
+        if (ply + 1 < analysis.getMoveCount()) {
+          assertEquals(-analysis.getBestScore(ply + 1),
+              analysis.getPlayedScore(ply));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testAnalyzeAll_recordFile() throws Exception {
+    Path path = File.createTempFile("games", ".c4r").toPath();
+    Files.delete(path);
+    SplittableRandom random = new SplittableRandom(9);
+    try {
+      try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+        for (int i = 0; i < GameAnalyzer.BATCH_GAMES + 10; i++) {
+          writer.write(randomGame(random));
+        }
+        writer.write(new GameRecord(new Rules(5, 4, 3), "A", "B",
+            GameRecord.UNFINISHED, new int[] {2}));
+        writer.write(game("1111111", GameRecord.UNFINISHED));
+      }
+      List<GameAnalysis> analyses = new ArrayList<GameAnalysis>();
+      GameAnalyzer.Result result = new GameAnalyzer(HashEngine::new, 3)
+          .analyzeAll(path, analyses::add);
+      assertEquals(GameAnalyzer.BATCH_GAMES + 10, result.getGames());
+      assertEquals(2, result.getSkipped());
+      assertEquals(result.getGames(), analyses.size());
+      long positions = 0;
+      for (GameAnalysis analysis : analyses) {
+        positions += analysis.getMoveCount() + 1;
+      }
+      assertEquals(positions, result.getPositions());
+      assertTrue(result.getPositionsPerSecond() > 0);
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test
+  public void testAnalyze_unfinishedGame() throws InterruptedException {
+    GameAnalysis analysis = new GameAnalyzer(HashEngine::new, 1)
+        .analyze(game("44", GameRecord.UNFINISHED));
+    HashEngine engine = new HashEngine();
+    assertEquals(-engine.evaluate(BitBoard.fromMoves("44"), 0),
+        analysis.getPlayedScore(1));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testAnalyze_otherRules() throws InterruptedException {
+    new GameAnalyzer(HashEngine::new, 1).analyze(new GameRecord(
+        new Rules(5, 4, 3), "A", "B", GameRecord.UNFINISHED, new int[0]));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testAnalyze_moveAfterWin() throws InterruptedException {
+    new GameAnalyzer(HashEngine::new, 1).analyze(game("12121212", 0));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testConstructor_noThreads() {
+    new GameAnalyzer(HashEngine::new, 0);
+  }
+}
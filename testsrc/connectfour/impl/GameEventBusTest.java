@@ -0,0 +1,165 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import connectfour.api.ConnectFourListener;
+
+public class GameEventBusTest {
+  private GameEventBus bus;
+  private ExecutorService worker;
+  private LinkedBlockingQueue<Runnable> callbacks;
+
+  @Before
+  public void setUp() {
+    bus = new GameEventBus();
+    worker = GameEventBus.newWorker();
+    callbacks = new LinkedBlockingQueue<Runnable>();
+    bus.setWorkerExecutor(worker);
+    bus.setCallbackExecutor(callbacks::add);
+  }
+
+  @After
+  public void tearDown() {
+    worker.shutdownNow();
+  }
+
+  @Test
+  public void testSearch_resultOnCallbackExecutor() throws Exception {
+    AtomicReference<SearchResult> result = new AtomicReference<SearchResult>();
+    bus.search(new NegamaxSearch(4), BitBoard.fromMoves("626262"), 0,
+        result::set);
+    Runnable callback = callbacks.poll(10, TimeUnit.SECONDS);
+    assertNotNull(callback);
+    assertNull(result.get());
+    callback.run();
+    assertEquals(5, result.get().getBestMove());
+  }
+
+  @Test
+  public void testCancelSearch_interruptsAndDropsResult() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch interrupted = new CountDownLatch(1);
+    SearchEngine slow = (board, player) -> {
+      started.countDown();
+      try {
+        Thread.sleep(60000);
+      } catch (InterruptedException e) {
+        interrupted.countDown();
+      }
+      return new SearchResult(0, 0, 0, 0, 0);
+    };
+    List<SearchResult> results = new ArrayList<SearchResult>();
+    bus.search(slow, new BitBoard(), 0, results::add);
+    assertTrue(started.await(10, TimeUnit.SECONDS));
+    bus.cancelSearch();
+    assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+    Runnable callback = callbacks.poll(1, TimeUnit.SECONDS);
+    if (callback != null) {
+      callback.run();
+    }
+    assertTrue(results.isEmpty());
+  }
+
+  /* a failing engine reaches the failure callback and frees the bus. */
+  @Test
+  public void testSearch_engineThrows() throws Exception {
+    SearchEngine broken = (board, player) -> {
+      throw new IllegalStateException("broken");
+    };
+    List<SearchResult> results = new ArrayList<SearchResult>();
+    List<RuntimeException> failures = new ArrayList<RuntimeException>();
+    bus.search(broken, new BitBoard(), 0, 0, results::add, failures::add);
+    Runnable callback = callbacks.poll(10, TimeUnit.SECONDS);
+    assertNotNull(callback);
+    callback.run();
+    assertTrue(results.isEmpty());
+    assertEquals("broken", failures.get(0).getMessage());
+    bus.search(new NegamaxSearch(4), BitBoard.fromMoves("626262"), 0,
+        results::add);
+    callbacks.poll(10, TimeUnit.SECONDS).run();
+    assertEquals(5, results.get(0).getBestMove());
+  }
+
+  /* a cancelled negamax search stops early instead of finishing. */
+  @Test
+  public void testCancelSearch_stopsNegamax() throws Exception {
+    List<SearchResult> results = new ArrayList<SearchResult>();
+    bus.search(new NegamaxSearch(42), new BitBoard(), 0, results::add);
+    Thread.sleep(50);
+    bus.cancelSearch();
+    AtomicReference<SearchResult> next = new AtomicReference<SearchResult>();
+    bus.search(new NegamaxSearch(2), new BitBoard(), 0, next::set);
+    Runnable callback = callbacks.poll(10, TimeUnit.SECONDS);
+    assertNotNull(callback);
+    callback.run();
+    assertNotNull(next.get());
+    assertTrue(results.isEmpty());
+  }
+
+  @Test
+  public void testPost_deliversOnCallbackExecutor() {
+    List<String> winners = new ArrayList<String>();
+    bus.addListener(new WinRecorder(winners));
+    bus.post(listener -> listener.gameWin("Alice"));
+    assertTrue(winners.isEmpty());
+    callbacks.poll().run();
+    assertEquals(1, winners.size());
+    assertEquals("Alice", winners.get(0));
+  }
+
+  /**
+   * listener keeping the names of the winners.
+   */
+  private static class WinRecorder implements ConnectFourListener {
+    private final List<String> winners;
+
+    private WinRecorder(List<String> winners) {
+      this.winners = winners;
+    }
+
+    @Override
+    public void playerMode() {
+    }
+
+    @Override
+    public void gameStart() {
+    }
+
+    @Override
+    public void playerTurnToMove(String playerName) {
+    }
+
+    @Override
+    public void playerDrop(Drop drop) {
+    }
+
+    @Override
+    public void columnFull(int column) {
+    }
+
+    @Override
+    public void gameWin(String winnerName) {
+      winners.add(winnerName);
+    }
+
+    @Override
+    public void gameDraw() {
+    }
+
+    @Override
+    public void restart() {
+    }
+  }
+}
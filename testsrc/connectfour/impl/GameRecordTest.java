@@ -0,0 +1,52 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class GameRecordTest {
+
+  @Test
+  public void testGameRecord() {
+    int[] moves = {3, 3, 2, 2, 1, 1, 0};
+    GameRecord record = new GameRecord(Rules.STANDARD, "Alice", "Bob", 0,
+        moves);
+    moves[0] = 6;
+    assertEquals(3, record.getMove(0));
+    assertEquals(7, record.getMoveCount());
+    assertEquals("Bob", record.getPlayerName(1));
+    assertEquals(0, record.getResult());
+    assertTrue(record.replay().isWin(0));
+  }
+
+  @Test
+  public void testOf() {
+    ConnectFourModel game = new ConnectFourModel();
+    game.getGameState().play(3);
+    game.getGameState().play(4);
+    GameRecord record = GameRecord.of(game, GameRecord.UNFINISHED);
+    assertEquals(2, record.getMoveCount());
+    assertEquals(4, record.getMove(1));
+    assertEquals(PlayerFactory.DEFAULT_PLAYER1_NAME,
+        record.getPlayerName(0));
+  }
+
+  @Test
+  public void testMoveBits() {
+    assertEquals(3, GameRecord.moveBits(Rules.STANDARD));
+    assertEquals(3, GameRecord.moveBits(new Rules(8, 7, 4)));
+    assertEquals(4, GameRecord.moveBits(new Rules(10, 9, 5)));
+    assertEquals(1, GameRecord.moveBits(new Rules(1, 4, 4)));
+    assertEquals(5, GameRecord.moveBits(new Rules(32, 32, 4)));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testGameRecord_columnOutOfRange() {
+    new GameRecord(Rules.STANDARD, "Alice", "Bob", 0, new int[] {7});
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testGameRecord_illegalResult() {
+    new GameRecord(Rules.STANDARD, "Alice", "Bob", 4, new int[0]);
+  }
+}
@@ -0,0 +1,167 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.After;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameRecordWriterTest {
+  private Path path;
+
+  @Before
+  public void setUp() throws IOException {
+    path = File.createTempFile("games", ".c4r").toPath();
+    Files.delete(path);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  private static GameRecord randomGame(Rules rules, SplittableRandom random) {
+    Board board = rules.newBoard();
+    int plies = random.nextInt(rules.getCellNum() + 1);
+    int[] moves = new int[plies];
+    for (int i = 0; i < plies; i++) {
+      int col;
+      do {
+        col = random.nextInt(rules.getColNum());
+      } while (!board.canPlay(col));
+      board.play(col);
+      moves[i] = col;
+    }
+    return new GameRecord(rules, "P" + random.nextInt(100), "Q\u00e9",
+        random.nextInt(4), moves);
+  }
+
+  private List<GameRecord> readAll() throws IOException {
+    List<GameRecord> records = new ArrayList<GameRecord>();
+    try (GameRecordReader reader = GameRecordReader.open(path)) {
+      reader.forEach(records::add);
+    }
+    return records;
+  }
+
+  @Test
+  public void testWriteRead() throws IOException {
+    GameRecord game = new GameRecord(Rules.STANDARD, "Alice", "Bob", 1,
+        new int[] {0, 1, 2, 3, 4, 5, 6, 6});
+    try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+      writer.write(game);
+      assertEquals(1, writer.getRecordCount());
+    }
+    assertEquals(8 + 8 + 5 + 3 + 3, Files.size(path));
+    List<GameRecord> records = readAll();
+    assertEquals(1, records.size());
+    assertEquals(game, records.get(0));
+  }
+
+  /* enough records to refill the reader's buffer many times. */
+  @Test
+  public void testWriteRead_streaming() throws IOException {
+    SplittableRandom random = new SplittableRandom(7);
+    Rules[] rules = {Rules.STANDARD, new Rules(10, 9, 5), new Rules(2, 3, 2)};
+    List<GameRecord> games = new ArrayList<GameRecord>();
+    try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+      for (int i = 0; i < 20000; i++) {
+        GameRecord game = randomGame(rules[i % rules.length], random);
+        games.add(game);
+        writer.write(game);
+      }
+    }
+    assertEquals(games, readAll());
+  }
+
+  @Test
+  public void testOpen_appends() throws IOException {
+    GameRecord game = new GameRecord(Rules.STANDARD, "A", "B",
+        GameRecord.DRAW, new int[] {3});
+    for (int i = 0; i < 2; i++) {
+      try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+        writer.write(game);
+      }
+    }
+    assertEquals(2, readAll().size());
+  }
+
+  @Test
+  public void testListenTo() throws IOException {
+    ConnectFourModel game = new ConnectFourModel();
+    try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+      writer.listenTo(game);
+      game.setGameActive(true);
+      for (int col : new int[] {0, 1, 0, 1, 0, 1}) {
+        game.findDrop(col);
+      }
+      game.findDrop(0);
+      assertTrue(game.checkWin(new Drop(2, 0, Color.red)));
+    }
+    List<GameRecord> records = readAll();
+    assertEquals(1, records.size());
+    assertEquals(0, records.get(0).getResult());
+    assertEquals(7, records.get(0).getMoveCount());
+  }
+
+  /* a full disk does not stop the games; close reports it. */
+  @Test
+  public void testRecord_failureThrownOnClose() throws IOException {
+    Path full = Paths.get("/dev/full");
+    Assume.assumeTrue(Files.isWritable(full));
+    ConnectFourModel game = new ConnectFourModel();
+    game.setGameActive(true);
+    game.findDrop(3);
+    GameRecordWriter writer = GameRecordWriter.open(full);
+    for (int i = 0; i < 2 * GameRecordWriter.BUFFER_BYTES / 8; i++) {
+      writer.record(game, GameRecord.UNFINISHED);
+    }
+    try {
+      writer.close();
+      fail("close must report the failed writes");
+    } catch (IOException e) {
+      assertTrue(e.getSuppressed().length > 0);
+    }
+  }
+
+  @Test (expected = IOException.class)
+  public void testRead_truncated() throws IOException {
+    try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+      writer.write(new GameRecord(Rules.STANDARD, "Alice", "Bob", 0,
+          new int[] {0, 1, 2, 3}));
+    }
+    byte[] bytes = Files.readAllBytes(path);
+    Files.write(path, Arrays.copyOf(bytes, bytes.length - 1));
+    readAll();
+  }
+
+  @Test (expected = IOException.class)
+  public void testRead_notRecords() throws IOException {
+    Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9});
+    GameRecordReader.open(path);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testWrite_longName() throws IOException {
+    StringBuilder name = new StringBuilder();
+    for (int i = 0; i < 256; i++) {
+      name.append('x');
+    }
+    try (GameRecordWriter writer = GameRecordWriter.open(path)) {
+      writer.write(new GameRecord(Rules.STANDARD, name.toString(), "B", 0,
+          new int[0]));
+    }
+  }
+}
@@ -0,0 +1,126 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameServerTest {
+  private GameServer server;
+
+  @Before
+  public void setUp() throws Exception {
+    server = new GameServer(0);
+    server.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    server.close();
+  }
+
+  private LineChannel connect() throws Exception {
+    LineChannel channel =
+        new LineChannel(new Socket("localhost", server.getPort()));
+    assertEquals("HELLO connect-four", channel.readLine());
+    return channel;
+  }
+
+  @Test (timeout = 10000)
+  public void testMatch() throws Exception {
+    try (LineChannel alice = connect(); LineChannel bob = connect()) {
+      alice.send("MATCH");
+      assertEquals("WAIT", alice.readLine());
+      bob.send("MATCH 7x6");
+      assertEquals("START 0 7x6x4", alice.readLine());
+      assertEquals("TURN", alice.readLine());
+      assertEquals("START 1 7x6x4", bob.readLine());
+      for (int i = 0; i < 3; i++) {
+        alice.send("DROP 0");
+        assertEquals("MOVE 0 0 " + i, alice.readLine());
+        assertEquals("MOVE 0 0 " + i, bob.readLine());
+        assertEquals("TURN", bob.readLine());
+        bob.send("DROP 1");
+        assertEquals("MOVE 1 1 " + i, bob.readLine());
+        assertEquals("MOVE 1 1 " + i, alice.readLine());
+        assertEquals("TURN", alice.readLine());
+      }
+      assertEquals(1, server.getActiveMatchCount());
+      alice.send("DROP 0");
+      assertEquals("MOVE 0 0 3", alice.readLine());
+      assertEquals("WIN 0", alice.readLine());
+      assertEquals("MOVE 0 0 3", bob.readLine());
+      assertEquals("WIN 0", bob.readLine());
+      assertEquals(0, server.getActiveMatchCount());
+      assertEquals(1, server.getMatchCount());
+    }
+  }
+
+  @Test (timeout = 10000)
+  public void testOpponentLeaves() throws Exception {
+    try (LineChannel alice = connect(); LineChannel bob = connect()) {
+      alice.send("MATCH");
+      assertEquals("WAIT", alice.readLine());
+      bob.send("MATCH");
+      assertEquals("START 1 7x6x4", bob.readLine());
+      alice.send("QUIT");
+      assertEquals("LEFT", bob.readLine());
+    }
+  }
+
+  @Test (timeout = 10000)
+  public void testErrors() throws Exception {
+    try (LineChannel alice = connect()) {
+      alice.send("DROP 3");
+      assertEquals("ERROR No match", alice.readLine());
+      alice.send("MATCH 1x1");
+      assertEquals("ERROR Connect out of range", alice.readLine());
+      alice.send("HELLO");
+      assertEquals("ERROR Unknown command", alice.readLine());
+      alice.send("QUIT");
+      assertEquals("BYE", alice.readLine());
+      assertNull(alice.readLine());
+    }
+  }
+
+  @Test (timeout = 60000)
+  public void testLoadGenerator() throws Exception {
+    LoadGenerator.Result result =
+        new LoadGenerator("localhost", server.getPort(), Rules.STANDARD)
+        .run(50, 30000);
+    assertEquals(50, result.getMatches());
+    assertEquals(0, result.getFailures());
+    assertTrue(result.getMoves() >= 50 * 7);
+    assertEquals(50, server.getMatchCount());
+  }
+
+  @Test (timeout = 60000)
+  public void testRecords() throws Exception {
+    Path path = File.createTempFile("games", ".c4r").toPath();
+    Files.delete(path);
+    try (GameRecordWriter records = GameRecordWriter.open(path);
+        GameServer recorded = new GameServer(0, records)) {
+      recorded.start();
+      new LoadGenerator("localhost", recorded.getPort(), Rules.STANDARD)
+          .run(10, 30000);
+      assertEquals(10, records.getRecordCount());
+    }
+    try (GameRecordReader reader = GameRecordReader.open(path)) {
+      assertEquals(10, reader.forEach(record ->
+          assertTrue(record.getResult() != GameRecord.UNFINISHED)));
+    } finally {
+      Files.deleteIfExists(path);
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testGameServer_illegalPort() throws Exception {
+    new GameServer(-1);
+  }
+}
@@ -0,0 +1,131 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameSessionTest {
+  private List<String> first;
+  private List<String> second;
+  private GameSession session;
+
+  @Before
+  public void setUp() {
+    first = new ArrayList<String>();
+    second = new ArrayList<String>();
+    session = new GameSession(Rules.STANDARD, first::add, second::add);
+  }
+
+  /**
+   * helper to drop alternately, player 0 first.
+   */
+  private void play(String columns) {
+    for (int i = 0; i < columns.length(); i++) {
+      session.drop(i % 2, columns.charAt(i) - '0');
+    }
+  }
+
+  @Test
+  public void testStart() {
+    session.start();
+    assertEquals("START 0 7x6x4", first.get(0));
+    assertEquals("TURN", first.get(1));
+    assertEquals("START 1 7x6x4", second.get(0));
+    assertEquals(1, second.size());
+  }
+
+  @Test
+  public void testDrop_movesSentToBoth() {
+    session.start();
+    session.drop(0, 3);
+    assertEquals("MOVE 0 3 0", first.get(2));
+    assertEquals("MOVE 0 3 0", second.get(1));
+    assertEquals("TURN", second.get(2));
+    session.drop(1, 3);
+    assertEquals("MOVE 1 3 1", first.get(3));
+    assertEquals(2, session.getMoveCount());
+  }
+
+  @Test
+  public void testDrop_notYourTurn() {
+    session.drop(0, 3);
+    assertEquals("ERROR Not your turn", first.get(0));
+    session.start();
+    session.drop(1, 3);
+    assertEquals("ERROR Not your turn", second.get(second.size() - 1));
+    assertEquals(0, session.getMoveCount());
+  }
+
+  @Test
+  public void testDrop_outOfRange() {
+    session.start();
+    session.drop(0, 7);
+    assertEquals("ERROR Column out of range", first.get(first.size() - 1));
+  }
+
+  @Test
+  public void testDrop_columnFull() {
+    session.start();
+    play("000000");
+    session.drop(0, 0);
+    assertEquals("ERROR Column is full", first.get(first.size() - 1));
+    assertEquals(6, session.getMoveCount());
+  }
+
+  @Test
+  public void testWin() {
+    session.start();
+    play("0101010");
+    assertTrue(session.isOver());
+    assertEquals("WIN 0", first.get(first.size() - 1));
+    assertEquals("WIN 0", second.get(second.size() - 1));
+    session.drop(1, 2);
+    assertEquals("ERROR Game is over", second.get(second.size() - 1));
+  }
+
+  @Test
+  public void testDraw() {
+    session = new GameSession(new Rules(3, 2, 3), first::add, second::add);
+    session.start();
+    play("012012");
+    assertTrue(session.isOver());
+    assertEquals("DRAW", first.get(first.size() - 1));
+  }
+
+  @Test
+  public void testLeave() {
+    session.start();
+    session.leave(0);
+    assertTrue(session.isOver());
+    assertEquals("LEFT", second.get(second.size() - 1));
+  }
+
+  /* a player left between pairing and start: the match never starts. */
+  @Test
+  public void testStart_afterLeave() {
+    session.leave(0);
+    session.start();
+    assertEquals("[LEFT]", second.toString());
+    assertTrue(first.isEmpty());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testGameSession_nullRules() {
+    new GameSession(null, first::add, second::add);
+  }
+
+  @Test
+  public void testGameSession_separateGames() {
+    GameSession other = new GameSession(Rules.STANDARD, line -> { },
+        line -> { });
+    session.start();
+    other.start();
+    session.drop(0, 3);
+    assertEquals(1, session.getMoveCount());
+    assertEquals(0, other.getMoveCount());
+  }
+}
@@ -0,0 +1,170 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class GameStateTest {
+  private GameState state;
+
+  @Before
+  public void setUp() {
+    state = new GameState();
+  }
+
+  @Test
+  public void testPlay_alternates() {
+    assertEquals(0, state.getPlayerToMove());
+    assertEquals(0, state.play(3));
+    assertEquals(1, state.getPlayerToMove());
+    assertEquals(1, state.play(3));
+    assertEquals(0, state.getPlayerToMove());
+    assertEquals(2, state.getHeight(3));
+    assertEquals(2, state.getMoveCount());
+  }
+
+  @Test
+  public void testPlay_win() {
+    for (int i = 0; i < 3; i++) {
+      state.play(0);
+      state.play(1);
+    }
+    assertFalse(state.isOver());
+    state.play(0);
+    assertTrue(state.isOver());
+    assertEquals(0, state.getWinner());
+    assertTrue(state.isWin(0));
+    assertFalse(state.isDraw());
+  }
+
+  @Test
+  public void testCopy() {
+    state.play(3);
+    state.setPlayerToMove(0);
+    state.play(3);
+    state.play(2);
+    GameState copy = state.copy();
+    assertEquals(3, copy.getMoveCount());
+    assertEquals(0, copy.getOwner(1, 3));
+    assertEquals(state.getPlayerToMove(), copy.getPlayerToMove());
+    copy.play(4);
+    assertEquals(3, state.getMoveCount());
+    assertEquals(7, copy.getColNum());
+    assertEquals(4, copy.getConnect());
+  }
+
+  @Test
+  public void testSetPlayerToMove() {
+    state.setPlayerToMove(1);
+    state.play(2);
+    assertEquals(1, state.getBoard().getOwner(0, 2));
+    assertEquals(0, state.getPlayerToMove());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testSetPlayerToMove_illegalId() {
+    state.setPlayerToMove(2);
+  }
+
+  @Test
+  public void testCanPlay() {
+    assertFalse(state.canPlay(-1));
+    assertFalse(state.canPlay(GameState.COL_NUM));
+    for (int i = 0; i < GameState.ROW_NUM; i++) {
+      assertTrue(state.canPlay(5));
+      state.play(5);
+    }
+    assertFalse(state.canPlay(5));
+  }
+
+  /* columns filled in pairs 0-1, 2-3, 4-5 then 6 leave no four. */
+  @Test
+  public void testDraw() {
+    int[] order = {0, 1, 0, 1, 1, 0, 1, 0, 0, 1, 0, 1};
+    for (int offset = 0; offset < 6; offset += 2) {
+      for (int col : order) {
+        state.play(col + offset);
+      }
+    }
+    for (int i = 0; i < GameState.ROW_NUM; i++) {
+      state.play(6);
+    }
+    assertTrue(state.isFull());
+    assertTrue(state.isDraw());
+    assertEquals(GameState.NO_PLAYER, state.getWinner());
+    state.reset();
+    assertEquals(0, state.getMoveCount());
+    assertFalse(state.isOver());
+  }
+
+  @Test
+  public void testGetThreats() {
+    state.play(2);
+    state.play(2);
+    state.play(3);
+    state.play(3);
+    state.play(4);
+    long left = BitBoard.bottomMask(1);
+    long right = BitBoard.bottomMask(5);
+    assertEquals(left | right, state.getThreats(0));
+    assertEquals(left | right, state.getWinningMoves(0));
+    assertEquals(0L, state.getThreats(1));
+    state.play(1);
+    assertEquals(right, state.getWinningMoves(0));
+  }
+
+  @Test
+  public void testRules_connectFive() {
+    state = new GameState(new Rules(10, 9, 5));
+    assertEquals(10, state.getRules().getColNum());
+    assertTrue(state.canPlay(9));
+    assertFalse(state.canPlay(10));
+    for (int col = 0; col < 4; col++) {
+      state.play(col);
+      state.play(col);
+    }
+    assertTrue(state.isWinningMove(0, 4));
+    assertFalse(state.isWinningMove(1, 4));
+    state.play(4);
+    assertEquals(0, state.getWinner());
+  }
+
+  @Test
+  public void testUndo_takesBackWin() {
+    for (int i = 0; i < 3; i++) {
+      state.play(0);
+      state.play(1);
+    }
+    state.play(0);
+    assertEquals(0, state.getWinner());
+    assertEquals(0, state.undo());
+    assertEquals(GameState.NO_PLAYER, state.getWinner());
+    assertFalse(state.isWin(0));
+    assertEquals(0, state.getPlayerToMove());
+    assertTrue(state.isWinningMove(0, 0));
+    assertEquals(6, state.getMoveCount());
+    state.play(1);
+    assertEquals(1, state.getMove(6));
+  }
+
+  /* play and undo every move back to the empty board. */
+  @Test
+  public void testUndo_restoresEmptyBoard() {
+    int[] moves = {3, 3, 2, 4, 2, 2, 5, 1, 6};
+    for (int col : moves) {
+      state.play(col);
+    }
+    for (int i = moves.length - 1; i >= 0; i--) {
+      assertEquals(moves[i], state.undo());
+    }
+    assertEquals(0, state.getMoveCount());
+    assertEquals(0L, state.getThreats(0) | state.getThreats(1));
+    assertEquals(0, state.getPlayerToMove());
+  }
+
+  @Test (expected = IllegalStateException.class)
+  public void testUndo_noMove() {
+    state.undo();
+  }
+}
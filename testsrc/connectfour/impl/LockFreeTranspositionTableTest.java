@@ -0,0 +1,136 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class LockFreeTranspositionTableTest {
+  private static final int THREADS = 4;
+  private static final int ITERATIONS = 500000;
+  private LockFreeTranspositionTable table;
+
+  @Before
+  public void setUp() {
+    table = new LockFreeTranspositionTable(1);
+  }
+
+  /**
+   * helper to find keys that all land in the first slots of the table.
+   */
+  private long[] collidingKeys(int count, int slots) {
+    long[] keys = new long[count];
+    int n = 0;
+    for (long key = 1; n < count; key++) {
+      if (table.index(key) < slots) {
+        keys[n++] = key;
+      }
+    }
+    return keys;
+  }
+
+  /* every field of the entry is a function of the key. */
+  private static void storeFor(TranspositionTable table, long key) {
+    table.store(key, (int) (key % 40), TranspositionTable.BOUND_EXACT,
+        (int) (key % 2000) - 1000, (int) (key % 7));
+  }
+
+  private static boolean matchesKey(long entry, long key) {
+    return TranspositionTable.depth(entry) == (int) (key % 40)
+        && TranspositionTable.score(entry) == (int) (key % 2000) - 1000
+        && TranspositionTable.move(entry) == (int) (key % 7)
+        && TranspositionTable.bound(entry) == TranspositionTable.BOUND_EXACT;
+  }
+
+  @Test
+  public void testStoreProbe() {
+    table.store(0L, 12, TranspositionTable.BOUND_UPPER, 987, 2);
+    long entry = table.probe(0L);
+    assertEquals(12, TranspositionTable.depth(entry));
+    assertEquals(TranspositionTable.BOUND_UPPER,
+        TranspositionTable.bound(entry));
+    assertEquals(987, TranspositionTable.score(entry));
+    assertEquals(2, TranspositionTable.move(entry));
+    assertEquals(TranspositionTable.MISS, table.probe(5L));
+    table.clear();
+    assertEquals(TranspositionTable.MISS, table.probe(0L));
+  }
+
+  @Test
+  public void testStore_depthPreferred() {
+    long[] keys = collidingKeys(2, 1);
+    table.store(keys[0], 10, TranspositionTable.BOUND_EXACT, 5, 3);
+    table.store(keys[1], 4, TranspositionTable.BOUND_EXACT, 7, 2);
+    assertEquals(TranspositionTable.MISS, table.probe(keys[1]));
+    table.newSearch();
+    table.store(keys[1], 4, TranspositionTable.BOUND_EXACT, 7, 2);
+    assertEquals(7, TranspositionTable.score(table.probe(keys[1])));
+    assertEquals(TranspositionTable.MISS, table.probe(keys[0]));
+  }
+
+  /* writers race on a handful of slots; no reader may see a torn entry. */
+  @Test
+  public void testConcurrentStoreProbe_noTornEntries() throws Exception {
+    final long[] keys = collidingKeys(64, 4);
+    final CountDownLatch start = new CountDownLatch(1);
+    final AtomicLong hits = new AtomicLong();
+    final AtomicLong corrupt = new AtomicLong();
+    Thread[] threads = new Thread[THREADS];
+    for (int t = 0; t < THREADS; t++) {
+      threads[t] = new Thread(() -> {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        try {
+          start.await();
+        } catch (InterruptedException e) {
+          return;
+        }
+        for (int i = 0; i < ITERATIONS; i++) {
+          long key = keys[random.nextInt(keys.length)];
+          if (random.nextBoolean()) {
+            storeFor(table, key);
+            if (i % 1024 == 0) {
+              table.newSearch();
+            }
+          } else {
+            long entry = table.probe(key);
+            if (entry != TranspositionTable.MISS) {
+              hits.incrementAndGet();
+              if (!matchesKey(entry, key)) {
+                corrupt.incrementAndGet();
+              }
+            }
+          }
+        }
+      });
+      threads[t].start();
+    }
+    start.countDown();
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    assertTrue(hits.get() > 0);
+    assertEquals(0, corrupt.get());
+  }
+
+  /* a full parallel search over the shared table agrees with one thread. */
+  @Test
+  public void testParallelSearch_sharedTable() {
+    ParallelSearch search = new ParallelSearch(9, 0, THREADS, 4);
+    try {
+      for (String moves : new String[] {"", "44", "4453", "334455"}) {
+        BitBoard board = BitBoard.fromMoves(moves);
+        int player = board.getCurrentPlayer();
+        SearchResult sequential = new NegamaxSearch(9, 0,
+            new TranspositionTableImpl(4)).search(board, player);
+        assertEquals(moves, sequential.getScore(),
+            search.search(board, player).getScore());
+      }
+    } finally {
+      search.shutdown();
+    }
+  }
+}
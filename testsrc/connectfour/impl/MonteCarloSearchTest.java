@@ -0,0 +1,107 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CancellationException;
+
+import org.junit.Test;
+
+public class MonteCarloSearchTest {
+
+  @Test
+  public void testSearch_playsWinningMove() {
+    BitBoard board = BitBoard.fromMoves("121212");
+    assertEquals(0, new MonteCarloSearch(1000).search(board, 0)
+        .getBestMove());
+  }
+
+  @Test
+  public void testSearch_blocksThreat() {
+    BitBoard board = BitBoard.fromMoves("414151");
+    assertEquals(0, new MonteCarloSearch(1000).search(board, 0)
+        .getBestMove());
+  }
+
+  /* an open three on the bottom row wins, so it should be found. */
+  @Test
+  public void testSearch_findsOpenThree() {
+    BitBoard board = BitBoard.fromMoves("4455");
+    SearchResult result = new MonteCarloSearch(20000, 0, 2).search(board, 0);
+    assertTrue(result.getBestMove() == 2 || result.getBestMove() == 5);
+    assertTrue(result.getScore() > 0);
+    assertTrue(result.getDepth() > 1);
+  }
+
+  @Test
+  public void testSearch_countsPlayouts() {
+    MonteCarloSearch search = new MonteCarloSearch(5000);
+    SearchResult result = search.search(new BitBoard(), 0);
+    assertEquals(5000, result.getNodes());
+    assertTrue(search.getTreeSize() > 1);
+    assertTrue(result.getNodesPerSecond() > 0);
+  }
+
+  @Test
+  public void testSearch_parallel() {
+    MonteCarloSearch search = new MonteCarloSearch(20000, 0, 4);
+    try {
+      for (int i = 0; i < 3; i++) {
+        SearchResult result = search.search(new BitBoard(), 0);
+        assertTrue(result.getNodes() >= 20000);
+        assertTrue(new BitBoard().canPlay(result.getBestMove()));
+      }
+    } finally {
+      search.shutdown();
+    }
+  }
+
+  @Test
+  public void testSearch_largerBoard() {
+    BitBoard board = new BitBoard(new Rules(8, 7, 4));
+    board.play(3);
+    SearchResult result = new MonteCarloSearch(3000).search(board, 1);
+    assertTrue(result.getBestMove() < 8);
+  }
+
+  @Test (timeout = 5000)
+  public void testSearch_timeBudget() {
+    SearchResult result = new MonteCarloSearch(0, 50, 1)
+        .search(new BitBoard(), 0);
+    assertTrue(result.getNodes() > 0);
+    assertTrue(result.getElapsedNanos() < 2000000000L);
+  }
+
+  /* a full arena stops the tree, but the search still plays. */
+  @Test
+  public void testSearch_fullArena() {
+    MonteCarloSearch search = new MonteCarloSearch(2000, 0, 1, 64);
+    SearchResult result = search.search(new BitBoard(), 0);
+    assertEquals(2000, result.getNodes());
+    assertTrue(search.getTreeSize() <= 64);
+  }
+
+  @Test (expected = CancellationException.class)
+  public void testSearch_interrupted() {
+    Thread.currentThread().interrupt();
+    try {
+      new MonteCarloSearch(100000).search(new BitBoard(), 0);
+    } finally {
+      Thread.interrupted();
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testSearch_gameOver() {
+    new MonteCarloSearch(10).search(BitBoard.fromMoves("1212121"), 1);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testConstructor_noLimit() {
+    new MonteCarloSearch(0, 0, 1);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testConstructor_smallArena() {
+    new MonteCarloSearch(10, 0, 1, 10);
+  }
+}
@@ -0,0 +1,89 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+public class MultiWordBoardTest {
+
+  @Test
+  public void testPlay_lineAcrossWords() {
+    Rules rules = new Rules(10, 9, 5);
+    Board board = new MultiWordBoard(rules);
+    for (int col = 3; col < 8; col++) {
+      assertFalse(board.isWin(0));
+      board.play(col, 0);
+    }
+    assertTrue(board.isWin(0));
+    assertFalse(board.isWin(1));
+    assertEquals(0, board.getOwner(0, 7));
+    assertEquals(-1, board.getOwner(1, 7));
+    board.reset();
+    assertEquals(0, board.getMoveCount());
+    assertFalse(board.isWin(0));
+  }
+
+  @Test
+  public void testPlay_diagonalAcrossWords() {
+    Board board = new MultiWordBoard(new Rules(9, 7, 4));
+    for (int col = 5; col < 9; col++) {
+      for (int row = 0; row < col - 5; row++) {
+        board.play(col, 1);
+      }
+      board.play(col, 0);
+    }
+    assertTrue(board.isWin(0));
+    assertFalse(board.isWin(1));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testPlay_fullColumn() {
+    Board board = new MultiWordBoard(new Rules(9, 2, 2));
+    board.play(0);
+    board.play(0);
+    board.play(0);
+  }
+
+  /* random games agree with the threat tracker on every move. */
+  @Test
+  public void testIsWin_matchesTracker() {
+    Random random = new Random(5);
+    Rules[] variants = {new Rules(9, 7, 4), new Rules(10, 9, 5),
+        new Rules(8, 7, 4), new Rules(12, 10, 6)};
+    for (Rules rules : variants) {
+      Board board = rules.newBoard();
+      ThreatTracker tracker = new ThreatTracker(rules);
+      for (int game = 0; game < 100; game++) {
+        board.reset();
+        tracker.reset();
+        while (!board.isFull()) {
+          int col = random.nextInt(rules.getColNum());
+          if (!board.canPlay(col)) {
+            continue;
+          }
+          int player = board.getCurrentPlayer();
+          boolean win = tracker.play(col, board.play(col), player);
+          assertEquals(win, board.isWin(player));
+          if (win) {
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  public void testUndo() {
+    Board board = new MultiWordBoard(new Rules(10, 9, 5));
+    for (int col = 3; col < 8; col++) {
+      board.play(col, 0);
+    }
+    assertEquals(7, board.undo());
+    assertFalse(board.isWin(0));
+    assertEquals(-1, board.getOwner(0, 7));
+    assertEquals(4, board.getMoveCount());
+    assertEquals(6, board.getMove(3));
+  }
+}
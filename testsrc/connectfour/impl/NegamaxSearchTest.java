@@ -0,0 +1,177 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class NegamaxSearchTest {
+  private BitBoard board;
+  private NegamaxSearch search;
+
+  @Before
+  public void setUp() {
+    board = new BitBoard();
+    search = new NegamaxSearch(6);
+  }
+
+  @Test
+  public void testSearch_emptyBoardPlaysCenter() {
+    SearchResult result = search.search(board, 0);
+    assertEquals(3, result.getBestMove());
+    assertEquals(6, result.getDepth());
+    assertTrue(result.getNodes() > 0);
+  }
+
+  /* without a win in sight the leaves are scored by the evaluator. */
+  @Test
+  public void testSearch_leavesUseEvaluator() {
+    SearchResult result = new NegamaxSearch(1).search(board, 0);
+    assertEquals(3, result.getBestMove());
+    assertEquals(-Evaluator.STANDARD.evaluate(BitBoard.fromMoves("4"), 1),
+        result.getScore());
+    assertTrue(result.getScore() > 0);
+  }
+
+  @Test
+  public void testSearch_takesWin() {
+    for (int i = 0; i < 3; i++) {
+      board.play(5, 0);
+      board.play(1, 1);
+    }
+    SearchResult result = search.search(board, 0);
+    assertEquals(5, result.getBestMove());
+    assertEquals(NegamaxSearch.WIN_SCORE - 1, result.getScore());
+  }
+
+  @Test
+  public void testSearch_blocksLoss() {
+    for (int j = 0; j < 3; j++) {
+      board.play(j, 1);
+    }
+    board.play(6, 0);
+    board.play(6, 0);
+    SearchResult result = search.search(board, 0);
+    assertEquals(3, result.getBestMove());
+  }
+
+  /* two open ends on the bottom row win in three plies. */
+  @Test
+  public void testSearch_findsDoubleThreat() {
+    board.play(2, 0);
+    board.play(3, 0);
+    board.play(2, 1);
+    board.play(3, 1);
+    SearchResult result = search.search(board, 0);
+    assertTrue(result.getBestMove() == 1 || result.getBestMove() == 4);
+    assertEquals(NegamaxSearch.WIN_SCORE - 3, result.getScore());
+  }
+
+  @Test
+  public void testSearch_skipsFullColumns() {
+    for (int i = 0; i < BitBoard.ROW_NUM; i++) {
+      board.play(3, i % 2 == 0 ? 0 : 1);
+    }
+    SearchResult result = search.search(board, 0);
+    assertTrue(board.canPlay(result.getBestMove()));
+  }
+
+  @Test
+  public void testSearch_timeBudget() {
+    NegamaxSearch timed = new NegamaxSearch(42, 1);
+    SearchResult result = timed.search(board, 0);
+    assertTrue(result.getDepth() < 42);
+    assertTrue(board.canPlay(result.getBestMove()));
+  }
+
+  /* the deadline is checked inside the search, not between depths. */
+  @Test
+  public void testSearch_hardDeadline() {
+    NegamaxSearch timed = new NegamaxSearch(42);
+    long start = System.nanoTime();
+    SearchResult result = timed.search(board, 0, 50);
+    long elapsedMillis = (System.nanoTime() - start) / 1000000;
+    assertTrue(elapsedMillis < 250);
+    assertTrue(result.getDepth() >= 1 && result.getDepth() < 42);
+    assertTrue(result.getNodes() > 0);
+    assertTrue(board.canPlay(result.getBestMove()));
+  }
+
+  @Test
+  public void testSearch_budgetOverridesConstructor() {
+    NegamaxSearch timed = new NegamaxSearch(42, 10000);
+    SearchResult result = timed.search(board, 0, 20);
+    assertTrue(result.getElapsedNanos() < 1000000000L);
+    assertTrue(board.canPlay(result.getBestMove()));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testSearch_negativeBudget() {
+    search.search(board, 0, -1);
+  }
+
+  @Test
+  public void testChooseMove_sameAsSearch() {
+    for (String moves : new String[] {"", "626262", "1727374", "443322"}) {
+      BitBoard position = BitBoard.fromMoves(moves);
+      int player = position.getCurrentPlayer();
+      int best = new NegamaxSearch(6).search(position, player).getBestMove();
+      assertEquals(moves, best, search.chooseMove(position, player));
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testChooseMove_nullBoard() {
+    search.chooseMove(null, 0);
+  }
+
+  /* the table must not change the choice, only the work. */
+  @Test
+  public void testSearch_tableReusedBetweenSearches() {
+    board.play(3, 0);
+    board.play(2, 1);
+    SearchResult first = search.search(board, 0);
+    SearchResult second = search.search(board, 0);
+    assertEquals(first.getBestMove(), second.getBestMove());
+    assertEquals(first.getScore(), second.getScore());
+    assertTrue(second.getNodes() <= first.getNodes());
+  }
+
+  /* the mirrored position hits the same entries with mirrored moves. */
+  @Test
+  public void testSearch_mirroredPositionSharesTable() {
+    board.play(1, 0);
+    board.play(3, 1);
+    board.play(1, 0);
+    SearchResult first = search.search(board, 1);
+    BitBoard mirrored = new BitBoard();
+    mirrored.play(5, 0);
+    mirrored.play(3, 1);
+    mirrored.play(5, 0);
+    SearchResult second = search.search(mirrored, 1);
+    assertEquals(BitBoard.COL_NUM - 1 - first.getBestMove(),
+        second.getBestMove());
+    assertEquals(first.getScore(), second.getScore());
+    assertTrue(second.getNodes() < first.getNodes());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testSearch_fullBoard() {
+    for (int j = 0; j < BitBoard.COL_NUM; j++) {
+      for (int i = 0; i < BitBoard.ROW_NUM; i++) {
+        board.play(j, 0);
+      }
+    }
+    search.search(board, 0);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testNegamaxSearch_illegalDepth() {
+    new NegamaxSearch(0);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testNegamaxSearch_negativeBudget() {
+    new NegamaxSearch(4, -1);
+  }
+}
@@ -0,0 +1,133 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OpeningBookTest {
+  private static final String ROOT = "26551373474521375252431";
+  private Path path;
+
+  @Before
+  public void setUp() throws IOException {
+    path = File.createTempFile("book", ".bin").toPath();
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+  }
+
+  @Test
+  public void testWriteOpen() throws IOException {
+    long[] entries = {OpeningBook.entry(3L, -5), OpeningBook.entry(7L, 0),
+        OpeningBook.entry(1L << 48, 18)};
+    OpeningBook.write(path, 4, entries, entries.length);
+    OpeningBook book = OpeningBook.open(path);
+    assertEquals(3, book.size());
+    assertEquals(4, book.getMaxPlies());
+    assertEquals(-5, book.get(3L));
+    assertEquals(0, book.get(7L));
+    assertEquals(18, book.get(1L << 48));
+    assertEquals(OpeningBook.NO_ENTRY, book.get(5L));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testWrite_unsorted() throws IOException {
+    long[] entries = {OpeningBook.entry(7L, 0), OpeningBook.entry(3L, 1)};
+    OpeningBook.write(path, 4, entries, entries.length);
+  }
+
+  @Test (expected = IOException.class)
+  public void testOpen_notABook() throws IOException {
+    Files.write(path, new byte[] {1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12,
+        13, 14, 15, 16});
+    OpeningBook.open(path);
+  }
+
+  @Test
+  public void testGenerate_matchesSolver() throws IOException {
+    Solver solver = new Solver(new TranspositionTableImpl(16));
+    int count = OpeningBookGenerator.generate(path, ROOT, 3, solver, null);
+    OpeningBook book = OpeningBook.open(path);
+    assertEquals(count, book.size());
+    assertEquals(ROOT.length() + 3, book.getMaxPlies());
+    BitBoard root = BitBoard.fromMoves(ROOT);
+    int player = root.getCurrentPlayer();
+    assertEquals(solver.solve(root, player),
+        book.get(root.getCanonicalKey(player)));
+    for (int col = 0; col < BitBoard.COL_NUM; col++) {
+      if (!root.canPlay(col)) {
+        continue;
+      }
+      BitBoard child = BitBoard.fromMoves(ROOT + (col + 1));
+      int next = child.getCurrentPlayer();
+      if (child.isWin(player)) {
+        continue;
+      }
+      assertEquals(solver.solve(child, next),
+          book.get(child.getCanonicalKey(next)));
+    }
+  }
+
+  /* the book answers instead of the search, even with a made-up score. */
+  @Test
+  public void testSolver_usesBook() throws IOException {
+    BitBoard board = BitBoard.fromMoves(ROOT);
+    int player = board.getCurrentPlayer();
+    long[] entries = {OpeningBook.entry(board.getCanonicalKey(player), 7)};
+    OpeningBook.write(path, ROOT.length(), entries, 1);
+    Solver solver = new Solver(new TranspositionTableImpl(1),
+        OpeningBook.open(path));
+    assertEquals(7, solver.solve(board, player));
+    assertEquals(0, solver.getNodes());
+  }
+
+  /* a position and its mirror are one entry of the book. */
+  @Test
+  public void testGenerate_mirroredPositionsOnce() throws IOException {
+    String symmetric = "1276216732563256226644";
+    Solver solver = new Solver(new TranspositionTableImpl(16));
+    int count = OpeningBookGenerator.generate(path, symmetric, 1, solver,
+        null);
+    Set<Long> plain = new HashSet<Long>();
+    Set<Long> canonical = new HashSet<Long>();
+    BitBoard board = BitBoard.fromMoves(symmetric);
+    for (int col = 0; col < BitBoard.COL_NUM; col++) {
+      if (!board.canPlay(col)) {
+        continue;
+      }
+      board.play(col);
+      if (!board.isWin(0)) {
+        plain.add(board.getKey(1));
+        canonical.add(board.getCanonicalKey(1));
+      }
+      board.undo();
+    }
+    assertEquals(1 + canonical.size(), count);
+    assertTrue(canonical.size() < plain.size());
+    OpeningBook book = OpeningBook.open(path);
+    BitBoard left = BitBoard.fromMoves(symmetric + "3");
+    BitBoard right = BitBoard.fromMoves(symmetric + "5");
+    assertEquals(solver.solve(left, 1), book.get(right.getCanonicalKey(1)));
+  }
+
+  @Test
+  public void testDecodeMask() {
+    BitBoard board = BitBoard.fromMoves("4455661");
+    for (int player = 0; player < 2; player++) {
+      long mask = board.getDiscs(0) | board.getDiscs(1);
+      assertEquals(mask, OpeningBookGenerator.decodeMask(
+          board.getDiscs(player) + mask));
+    }
+  }
+}
@@ -0,0 +1,114 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class ParallelSearchTest {
+  private ParallelSearch search;
+
+  @Before
+  public void setUp() {
+    search = new ParallelSearch(8, 0, 3, 1);
+  }
+
+  @After
+  public void tearDown() {
+    search.shutdown();
+  }
+
+  @Test
+  public void testGetParallelism() {
+    assertEquals(3, search.getParallelism());
+  }
+
+  @Test
+  public void testSearch_takesWin() {
+    BitBoard board = BitBoard.fromMoves("626262");
+    SearchResult result = search.search(board, 0);
+    assertEquals(5, result.getBestMove());
+    assertEquals(NegamaxSearch.WIN_SCORE - 1, result.getScore());
+  }
+
+  @Test
+  public void testSearch_blocksLoss() {
+    BitBoard board = BitBoard.fromMoves("1727374");
+    SearchResult result = search.search(board, 1);
+    assertEquals(6, result.getBestMove());
+  }
+
+  /* same depth, same score as the sequential search. */
+  @Test
+  public void testSearch_matchesSequentialScore() {
+    String[] positions = {"", "4453", "2252576", "443322"};
+    for (String moves : positions) {
+      BitBoard board = BitBoard.fromMoves(moves);
+      int player = board.getCurrentPlayer();
+      SearchResult parallel = search.search(board, player);
+      SearchResult sequential = new NegamaxSearch(8, 0,
+          new TranspositionTableImpl(1)).search(board, player);
+      assertEquals(moves, sequential.getScore(), parallel.getScore());
+      assertEquals(moves, sequential.getDepth(), parallel.getDepth());
+      assertTrue(parallel.getNodes() > 0);
+    }
+  }
+
+  /* the pool tasks check the deadline, not only the iteration loop. */
+  @Test
+  public void testSearch_hardDeadline() {
+    ParallelSearch timed = new ParallelSearch(42, 0, 3, 1);
+    try {
+      BitBoard board = BitBoard.fromMoves("");
+      long start = System.nanoTime();
+      SearchResult result = timed.search(board, 0, 50);
+      long elapsedMillis = (System.nanoTime() - start) / 1000000;
+      assertTrue(elapsedMillis < 250);
+      assertTrue(result.getDepth() >= 1 && result.getDepth() < 42);
+      assertTrue(board.canPlay(result.getBestMove()));
+    } finally {
+      timed.shutdown();
+    }
+  }
+
+  /* interrupting the caller stops the pool tasks as well. */
+  @Test
+  public void testSearch_interrupted() throws InterruptedException {
+    ParallelSearch deep = new ParallelSearch(42, 0, 3, 1);
+    AtomicReference<RuntimeException> thrown =
+        new AtomicReference<RuntimeException>();
+    Thread caller = new Thread(() -> {
+      try {
+        deep.search(BitBoard.fromMoves(""), 0);
+      } catch (RuntimeException e) {
+        thrown.set(e);
+      }
+    });
+    try {
+      caller.start();
+      Thread.sleep(100);
+      caller.interrupt();
+      caller.join(2000);
+      assertFalse(caller.isAlive());
+      assertTrue(thrown.get() instanceof CancellationException);
+      SearchResult next = deep.search(BitBoard.fromMoves("626262"), 0);
+      assertEquals(5, next.getBestMove());
+    } finally {
+      deep.shutdown();
+    }
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testSearch_negativeBudget() {
+    search.search(BitBoard.fromMoves(""), 0, -1);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testParallelSearch_noThreads() {
+    new ParallelSearch(8, 0);
+  }
+}
@@ -151,6 +151,12 @@ public class PlayerFactoryTest {
     assertEquals(player1, playerList.get(0));
   } 
 
+  @Test (expected = UnsupportedOperationException.class)
+  public void testGetPlayerList_readOnly() {
+    PlayerFactory.reset();
+    PlayerFactory.getPlayerList().add(PlayerFactory.newDefaultPlayer1());
+  }
+
   @Test 
   public void testGetPlayer_customized_getTwo() {
     Player player1 = new PlayerImpl.Builder("Alice", Color.blue)
@@ -166,4 +172,21 @@ public class PlayerFactoryTest {
     assertEquals(player1, playerList.get(0));
     assertEquals(player2, playerList.get(1));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void testGetPlayer_registry() {
+    PlayerRegistry players = new PlayerRegistry(2);
+    Player first = PlayerFactory.getDefaultPlayer(players);
+    Player second = PlayerFactory.getDefaultPlayer(players);
+    assertEquals(PlayerFactory.DEFAULT_PLAYER1_NAME, first.getPlayerName());
+    assertEquals(PlayerFactory.DEFAULT_PLAYER2_NAME, second.getPlayerName());
+    assertEquals(2, players.size());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testGetPlayer_registryFull() {
+    PlayerRegistry players = new PlayerRegistry(1);
+    PlayerFactory.getDefaultPlayer(players);
+    PlayerFactory.getDefaultPlayer(players);
+  }
+}
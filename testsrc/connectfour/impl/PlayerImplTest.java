@@ -1,12 +1,17 @@
 package connectfour.impl;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 import java.awt.Color;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import connectfour.api.MoveProvider;
 import connectfour.api.Player;
 
 public class PlayerImplTest {
@@ -67,6 +72,45 @@ public class PlayerImplTest {
     assertEquals(true, player.getPlayerState());
   }
 
+  @Test
+  public void testBuilder_timeBudget() {
+    assertEquals(0, player.getTimeBudgetMillis());
+    Player computer = new PlayerImpl.Builder("Bob", Color.black)
+        .withType("Computer").withTimeBudgetMillis(500).build();
+    assertEquals(500, computer.getTimeBudgetMillis());
+  }
+
+  @Test
+  public void testBuilder_moveProvider() {
+    assertFalse(player.isComputer());
+    assertNull(player.getMoveProvider());
+    MoveProvider provider = new ThreatMoveProvider();
+    Player computer = new PlayerImpl.Builder("Bob", Color.black)
+        .withMoveProvider(provider).build();
+    assertTrue(computer.isComputer());
+    assertEquals("Computer", computer.getPlayerType());
+    assertSame(provider, computer.getMoveProvider());
+    assertTrue(new PlayerImpl.Builder("Eve", Color.black)
+        .withType("Computer").build().isComputer());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBuilder_nullMoveProvider() {
+    new PlayerImpl.Builder("Bob", Color.black).withMoveProvider(null);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBuilder_humanWithMoveProvider() {
+    new PlayerImpl.Builder("Bob", Color.black)
+        .withMoveProvider(new ThreatMoveProvider()).withType("Human")
+        .build();
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBuilder_negativeTimeBudget() {
+    new PlayerImpl.Builder("Bob", Color.black).withTimeBudgetMillis(-1);
+  }
+
   @Test 
   public void testSetter() {
     player.setPlayerState(false);
@@ -81,4 +125,32 @@ public class PlayerImplTest {
         + ", active=" + true
         + "]", player.toString());
   }
-}
\ No newline at end of file
+
+  /* a Player written before computer players plays as a human. */
+  @Test
+  public void testPlayer_defaults() {
+    Player plain = new Player() {
+      public String getPlayerName() {
+        return "Carol";
+      }
+
+      public String getPlayerType() {
+        return "Human";
+      }
+
+      public Color getPlayerColor() {
+        return Color.blue;
+      }
+
+      public boolean getPlayerState() {
+        return false;
+      }
+
+      public void setPlayerState(boolean isActive) {
+      }
+    };
+    assertFalse(plain.isComputer());
+    assertNull(plain.getMoveProvider());
+    assertEquals(0, plain.getTimeBudgetMillis());
+  }
+}
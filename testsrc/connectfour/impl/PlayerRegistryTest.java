@@ -0,0 +1,132 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.awt.Color;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import connectfour.api.Player;
+
+public class PlayerRegistryTest {
+  private PlayerRegistry registry;
+  private Player alice;
+  private Player bob;
+
+  @Before
+  public void setUp() {
+    registry = new PlayerRegistry(2);
+    alice = new PlayerImpl.Builder("Alice", Color.red).build();
+    bob = new PlayerImpl.Builder("Bob", Color.blue).build();
+  }
+
+  @Test
+  public void testRegister() {
+    assertEquals(alice, registry.register(alice));
+    registry.register(bob);
+    assertEquals(2, registry.size());
+    assertEquals(bob, registry.getByName("Bob"));
+    assertEquals(alice, registry.getByColor(Color.red));
+    assertTrue(registry.isNameTaken("Alice"));
+    assertFalse(registry.isColorTaken(Color.green));
+    List<Player> players = registry.getPlayers();
+    assertEquals(alice, players.get(0));
+    assertEquals(bob, players.get(1));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testRegister_moreThanCapacity() {
+    registry.register(alice);
+    registry.register(bob);
+    registry.register(new PlayerImpl.Builder("Lily", Color.green).build());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testRegister_identicalName() {
+    registry.register(alice);
+    registry.register(new PlayerImpl.Builder("Alice", Color.green).build());
+  }
+
+  /* a refused color must give the name back. */
+  @Test
+  public void testRegister_identicalColorReleasesName() {
+    registry.register(alice);
+    try {
+      registry.register(new PlayerImpl.Builder("Lily", Color.red).build());
+      fail();
+    } catch (IllegalArgumentException e) {
+      assertFalse(registry.isNameTaken("Lily"));
+      assertEquals(1, registry.size());
+    }
+    registry.register(new PlayerImpl.Builder("Lily", Color.green).build());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testRegister_white() {
+    registry.register(new PlayerImpl.Builder("Lily", Color.white).build());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testRegister_null() {
+    registry.register(null);
+  }
+
+  @Test
+  public void testUnregister() {
+    registry.register(alice);
+    registry.register(bob);
+    assertTrue(registry.unregister(alice));
+    assertFalse(registry.unregister(alice));
+    assertNull(registry.getByColor(Color.red));
+    assertEquals(1, registry.size());
+    registry.register(new PlayerImpl.Builder("Alice", Color.red).build());
+  }
+
+  @Test
+  public void testRegister_manyPlayers() {
+    PlayerRegistry lobby = new PlayerRegistry();
+    for (int i = 1; i <= 1000; i++) {
+      lobby.register(new PlayerImpl.Builder("P" + i, new Color(i)).build());
+    }
+    assertEquals(1000, lobby.size());
+    assertEquals("P500", lobby.getByColor(new Color(500)).getPlayerName());
+  }
+
+  /* every name is claimed by exactly one of the racing threads. */
+  @Test
+  public void testRegister_concurrent() throws Exception {
+    PlayerRegistry lobby = new PlayerRegistry();
+    AtomicInteger registered = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    for (int t = 0; t < 4; t++) {
+      int thread = t;
+      pool.execute(() -> {
+        for (int i = 1; i <= 500; i++) {
+          try {
+            lobby.register(new PlayerImpl.Builder("P" + i,
+                new Color(i * 4 + thread)).build());
+            registered.incrementAndGet();
+          } catch (IllegalArgumentException e) {
+            // name taken by another thread
+          }
+        }
+      });
+    }
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(10, TimeUnit.SECONDS));
+    assertEquals(500, registered.get());
+    assertEquals(500, lobby.size());
+    assertEquals(500, lobby.getPlayers().size());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testPlayerRegistry_illegalCapacity() {
+    new PlayerRegistry(0);
+  }
+}
@@ -0,0 +1,164 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class PositionDatabaseTest {
+  private Path dir;
+  private Path path;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = Files.createTempDirectory("positions");
+    path = dir.resolve("games.db");
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(path);
+    Files.deleteIfExists(dir);
+  }
+
+  private static GameRecord game(String moves, int result) {
+    int[] columns = new int[moves.length()];
+    for (int i = 0; i < columns.length; i++) {
+      columns[i] = moves.charAt(i) - '1';
+    }
+    return new GameRecord(Rules.STANDARD, "A", "B", result, columns);
+  }
+
+  @Test
+  public void testBuildGet() throws IOException {
+    try (PositionDatabaseBuilder builder =
+        new PositionDatabaseBuilder(Rules.STANDARD, dir, 100)) {
+      assertTrue(builder.add(game("4455667", 0)));
+      assertTrue(builder.add(game("4354", 1)));
+      assertTrue(builder.add(game("43", GameRecord.DRAW)));
+      assertFalse(builder.add(game("4", GameRecord.UNFINISHED)));
+      // 8 positions of the first game, 3 new ones of the second
+      assertEquals(11, builder.build(path));
+    }
+    PositionDatabase db = PositionDatabase.open(path);
+    PositionStats root = db.get();
+    assertEquals(3, root.getGames());
+    assertEquals(1, root.getWins());
+    assertEquals(1, root.getDraws());
+    assertEquals(1, root.getLosses());
+    assertEquals(3, root.getPlayed(3));
+    assertEquals(1, root.getWon(3));
+    PositionStats reply = db.get(3);
+    assertEquals(3, reply.getPlayed(3) + reply.getPlayed(2));
+    assertEquals(1, reply.getWon(2));
+    assertEquals(0.5, reply.getWinRate(2), 1e-9);
+    assertEquals(0, reply.getWinRate(0), 1e-9);
+    assertNull(db.get(0));
+    assertNull(db.getByKey(-1L));
+  }
+
+  /* many small runs must merge to the same counts as one large run. */
+  @Test
+  public void testBuild_mergesRuns() throws IOException {
+    SplittableRandom random = new SplittableRandom(3);
+    Set<Long> keys = new HashSet<Long>();
+    try (PositionDatabaseBuilder builder =
+        new PositionDatabaseBuilder(Rules.STANDARD, dir, 97)) {
+      for (int g = 0; g < 500; g++) {
+        Board board = Rules.STANDARD.newBoard();
+        int[] moves = new int[1 + random.nextInt(12)];
+        keys.add(canonicalKey());
+        for (int i = 0; i < moves.length; i++) {
+          moves[i] = 2 + random.nextInt(3);
+          if (!board.canPlay(moves[i])) {
+            moves = Arrays.copyOf(moves, i);
+            break;
+          }
+          board.play(moves[i]);
+          keys.add(canonicalKey(Arrays.copyOf(moves, i + 1)));
+        }
+        builder.add(new GameRecord(Rules.STANDARD, "A", "B", g % 2, moves));
+      }
+      assertEquals(keys.size(), builder.build(path));
+    }
+    try (Stream<Path> files = Files.list(dir)) {
+      assertEquals(1, files.count());
+    }
+    PositionDatabase db = PositionDatabase.open(path);
+    assertEquals(keys.size(), db.size());
+    PositionStats root = db.get();
+    assertEquals(500, root.getGames());
+    assertEquals(250, root.getWins());
+    int played = 0;
+    for (int col = 0; col < Rules.STANDARD.getColNum(); col++) {
+      played += root.getPlayed(col);
+    }
+    assertEquals(500, played);
+  }
+
+  private static long canonicalKey(int... moves) {
+    long key = PositionDatabase.key(Rules.STANDARD, moves);
+    return BitBoard.canonicalKey(key);
+  }
+
+  /* a game and its mirror are one set of positions, seen both ways. */
+  @Test
+  public void testBuild_mirroredGames() throws IOException {
+    try (PositionDatabaseBuilder builder =
+        new PositionDatabaseBuilder(Rules.STANDARD, dir, 100)) {
+      builder.add(game("1213", 0));
+      builder.add(game("7673", 1));
+      assertEquals(6, builder.build(path));
+    }
+    PositionDatabase db = PositionDatabase.open(path);
+    PositionStats left = db.get(0, 1, 0);
+    PositionStats right = db.get(6, 5, 6);
+    assertEquals(2, left.getGames());
+    assertEquals(1, left.getWins());
+    assertEquals(1, left.getPlayed(2));
+    assertEquals(0, left.getWon(2));
+    assertEquals(1, left.getPlayed(4));
+    assertEquals(1, left.getWon(4));
+    assertEquals(1, right.getPlayed(4));
+    assertEquals(0, right.getWon(4));
+    assertEquals(1, right.getPlayed(2));
+    assertEquals(1, right.getWon(2));
+  }
+
+  @Test
+  public void testKey() {
+    assertEquals(0L, PositionDatabase.key(Rules.STANDARD));
+    BitBoard board = new BitBoard();
+    board.play(3, 0);
+    board.play(3, 1);
+    board.play(2, 0);
+    assertEquals(board.getDiscs(1) + (board.getDiscs(0) | board.getDiscs(1)),
+        PositionDatabase.key(Rules.STANDARD, 3, 3, 2));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testKey_fullColumn() {
+    PositionDatabase.key(Rules.STANDARD, 0, 0, 0, 0, 0, 0, 0);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBuilder_largeBoard() {
+    new PositionDatabaseBuilder(new Rules(8, 7, 4), dir, 10);
+  }
+
+  @Test (expected = IOException.class)
+  public void testOpen_notDatabase() throws IOException {
+    Files.write(path, new byte[40]);
+    PositionDatabase.open(path);
+  }
+}
@@ -0,0 +1,49 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class RulesTest {
+
+  @Test
+  public void testStandard() {
+    Rules rules = Rules.STANDARD;
+    assertEquals(7, rules.getColNum());
+    assertEquals(6, rules.getRowNum());
+    assertEquals(4, rules.getConnect());
+    assertEquals(69, rules.getWindows().length);
+    assertEquals(3, rules.getCellWindows()[0].length);
+    assertEquals(13, rules.getCellWindows()[3 * 7 + 2].length);
+    assertTrue(rules.newBoard() instanceof BitBoard);
+  }
+
+  @Test
+  public void testNewBoard_bySize() {
+    assertTrue(new Rules(8, 7, 4).newBoard() instanceof BitBoard);
+    assertTrue(new Rules(9, 7, 4).newBoard() instanceof MultiWordBoard);
+    assertTrue(new Rules(10, 9, 5).newBoard() instanceof MultiWordBoard);
+  }
+
+  @Test
+  public void testParse() {
+    assertEquals(new Rules(8, 7, 4), Rules.parse("8x7"));
+    assertEquals(new Rules(10, 9, 5), Rules.parse("10x9x5"));
+    assertEquals("10x9x5", Rules.parse("10x9x5").toString());
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testParse_malformed() {
+    Rules.parse("8by7");
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testConstructor_connectTooLong() {
+    new Rules(5, 4, 6);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testConstructor_noColumns() {
+    new Rules(0, 6, 4);
+  }
+}
@@ -0,0 +1,75 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Test;
+
+public class SelfPlaySimulatorTest {
+
+  @Test
+  public void testRun_countsEveryGame() throws InterruptedException {
+    SelfPlaySimulator simulator = new SelfPlaySimulator(RandomEngine::new,
+        RandomEngine::new, 3);
+    SimulationResult result = simulator.run(1001);
+    assertEquals(1001, result.getGames());
+    assertEquals(result.getGames(), result.getWins() + result.getDraws()
+        + result.getLosses());
+    assertTrue(result.getAverageLength() >= 7);
+    assertTrue(result.getAverageLength() <= 42);
+    assertEquals(1.0, result.getWinRate() + result.getDrawRate()
+        + result.getLossRate(), 1e-9);
+  }
+
+  @Test
+  public void testRun_searchBeatsRandom() throws InterruptedException {
+    SelfPlaySimulator simulator = new SelfPlaySimulator(
+        () -> new NegamaxSearch(4, 0, new TranspositionTableImpl(1)),
+        () -> new RandomEngine(7), 2);
+    SimulationResult result = simulator.run(20);
+    assertTrue(result.getWinRate() > 0.9);
+  }
+
+  /* move providers, as computer players use them, play as well. */
+  @Test
+  public void testWithProviders_threatBeatsRandom()
+      throws InterruptedException {
+    SelfPlaySimulator simulator = SelfPlaySimulator.withProviders(
+        ThreatMoveProvider::new,
+        () -> new EngineMoveProvider(new RandomEngine(3)), 2);
+    SimulationResult result = simulator.run(200);
+    assertEquals(200, result.getGames());
+    assertTrue(result.getWins() > 2 * result.getLosses());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testWithProviders_nullProvider() {
+    SelfPlaySimulator.withProviders(ThreatMoveProvider::new, null, 1);
+  }
+
+  @Test
+  public void testRun_noGames() throws InterruptedException {
+    SimulationResult result = new SelfPlaySimulator(RandomEngine::new,
+        RandomEngine::new, 2).run(0);
+    assertEquals(0, result.getGames());
+    assertEquals(0, result.getWinRate(), 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor_noThreads() {
+    new SelfPlaySimulator(RandomEngine::new, RandomEngine::new, 0);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void testConstructor_nullEngine() {
+    new SelfPlaySimulator(null, RandomEngine::new, 1);
+  }
+
+  @Test
+  public void testRandomEngine_playsOnlyOpenColumns() {
+    BitBoard board = BitBoard.fromMoves("444444");
+    RandomEngine engine = new RandomEngine(1);
+    for (int i = 0; i < 100; i++) {
+      assertNotEquals(3, engine.chooseMove(board, 0));
+    }
+  }
+}
@@ -0,0 +1,94 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class SolverTest {
+  private Solver solver;
+
+  @Before
+  public void setUp() {
+    solver = new Solver(new TranspositionTableImpl(16));
+  }
+
+  @Test
+  public void testSolve_benchmarkPositions() throws IOException {
+    InputStream in = getClass().getResourceAsStream("solver-positions.txt");
+    assertNotNull(in);
+    int count = 0;
+    try (BufferedReader reader = new BufferedReader(
+        new InputStreamReader(in, StandardCharsets.US_ASCII))) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        if (line.isEmpty() || line.startsWith("#")) {
+          continue;
+        }
+        String[] fields = line.split(" ");
+        BitBoard board = BitBoard.fromMoves(fields[0]);
+        assertEquals(fields[0], Integer.parseInt(fields[1]),
+            solver.solve(board, board.getCurrentPlayer()));
+        count++;
+      }
+    }
+    assertEquals(50, count);
+  }
+
+  @Test
+  public void testSolve_winNext() {
+    BitBoard board = BitBoard.fromMoves("121212");
+    assertEquals(22 - 4, solver.solve(board, 0));
+  }
+
+  @Test
+  public void testSolve_lossNext() {
+    BitBoard board = BitBoard.fromMoves("33445");
+    assertEquals(-(22 - 4), solver.solve(board, 1));
+  }
+
+  @Test
+  public void testSearch_playsWinningMove() {
+    BitBoard board = BitBoard.fromMoves("121212");
+    SearchResult result = solver.search(board, 0);
+    assertEquals(0, result.getBestMove());
+    assertEquals(22 - 4, result.getScore());
+  }
+
+  @Test
+  public void testSearch_bestScoreMatchesSolve() {
+    BitBoard board = BitBoard.fromMoves("44444123");
+    int score = solver.solve(board, board.getCurrentPlayer());
+    SearchResult result = solver.search(board, board.getCurrentPlayer());
+    assertEquals(score, result.getScore());
+    assertTrue(board.canPlay(result.getBestMove()));
+  }
+
+  @Test
+  public void testEvaluate_matchesSolve() {
+    BitBoard board = BitBoard.fromMoves("44444123");
+    assertEquals(solver.solve(board, board.getCurrentPlayer()),
+        solver.evaluate(board, board.getCurrentPlayer()));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testSolve_gameOver() {
+    solver.solve(BitBoard.fromMoves("1212121"), 1);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testSolve_illegalPlayer() {
+    solver.solve(new BitBoard(), 2);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testFromMoves_illegalColumn() {
+    BitBoard.fromMoves("48");
+  }
+}
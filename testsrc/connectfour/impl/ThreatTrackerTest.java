@@ -0,0 +1,117 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class ThreatTrackerTest {
+  private ThreatTracker tracker;
+
+  @Before
+  public void setUp() {
+    tracker = new ThreatTracker();
+  }
+
+  @Test
+  public void testPlay_connectFiveOnLargeBoard() {
+    ThreatTracker large = new ThreatTracker(new Rules(10, 9, 5));
+    for (int col = 5; col < 9; col++) {
+      assertFalse(large.play(col, 8, 0));
+    }
+    assertTrue(large.isThreat(0, 4, 8));
+    assertTrue(large.isThreat(0, 9, 8));
+    assertEquals(2, large.getThreatCount(0));
+    assertTrue(large.play(9, 8, 0));
+    assertTrue(large.hasWon(0));
+    large.undo(9, 8, 0);
+    assertFalse(large.hasWon(0));
+    assertTrue(large.isThreat(0, 9, 8));
+  }
+
+  @Test (expected = IllegalStateException.class)
+  public void testGetThreats_largeBoard() {
+    new ThreatTracker(new Rules(9, 7, 4)).getThreats(0);
+  }
+
+  @Test
+  public void testPlay_horizontalWin() {
+    assertFalse(tracker.play(0, 0, 0));
+    assertFalse(tracker.play(1, 0, 0));
+    assertFalse(tracker.play(2, 0, 0));
+    assertEquals(BitBoard.bottomMask(3), tracker.getThreats(0));
+    assertTrue(tracker.play(3, 0, 0));
+    assertTrue(tracker.hasWon(0));
+    assertFalse(tracker.hasWon(1));
+  }
+
+  @Test
+  public void testPlay_blockedThreat() {
+    tracker.play(0, 0, 1);
+    tracker.play(0, 1, 1);
+    tracker.play(0, 2, 1);
+    assertEquals(1, tracker.getThreatCount(1));
+    assertEquals(1L << 3, tracker.getWinningMoves(1));
+    tracker.play(0, 3, 0);
+    assertEquals(0, tracker.getThreatCount(1));
+    tracker.undo(0, 3, 0);
+    assertEquals(1L << 3, tracker.getThreats(1));
+  }
+
+  @Test
+  public void testGetWinningMoves_notPlayable() {
+    tracker.play(1, 0, 0);
+    tracker.play(2, 0, 1);
+    tracker.play(2, 1, 0);
+    tracker.play(3, 0, 1);
+    tracker.play(3, 1, 1);
+    tracker.play(3, 2, 0);
+    long threat = 1L << (4 * (BitBoard.ROW_NUM + 1) + 3);
+    assertEquals(threat, tracker.getThreats(0));
+    assertEquals(0L, tracker.getWinningMoves(0));
+  }
+
+  /* random games, checked against the bitboard after every play and undo. */
+  @Test
+  public void testRandomGames_matchBitBoard() {
+    Random random = new Random(11);
+    for (int game = 0; game < 200; game++) {
+      tracker.reset();
+      BitBoard board = new BitBoard();
+      int[] cols = new int[BitBoard.COL_NUM * BitBoard.ROW_NUM];
+      int[] rows = new int[cols.length];
+      int n = 0;
+      while (!board.isFull() && !board.isWin(0) && !board.isWin(1)) {
+        int col = random.nextInt(BitBoard.COL_NUM);
+        if (!board.canPlay(col)) {
+          continue;
+        }
+        int player = board.getCurrentPlayer();
+        int row = board.play(col, player);
+        assertEquals(board.isWin(player), tracker.play(col, row, player));
+        cols[n] = col;
+        rows[n++] = row;
+        assertMatches(board);
+      }
+      while (n > 0) {
+        n--;
+        tracker.undo(cols[n], rows[n], n & 1);
+      }
+      assertEquals(0L, tracker.getThreats(0) | tracker.getThreats(1));
+      assertFalse(tracker.hasWon(0) || tracker.hasWon(1));
+    }
+  }
+
+  private void assertMatches(BitBoard board) {
+    long mask = board.getDiscs(0) | board.getDiscs(1);
+    for (int player = 0; player < 2; player++) {
+      assertEquals(board.isWin(player), tracker.hasWon(player));
+      assertEquals(Solver.winningPosition(board.getDiscs(player), mask),
+          tracker.getThreats(player));
+      assertEquals(Solver.winningPosition(board.getDiscs(player), mask)
+          & Solver.possible(mask), tracker.getWinningMoves(player));
+    }
+  }
+}
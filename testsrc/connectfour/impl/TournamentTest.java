@@ -0,0 +1,95 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import java.io.StringWriter;
+import java.util.Arrays;
+
+import org.junit.Test;
+
+public class TournamentTest {
+
+  @Test
+  public void testRun_roundRobin() throws InterruptedException {
+    Tournament tournament = new Tournament.Builder()
+        .addEntrant("random", RandomEngine::new)
+        .addEntrant("negamax:2", () -> new NegamaxSearch(2, 0,
+            new TranspositionTableImpl(1)))
+        .addEntrant("negamax:4", () -> new NegamaxSearch(4, 0,
+            new TranspositionTableImpl(1)))
+        .withOpenings(Arrays.asList("4", "3", "5"))
+        .withRounds(2).withThreads(3).build();
+    StringWriter out = new StringWriter();
+    Tournament.Result result = tournament.run(out, Tournament.Format.CSV);
+    // 3 pairs, 3 openings, 2 colors, 2 rounds
+    assertEquals(36, result.getGames());
+    assertEquals(0, result.getSkipped());
+    String[] lines = out.toString().split("\n");
+    assertEquals(Tournament.CSV_HEADER, lines[0]);
+    assertEquals(37, lines.length);
+    assertEquals(7, lines[1].split(",").length);
+    assertEquals(12, result.getMatch(0, 2).getGames());
+    assertTrue(result.getMatch(2, 0).getScore() > 0.8);
+    assertEquals(result.getMatch(0, 1).getWins(),
+        result.getMatch(1, 0).getLosses());
+    assertEquals(36, result.getPoints(0) + result.getPoints(1)
+        + result.getPoints(2), 1e-9);
+  }
+
+  /* a search beats random every game, so the SPRT stops it early. */
+  @Test
+  public void testRun_sprtStopsEarly() throws InterruptedException {
+    Tournament tournament = new Tournament.Builder()
+        .addEntrant("random", RandomEngine::new)
+        .addEntrant("negamax", () -> new NegamaxSearch(4, 0,
+            new TranspositionTableImpl(1)))
+        .withRounds(500).withThreads(2).withSprt(-50, 50, 0.05, 0.05)
+        .build();
+    StringWriter out = new StringWriter();
+    Tournament.Result result = tournament.run(out, Tournament.Format.JSON);
+    assertTrue(result.getGames() < 100);
+    assertEquals(1000, result.getGames() + result.getSkipped());
+    assertTrue(out.toString().startsWith("{\"round\":"));
+    assertTrue(result.toString().contains("H0 accepted"));
+  }
+
+  @Test
+  public void testMatchStats() {
+    MatchStats stats = new MatchStats();
+    assertEquals(0.5, stats.getScore(), 0);
+    assertEquals(0, stats.getEloDifference(), 1e-9);
+    for (int i = 0; i < 120; i++) {
+      stats.add(1);
+      stats.add(0);
+      stats.add(-1);
+      stats.add(1);
+    }
+    assertEquals(0.625, stats.getScore(), 1e-9);
+    assertEquals(88.7, stats.getEloDifference(), 0.1);
+    assertTrue(stats.getEloError() > 0);
+    assertTrue(stats.getLlr(0, 10) > 0);
+    assertEquals(1, stats.sprt(0, 10, 0.05, 0.05));
+    assertEquals(-88.7, stats.reversed().getEloDifference(), 0.1);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBuilder_sameName() {
+    new Tournament.Builder().addEntrant("a", RandomEngine::new)
+        .addEntrant("a", RandomEngine::new);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBuilder_nameWithComma() {
+    new Tournament.Builder().addEntrant("a,b", RandomEngine::new);
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBuilder_oneEntrant() {
+    new Tournament.Builder().addEntrant("a", RandomEngine::new).build();
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testBuilder_finishedOpening() {
+    new Tournament.Builder().withOpenings(Arrays.asList("1212121"));
+  }
+}
@@ -0,0 +1,95 @@
+package connectfour.impl;
+
+import static org.junit.Assert.*;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TranspositionTableImplTest {
+  private TranspositionTableImpl table;
+
+  @Before
+  public void setUp() {
+    table = new TranspositionTableImpl(1);
+  }
+
+  /**
+   * helper to find another key stored in the same slot as key.
+   */
+  private long collidingKey(long key) {
+    long other = key + 1;
+    while (table.index(other) != table.index(key)) {
+      other++;
+    }
+    return other;
+  }
+
+  @Test
+  public void testCapacity() {
+    assertEquals(1 << 16, table.getCapacity());
+    assertEquals(1 << 19, new TranspositionTableImpl(12).getCapacity());
+  }
+
+  @Test
+  public void testProbe_miss() {
+    assertEquals(TranspositionTable.MISS, table.probe(0L));
+    assertEquals(TranspositionTable.MISS, table.probe(12345L));
+  }
+
+  @Test
+  public void testStoreProbe() {
+    table.store(0L, 12, TranspositionTable.BOUND_LOWER, -987, 6);
+    long entry = table.probe(0L);
+    assertNotEquals(TranspositionTable.MISS, entry);
+    assertEquals(12, TranspositionTable.depth(entry));
+    assertEquals(TranspositionTable.BOUND_LOWER,
+        TranspositionTable.bound(entry));
+    assertEquals(-987, TranspositionTable.score(entry));
+    assertEquals(6, TranspositionTable.move(entry));
+    assertEquals(TranspositionTable.MISS, table.probe(collidingKey(0L)));
+  }
+
+  @Test
+  public void testStore_depthPreferred() {
+    long key = 42L;
+    long other = collidingKey(key);
+    table.store(key, 10, TranspositionTable.BOUND_EXACT, 5, 3);
+    table.store(other, 4, TranspositionTable.BOUND_EXACT, 7, 2);
+    assertEquals(5, TranspositionTable.score(table.probe(key)));
+    assertEquals(TranspositionTable.MISS, table.probe(other));
+    table.store(other, 10, TranspositionTable.BOUND_EXACT, 7, 2);
+    assertEquals(7, TranspositionTable.score(table.probe(other)));
+    assertEquals(TranspositionTable.MISS, table.probe(key));
+  }
+
+  @Test
+  public void testStore_sameKeyAlwaysReplaced() {
+    table.store(42L, 10, TranspositionTable.BOUND_EXACT, 5, 3);
+    table.store(42L, 2, TranspositionTable.BOUND_UPPER, -5, 1);
+    long entry = table.probe(42L);
+    assertEquals(2, TranspositionTable.depth(entry));
+    assertEquals(-5, TranspositionTable.score(entry));
+  }
+
+  @Test
+  public void testStore_olderSearchReplaced() {
+    long key = 42L;
+    long other = collidingKey(key);
+    table.store(key, 20, TranspositionTable.BOUND_EXACT, 5, 3);
+    table.newSearch();
+    table.store(other, 1, TranspositionTable.BOUND_EXACT, 7, 2);
+    assertEquals(7, TranspositionTable.score(table.probe(other)));
+  }
+
+  @Test
+  public void testClear() {
+    table.store(42L, 10, TranspositionTable.BOUND_EXACT, 5, 3);
+    table.clear();
+    assertEquals(TranspositionTable.MISS, table.probe(42L));
+  }
+
+  @Test (expected = IllegalArgumentException.class)
+  public void testTranspositionTableImpl_noBudget() {
+    new TranspositionTableImpl(0);
+  }
+}